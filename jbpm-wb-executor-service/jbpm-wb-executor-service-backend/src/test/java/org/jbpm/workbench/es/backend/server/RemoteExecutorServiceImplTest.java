@@ -16,6 +16,8 @@
 
 package org.jbpm.workbench.es.backend.server;
 
+import org.jbpm.workbench.ks.integration.KieServerCallGuard;
+import org.jbpm.workbench.ks.integration.KieServerCallMetrics;
 import org.jbpm.workbench.ks.integration.KieServerIntegration;
 import org.jbpm.workbench.es.model.RequestDetails;
 import org.junit.Before;
@@ -26,6 +28,7 @@ import org.kie.server.client.JobServicesClient;
 import org.kie.server.client.KieServicesClient;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import static org.jbpm.workbench.es.backend.server.RequestDetailsMapperTest.assertRequestDetails;
@@ -44,6 +47,12 @@ public class RemoteExecutorServiceImplTest {
     @Mock
     JobServicesClient jobServicesClient;
 
+    @Spy
+    KieServerCallGuard callGuard = new KieServerCallGuard();
+
+    @Spy
+    KieServerCallMetrics callMetrics = new KieServerCallMetrics();
+
     @InjectMocks
     RemoteExecutorServiceImpl executorService;
 
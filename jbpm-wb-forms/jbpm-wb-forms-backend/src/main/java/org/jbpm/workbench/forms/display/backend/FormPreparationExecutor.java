@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.forms.display.backend;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Typed;
+
+import org.jbpm.workbench.ks.integration.KieServerParallelExecutor;
+import org.kie.server.client.CredentialsProvider;
+
+import static org.jbpm.workbench.ks.utils.KieServerUtils.getCredentialsProvider;
+
+/**
+ * Executor dedicated to the KIE Server calls issued while preparing task forms, kept apart from the shared
+ * {@link KieServerParallelExecutor} so that data set and query traffic cannot starve form rendering (and vice versa).
+ */
+@ApplicationScoped
+@Typed( FormPreparationExecutor.class )
+public class FormPreparationExecutor extends KieServerParallelExecutor {
+
+    public static final String THREADS_PROPERTY = "org.jbpm.workbench.forms.task.threads";
+
+    public FormPreparationExecutor() {
+        this( Integer.parseInt( System.getProperty( THREADS_PROPERTY, "20" ) ), getCredentialsProvider() );
+    }
+
+    public FormPreparationExecutor( int threads, CredentialsProvider credentialsProvider ) {
+        super( "form-preparation-", threads, credentialsProvider );
+    }
+}
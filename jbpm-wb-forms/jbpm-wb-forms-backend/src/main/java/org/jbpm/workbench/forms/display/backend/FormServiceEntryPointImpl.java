@@ -16,16 +16,25 @@
 
 package org.jbpm.workbench.forms.display.backend;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 
 import org.jboss.errai.bus.server.annotations.Service;
 import org.jbpm.workbench.ks.integration.AbstractKieServerService;
+import org.jbpm.workbench.ks.integration.KieServerDefinitionCache;
 import org.jbpm.workbench.forms.display.FormRenderingSettings;
 import org.jbpm.workbench.forms.service.providing.DefaultFormProvider;
 import org.jbpm.workbench.forms.service.providing.FormProvider;
@@ -52,24 +61,43 @@ import org.slf4j.LoggerFactory;
 @ApplicationScoped
 public class FormServiceEntryPointImpl extends AbstractKieServerService implements FormServiceEntryPoint {
 
+    public static final String TASK_FORM_TIMEOUT_PROPERTY = "org.jbpm.workbench.forms.task.timeout";
+
     private static final Logger logger = LoggerFactory.getLogger( FormServiceEntryPointImpl.class );
 
+    // positions of the task form calls issued concurrently, document links follow
+    private static final int INPUT_DEFINITIONS = 0;
+    private static final int OUTPUT_DEFINITIONS = 1;
+    private static final int FORM_CONTENT = 2;
+    private static final int DOCUMENT_LINKS = 3;
+
     private final FormProvider<? extends FormRenderingSettings> defaultFormProvider;
 
+    private final KieServerDefinitionCache definitionCache;
+
+    private final FormPreparationExecutor preparationExecutor;
+
+    private long taskFormTimeout = Long.parseLong( System.getProperty( TASK_FORM_TIMEOUT_PROPERTY, "10000" ) );
+
     private Set<FormProvider<? extends FormRenderingSettings>> providers = new TreeSet<>( ( o1, o2 ) -> o1.getPriority() - o2.getPriority() );
 
     @Inject
     public FormServiceEntryPointImpl( Instance<FormProvider<? extends FormRenderingSettings>> providersInjected,
-                                      @DefaultFormProvider FormProvider<? extends FormRenderingSettings> defaultFormProvider ) {
+                                      @DefaultFormProvider FormProvider<? extends FormRenderingSettings> defaultFormProvider,
+                                      KieServerDefinitionCache definitionCache,
+                                      FormPreparationExecutor preparationExecutor ) {
         for ( FormProvider provider : providersInjected ) {
             providers.add( provider );
         }
 
         this.defaultFormProvider = defaultFormProvider;
+        this.definitionCache = definitionCache;
+        this.preparationExecutor = preparationExecutor;
     }
 
     @Override
     public FormRenderingSettings getFormDisplayTask( String serverTemplateId, String domainId, long taskId ) {
+        final long start = System.nanoTime();
         String registrationKey = serverTemplateId + "@" + domainId + "@" + System.currentTimeMillis();
 
         DocumentServicesClient documentClient = getClient( serverTemplateId, domainId, DocumentServicesClient.class );
@@ -83,9 +111,35 @@ public class FormServiceEntryPointImpl extends AbstractKieServerService implemen
         if ( task == null ) {
             throw new RuntimeException( "No task found for id " + taskId );
         }
+        final long taskLoaded = System.nanoTime();
 
         ProcessServicesClient processService = getClient( serverTemplateId, domainId, ProcessServicesClient.class );
 
+        // definitions, raw form and document links only depend on the task so they are loaded concurrently
+        List<Callable<Object>> calls = new ArrayList<Callable<Object>>();
+        calls.add( () -> definitionCache.get( serverTemplateId,
+                                              domainId,
+                                              task.getProcessId(),
+                                              "taskInputs|" + task.getName(),
+                                              () -> processService.getUserTaskInputDefinitions( domainId, task.getProcessId(), task.getName() ) ) );
+        calls.add( () -> definitionCache.get( serverTemplateId,
+                                              domainId,
+                                              task.getProcessId(),
+                                              "taskOutputs|" + task.getName(),
+                                              () -> processService.getUserTaskOutputDefinitions( domainId, task.getProcessId(), task.getName() ) ) );
+        // raw form only depends on the task definition, not on the task instance
+        calls.add( () -> definitionCache.get( serverTemplateId,
+                                              domainId,
+                                              task.getProcessId(),
+                                              "taskForm|" + task.getName() + "|" + task.getFormName(),
+                                              () -> uiServicesClient.getTaskRawForm( domainId, taskId ) ) );
+        List<String> documentIds = getDocumentIdentifiers( task.getInputData(), task.getOutputData() );
+        for ( String documentId : documentIds ) {
+            calls.add( () -> documentClient.getDocumentLink( documentId ) );
+        }
+        List<Future<Object>> results = invokeAll( calls );
+        final long dataLoaded = System.nanoTime();
+
         TaskDefinition taskInstance = new TaskDefinition();
         taskInstance.setId( task.getId() );
         taskInstance.setName( task.getName() );
@@ -96,18 +150,23 @@ public class FormServiceEntryPointImpl extends AbstractKieServerService implemen
 
         taskInstance.setStatus( task.getStatus() );
 
-        TaskInputsDefinition inputDefinitions = processService.getUserTaskInputDefinitions( domainId, task.getProcessId(), task.getName() );
+        TaskInputsDefinition inputDefinitions = (TaskInputsDefinition) getResult( results.get( INPUT_DEFINITIONS ) );
 
-        taskInstance.setTaskInputDefinitions( inputDefinitions.getTaskInputs() );
+        taskInstance.setTaskInputDefinitions( copy( inputDefinitions.getTaskInputs() ) );
 
-        TaskOutputsDefinition outputDefinitions = processService.getUserTaskOutputDefinitions( domainId, task.getProcessId(), task.getName() );
+        TaskOutputsDefinition outputDefinitions = (TaskOutputsDefinition) getResult( results.get( OUTPUT_DEFINITIONS ) );
 
-        taskInstance.setTaskOutputDefinitions( outputDefinitions.getTaskOutputs() );
+        taskInstance.setTaskOutputDefinitions( copy( outputDefinitions.getTaskOutputs() ) );
 
         // prepare render context
-        Map<String, Object> inputs = processData( documentClient, task.getInputData() );
+        Map<String, String> documentLinks = new HashMap<String, String>();
+        for ( int i = 0; i < documentIds.size(); i++ ) {
+            documentLinks.put( documentIds.get( i ), (String) getResult( results.get( DOCUMENT_LINKS + i ) ) );
+        }
 
-        Map<String, Object> outputs = processData( documentClient, task.getOutputData() );
+        Map<String, Object> inputs = processData( documentLinks, task.getInputData() );
+
+        Map<String, Object> outputs = processData( documentLinks, task.getOutputData() );
 
         if ( outputs != null && !outputs.isEmpty() ) {
             taskInstance.setOutputIncluded( true );
@@ -115,8 +174,26 @@ public class FormServiceEntryPointImpl extends AbstractKieServerService implemen
 
         KieServicesClient kieServicesClient = getKieServicesClient( serverTemplateId, domainId );
 
+        FormRenderingSettings renderingSettings = renderTaskForm( taskInstance, inputs, outputs, results.get( FORM_CONTENT ), kieServicesClient );
+
+        final long rendered = System.nanoTime();
+        logger.debug( "Task form of task {} prepared in {} ms (task {} ms, definitions, form and {} document links {} ms, rendering {} ms)",
+                      taskId,
+                      TimeUnit.NANOSECONDS.toMillis( rendered - start ),
+                      TimeUnit.NANOSECONDS.toMillis( taskLoaded - start ),
+                      documentIds.size(),
+                      TimeUnit.NANOSECONDS.toMillis( dataLoaded - taskLoaded ),
+                      TimeUnit.NANOSECONDS.toMillis( rendered - dataLoaded ) );
+        return renderingSettings;
+    }
+
+    private FormRenderingSettings renderTaskForm( TaskDefinition taskInstance,
+                                                  Map<String, Object> inputs,
+                                                  Map<String, Object> outputs,
+                                                  Future<Object> formContentResult,
+                                                  KieServicesClient kieServicesClient ) {
         try {
-            String formContent = uiServicesClient.getTaskRawForm( domainId, taskId );
+            String formContent = (String) getResult( formContentResult );
             TaskRenderingSettings settings = new TaskRenderingSettings( taskInstance,
                                                                         inputs,
                                                                         outputs,
@@ -139,6 +216,45 @@ public class FormServiceEntryPointImpl extends AbstractKieServerService implemen
         return renderDefaultTaskForm( taskInstance, inputs, outputs, kieServicesClient );
     }
 
+    /**
+     * Runs given calls concurrently and waits for all of them to complete, calls not completed within the task form
+     * timeout are cancelled.
+     */
+    protected List<Future<Object>> invokeAll( List<Callable<Object>> calls ) {
+        try {
+            return preparationExecutor.invokeAll( calls, taskFormTimeout );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException( e );
+        }
+    }
+
+    /**
+     * Returns result of a completed call, rethrowing the exception the call failed with.
+     */
+    protected Object getResult( Future<Object> result ) {
+        try {
+            return result.get();
+        } catch ( CancellationException e ) {
+            throw new RuntimeException( "Loading of task form data did not complete within " + taskFormTimeout + " ms" );
+        } catch ( ExecutionException e ) {
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException( e.getCause() );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException( e );
+        }
+    }
+
+    /**
+     * Definitions are shared through the definition cache, providers get their own copy to work with.
+     */
+    private Map<String, String> copy( Map<String, String> definitions ) {
+        return definitions == null ? null : new HashMap<String, String>( definitions );
+    }
+
     private FormRenderingSettings renderDefaultTaskForm( TaskDefinition taskInstance,
                                                          Map<String, Object> inputs,
                                                          Map<String, Object> outputs,
@@ -162,7 +278,11 @@ public class FormServiceEntryPointImpl extends AbstractKieServerService implemen
 
         ProcessServicesClient processClient = getClient( serverTemplateId, domainId, ProcessServicesClient.class );
 
-        ProcessDefinition processDefinition = processClient.getProcessDefinition( domainId, processId );
+        ProcessDefinition processDefinition = definitionCache.get( serverTemplateId,
+                                                                   domainId,
+                                                                   processId,
+                                                                   "process",
+                                                                   () -> processClient.getProcessDefinition( domainId, processId ) );
 
         org.jbpm.workbench.forms.service.providing.model.ProcessDefinition processDesc = new org.jbpm.workbench.forms.service.providing.model.ProcessDefinition();
         processDesc.setId( processDefinition.getId() );
@@ -170,7 +290,7 @@ public class FormServiceEntryPointImpl extends AbstractKieServerService implemen
         processDesc.setPackageName( processDefinition.getPackageName() );
         processDesc.setDeploymentId( serverTemplateId + "@" + processDefinition.getContainerId() + "@" + System.currentTimeMillis() );
 
-        Map<String, String> processData = processDefinition.getProcessVariables();
+        Map<String, String> processData = copy( processDefinition.getProcessVariables() );
 
         if ( processData == null ) {
             processData = new HashMap<String, String>();
@@ -181,7 +301,11 @@ public class FormServiceEntryPointImpl extends AbstractKieServerService implemen
         KieServicesClient kieServicesClient = getKieServicesClient( serverTemplateId, domainId );
 
         try {
-            String formContent = uiServicesClient.getProcessRawForm( domainId, processId );
+            String formContent = definitionCache.get( serverTemplateId,
+                                                      domainId,
+                                                      processId,
+                                                      "processForm",
+                                                      () -> uiServicesClient.getProcessRawForm( domainId, processId ) );
             ProcessRenderingSettings settings = new ProcessRenderingSettings( processDesc,
                                                                               processData,
                                                                               formContent,
@@ -221,7 +345,28 @@ public class FormServiceEntryPointImpl extends AbstractKieServerService implemen
         return null;
     }
 
-    protected Map<String, Object> processData( DocumentServicesClient documentClient, Map<String, Object> data ) {
+    /**
+     * Distinct identifiers of documents in given task data, so the link of each of them is resolved only once.
+     */
+    protected List<String> getDocumentIdentifiers( Map<String, Object> inputs, Map<String, Object> outputs ) {
+        Set<String> identifiers = new LinkedHashSet<String>();
+        addDocumentIdentifiers( inputs, identifiers );
+        addDocumentIdentifiers( outputs, identifiers );
+        return new ArrayList<String>( identifiers );
+    }
+
+    private void addDocumentIdentifiers( Map<String, Object> data, Set<String> identifiers ) {
+        if ( data == null ) {
+            return;
+        }
+        for ( Object value : data.values() ) {
+            if ( value instanceof Document ) {
+                identifiers.add( ( (Document) value ).getIdentifier() );
+            }
+        }
+    }
+
+    protected Map<String, Object> processData( Map<String, String> documentLinks, Map<String, Object> data ) {
 
         if ( data == null || data.isEmpty() ) {
             return data;
@@ -230,7 +375,7 @@ public class FormServiceEntryPointImpl extends AbstractKieServerService implemen
         for ( Map.Entry<String, Object> entry : data.entrySet() ) {
             if ( entry.getValue() instanceof Document ) {
                 Document document = ( (Document) entry.getValue() );
-                document.setLink( documentClient.getDocumentLink( document.getIdentifier() ) );
+                document.setLink( documentLinks.get( document.getIdentifier() ) );
             }
         }
 
@@ -23,11 +23,11 @@ import javax.inject.Inject;
 
 import org.jboss.errai.bus.server.annotations.Service;
 import org.jbpm.workbench.ht.service.TaskService;
+import org.jbpm.workbench.forms.display.backend.provider.FormRenderingContextRegistry;
 import org.jbpm.workbench.forms.display.backend.provider.ProcessFormsValuesProcessor;
 import org.jbpm.workbench.forms.display.backend.provider.TaskFormValuesProcessor;
 import org.jbpm.workbench.forms.display.service.KieWorkbenchFormsEntryPoint;
 import org.jbpm.workbench.pr.service.ProcessService;
-import org.kie.workbench.common.forms.dynamic.service.context.generation.dynamic.BackendFormRenderingContextManager;
 
 @Service
 @Dependent
@@ -41,19 +41,19 @@ public class KieWorkbenchFormEntryPointImpl implements KieWorkbenchFormsEntryPoi
 
     private TaskFormValuesProcessor taskRenderingSettingsInterpreter;
 
-    private BackendFormRenderingContextManager contextManager;
+    private FormRenderingContextRegistry contextRegistry;
 
     @Inject
     public KieWorkbenchFormEntryPointImpl( ProcessService processService,
                                            TaskService taskService,
                                            ProcessFormsValuesProcessor processRenderingSettingsInterpreter,
                                            TaskFormValuesProcessor taskRenderingSettingsInterpreter,
-                                           BackendFormRenderingContextManager contextManager ) {
+                                           FormRenderingContextRegistry contextRegistry ) {
         this.processService = processService;
         this.taskService = taskService;
         this.processRenderingSettingsInterpreter = processRenderingSettingsInterpreter;
         this.taskRenderingSettingsInterpreter = taskRenderingSettingsInterpreter;
-        this.contextManager = contextManager;
+        this.contextRegistry = contextRegistry;
     }
 
     @Override
@@ -93,6 +93,6 @@ public class KieWorkbenchFormEntryPointImpl implements KieWorkbenchFormsEntryPoi
 
     @Override
     public void clearContext( long timestamp ) {
-        contextManager.removeContext( timestamp );
+        contextRegistry.remove( timestamp );
     }
 }
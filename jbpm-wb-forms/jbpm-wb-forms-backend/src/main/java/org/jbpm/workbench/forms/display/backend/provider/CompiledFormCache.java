@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.forms.display.backend.provider;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.enterprise.context.ApplicationScoped;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of forms compiled from their source (deserialized form definitions, form templates...), keyed by type of
+ * the compiled form and a SHA-256 digest of the source so the cache does not retain the (possibly large) sources.
+ * A redeployed form has a different source so it never hits stale entries, the old ones are evicted once idle. Compiled forms are shared by all renderings and must not be modified.
+ */
+@ApplicationScoped
+public class CompiledFormCache {
+
+    public static final String CACHE_SIZE_PROPERTY = "org.jbpm.workbench.forms.cache.size";
+    public static final String CACHE_IDLE_PROPERTY = "org.jbpm.workbench.forms.cache.idle";
+
+    private static final Logger logger = LoggerFactory.getLogger( CompiledFormCache.class );
+
+    private final Cache<CompiledFormKey, Object> cache;
+
+    public CompiledFormCache() {
+        this( Long.parseLong( System.getProperty( CACHE_SIZE_PROPERTY, "500" ) ),
+              Long.parseLong( System.getProperty( CACHE_IDLE_PROPERTY, "3600000" ) ) );
+    }
+
+    public CompiledFormCache( long maxSize,
+                              long idleMillis ) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize( maxSize )
+                .expireAfterAccess( idleMillis, TimeUnit.MILLISECONDS )
+                .recordStats()
+                .build();
+        logger.debug( "Compiled form cache created with max size {} and idle time {} ms", maxSize, idleMillis );
+    }
+
+    /**
+     * Returns form of given type compiled from given source, concurrent requests for the same form wait for a single
+     * compilation. Compiler must not return null.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get( String type,
+                      String source,
+                      Function<String, T> compiler ) {
+        try {
+            return (T) cache.get( new CompiledFormKey( type, digest( source ) ), () -> compiler.apply( source ) );
+        } catch ( ExecutionException | UncheckedExecutionException e ) {
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException( e.getCause() );
+        }
+    }
+
+    protected static String digest( String source ) {
+        return Hashing.sha256().hashString( source, StandardCharsets.UTF_8 ).toString();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    protected static class CompiledFormKey {
+
+        private final String type;
+        private final String digest;
+
+        CompiledFormKey( String type,
+                         String digest ) {
+            this.type = type;
+            this.digest = digest;
+        }
+
+        @Override
+        public boolean equals( Object o ) {
+            if ( this == o ) {
+                return true;
+            }
+            if ( o == null || getClass() != o.getClass() ) {
+                return false;
+            }
+            CompiledFormKey that = (CompiledFormKey) o;
+            return Objects.equals( type, that.type ) && Objects.equals( digest, that.digest );
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash( type, digest );
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.forms.display.backend.provider;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import org.kie.workbench.common.forms.dynamic.service.context.generation.dynamic.BackendFormRenderingContextManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of form rendering contexts registered in the {@link BackendFormRenderingContextManager}. Contexts are
+ * otherwise only removed when a process is started or a task is saved, so the ones of abandoned forms are removed
+ * here once idle or once the maximum number of live contexts is exceeded (least recently used first). Number of live
+ * contexts and evictions are exported over JMX and can be rendered in Prometheus text format.
+ */
+@ApplicationScoped
+public class FormRenderingContextRegistry implements FormRenderingContextRegistryMXBean {
+
+    public static final String MAX_SIZE_PROPERTY = "org.jbpm.workbench.forms.context.size";
+    public static final String IDLE_TIME_PROPERTY = "org.jbpm.workbench.forms.context.idle";
+    public static final String OBJECT_NAME = "org.jbpm.workbench.forms:type=FormRenderingContextRegistry";
+
+    private static final Logger logger = LoggerFactory.getLogger( FormRenderingContextRegistry.class );
+
+    @Inject
+    private BackendFormRenderingContextManager contextManager;
+
+    // registration time of tracked contexts
+    private final Cache<Long, Long> contexts;
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public FormRenderingContextRegistry() {
+        this( null,
+              Long.parseLong( System.getProperty( MAX_SIZE_PROPERTY, "1000" ) ),
+              Long.parseLong( System.getProperty( IDLE_TIME_PROPERTY, "1800000" ) ) );
+    }
+
+    public FormRenderingContextRegistry( BackendFormRenderingContextManager contextManager,
+                                         long maxSize,
+                                         long idleMillis ) {
+        this.contextManager = contextManager;
+        this.contexts = CacheBuilder.newBuilder()
+                .maximumSize( maxSize )
+                .expireAfterAccess( idleMillis, TimeUnit.MILLISECONDS )
+                .removalListener( (RemovalListener<Long, Long>) notification -> {
+                    // explicitly removed contexts are removed from the manager by the caller
+                    if ( notification.wasEvicted() ) {
+                        evict( notification.getKey(), notification.getCause().name() );
+                    }
+                } )
+                .build();
+        logger.debug( "Form rendering context registry created with max size {} and idle time {} ms", maxSize, idleMillis );
+    }
+
+    @PostConstruct
+    public void registerMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName( OBJECT_NAME );
+            if ( !mBeanServer.isRegistered( objectName ) ) {
+                mBeanServer.registerMBean( this, objectName );
+            }
+        } catch ( Exception e ) {
+            logger.warn( "Unable to register form rendering context metrics in JMX due to {}", e.getMessage() );
+        }
+    }
+
+    @PreDestroy
+    public void unregisterMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName( OBJECT_NAME );
+            if ( mBeanServer.isRegistered( objectName ) ) {
+                mBeanServer.unregisterMBean( objectName );
+            }
+        } catch ( Exception e ) {
+            logger.debug( "Unable to unregister form rendering context metrics from JMX due to {}", e.getMessage() );
+        }
+    }
+
+    /**
+     * Starts tracking of a context just registered in the context manager, stale contexts are evicted first.
+     */
+    public void register( long timestamp ) {
+        cleanUp();
+        contexts.put( timestamp, System.currentTimeMillis() );
+    }
+
+    /**
+     * Marks context as used so it is not considered idle.
+     */
+    public void touch( long timestamp ) {
+        contexts.getIfPresent( timestamp );
+    }
+
+    public void remove( long timestamp ) {
+        contexts.invalidate( timestamp );
+        contextManager.removeContext( timestamp );
+    }
+
+    /**
+     * Evicts idle contexts.
+     */
+    public void cleanUp() {
+        contexts.cleanUp();
+    }
+
+    @Override
+    public long getLiveContexts() {
+        return contexts.size();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public String getPrometheusMetrics() {
+        StringWriter writer = new StringWriter();
+        try {
+            writePrometheusMetrics( writer );
+        } catch ( IOException e ) {
+            throw new RuntimeException( e );
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes context metrics in Prometheus text exposition format.
+     */
+    public void writePrometheusMetrics( Writer writer ) throws IOException {
+        writer.write( "# HELP form_rendering_contexts Live form rendering contexts.\n" );
+        writer.write( "# TYPE form_rendering_contexts gauge\n" );
+        writer.write( "form_rendering_contexts " + getLiveContexts() + "\n" );
+        writer.write( "# HELP form_rendering_context_evictions_total Form rendering contexts evicted before the form was submitted.\n" );
+        writer.write( "# TYPE form_rendering_context_evictions_total counter\n" );
+        writer.write( "form_rendering_context_evictions_total " + getEvictionCount() + "\n" );
+    }
+
+    protected void evict( Long timestamp,
+                          String cause ) {
+        evictionCount.incrementAndGet();
+        try {
+            contextManager.removeContext( timestamp );
+        } catch ( Exception e ) {
+            logger.warn( "Failed to remove form rendering context {} due to {}", timestamp, e.getMessage() );
+        }
+        logger.debug( "Form rendering context {} evicted due to {}, {} live contexts", timestamp, cause, contexts.size() );
+    }
+}
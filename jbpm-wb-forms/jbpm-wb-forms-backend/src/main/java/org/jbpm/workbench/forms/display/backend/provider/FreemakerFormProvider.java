@@ -16,11 +16,14 @@
 
 package org.jbpm.workbench.forms.display.backend.provider;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.HashMap;
 import java.util.Map;
+import javax.inject.Inject;
 
 import freemarker.ext.beans.BeansWrapper;
 import freemarker.template.Configuration;
@@ -34,6 +37,23 @@ import org.jbpm.workbench.forms.service.providing.TaskRenderingSettings;
 
 public abstract class FreemakerFormProvider implements FormProvider<StaticHTMLFormRenderingSettings> {
 
+    protected static final String TEMPLATE_TYPE = "freemarkerTemplate";
+
+    /**
+     * Configuration shared by all compiled templates, it is not modified after creation so it is safe to be used
+     * by concurrent renderings and keeps the introspection cache of the object wrapper warm. The cache holds classes
+     * of rendered objects, thus it is cleared (see {@link FreemakerIntrospectionCacheCleaner}) when containers
+     * change so their class loaders can be collected.
+     */
+    protected static final Configuration CONFIGURATION = createConfiguration();
+
+    protected CompiledFormCache formCache = new CompiledFormCache();
+
+    @Inject
+    public void setFormCache( CompiledFormCache formCache ) {
+        this.formCache = formCache;
+    }
+
     protected abstract InputStream getProcessTemplateInputStream( ProcessRenderingSettings settings );
 
     protected abstract InputStream getTaskTemplateInputStream( TaskRenderingSettings settings );
@@ -77,26 +97,46 @@ public abstract class FreemakerFormProvider implements FormProvider<StaticHTMLFo
             return null;
         }
         String htmlTemplate = "";
-        StringWriter writer = null;
+        StringWriter writer = new StringWriter();
         InputStreamReader source = null;
         try {
-            Configuration cfg = new Configuration();
-            BeansWrapper defaultInstance = new BeansWrapper();
-            defaultInstance.setSimpleMapWrapper( true );
-            cfg.setObjectWrapper( defaultInstance );
-            cfg.setTemplateUpdateDelay( 0 );
             source = new InputStreamReader( src );
-            Template temp = new Template( name, source, cfg );
-            writer = new StringWriter();
+            Template temp = formCache.get( TEMPLATE_TYPE + "|" + name, IOUtils.toString( source ), content -> compileTemplate( name, content ) );
             temp.process( renderContext, writer );
-            writer.flush();
-            htmlTemplate = writer.getBuffer().toString();
+            htmlTemplate = writer.toString();
         } catch ( Exception e ) {
             throw new RuntimeException( "Failed to process form template", e );
         } finally {
-            IOUtils.closeQuietly( writer );
             IOUtils.closeQuietly( source );
         }
         return new StaticHTMLFormRenderingSettings( htmlTemplate );
     }
+
+    /**
+     * Compiles given template source, compiled templates are cached and shared by all renderings of the same source.
+     */
+    protected Template compileTemplate( String name,
+                                        String source ) {
+        try {
+            return new Template( name, new StringReader( source ), CONFIGURATION );
+        } catch ( IOException e ) {
+            throw new RuntimeException( "Failed to compile form template", e );
+        }
+    }
+
+    /**
+     * Drops classes introspected while rendering forms.
+     */
+    protected static void clearIntrospectionCache() {
+        ( (BeansWrapper) CONFIGURATION.getObjectWrapper() ).clearClassIntrospectionCache();
+    }
+
+    private static Configuration createConfiguration() {
+        Configuration cfg = new Configuration();
+        BeansWrapper defaultInstance = new BeansWrapper();
+        defaultInstance.setSimpleMapWrapper( true );
+        cfg.setObjectWrapper( defaultInstance );
+        cfg.setTemplateUpdateDelay( 0 );
+        return cfg;
+    }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.forms.display.backend.provider;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+
+import org.kie.server.controller.api.model.events.ServerTemplateDeleted;
+import org.kie.server.controller.api.model.events.ServerTemplateUpdated;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Clears the introspection cache of the FreeMarker configuration shared by form templates whenever containers of
+ * a server template might have been deployed, undeployed or upgraded, so classes of the removed containers (and
+ * their class loaders) are not retained. Classes still in use are introspected again on next rendering.
+ */
+@ApplicationScoped
+public class FreemakerIntrospectionCacheCleaner {
+
+    private static final Logger logger = LoggerFactory.getLogger( FreemakerIntrospectionCacheCleaner.class );
+
+    public void onServerTemplateUpdated( @Observes ServerTemplateUpdated serverTemplateUpdated ) {
+        clear( serverTemplateUpdated.getServerTemplate().getId() );
+    }
+
+    public void onServerTemplateDeleted( @Observes ServerTemplateDeleted serverTemplateDeleted ) {
+        clear( serverTemplateDeleted.getServerTemplateId() );
+    }
+
+    protected void clear( String serverTemplateId ) {
+        FreemakerFormProvider.clearIntrospectionCache();
+        logger.debug( "Form templates introspection cache cleared after change of server template {}", serverTemplateId );
+    }
+}
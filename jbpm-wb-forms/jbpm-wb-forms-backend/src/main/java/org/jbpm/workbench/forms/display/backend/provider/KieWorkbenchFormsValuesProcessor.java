@@ -42,18 +42,28 @@ public abstract class KieWorkbenchFormsValuesProcessor<T extends RenderingSettin
 
     public static String SETTINGS_ATRA_NAME = "_rendering_settings";
 
+    protected static final String FORM_DEFINITIONS_TYPE = "formDefinitions";
+
     protected FormDefinitionSerializer formSerializer;
 
     protected BackendFormRenderingContextManager contextManager;
 
     protected DynamicBPMNFormGenerator dynamicBPMNFormGenerator;
 
+    protected CompiledFormCache formCache;
+
+    protected FormRenderingContextRegistry contextRegistry;
+
     public KieWorkbenchFormsValuesProcessor( FormDefinitionSerializer formSerializer,
                                              BackendFormRenderingContextManager contextManager,
-                                             DynamicBPMNFormGenerator dynamicBPMNFormGenerator ) {
+                                             DynamicBPMNFormGenerator dynamicBPMNFormGenerator,
+                                             CompiledFormCache formCache,
+                                             FormRenderingContextRegistry contextRegistry ) {
         this.formSerializer = formSerializer;
         this.contextManager = contextManager;
         this.dynamicBPMNFormGenerator = dynamicBPMNFormGenerator;
+        this.formCache = formCache;
+        this.contextRegistry = contextRegistry;
     }
 
     public KieWorkbenchFormRenderingSettings generateRenderingContext( T settings ) {
@@ -79,6 +89,8 @@ public abstract class KieWorkbenchFormsValuesProcessor<T extends RenderingSettin
                                                                                       forms.getNestedForms().toArray(
                                                                                               new FormDefinition[forms.getNestedForms().size()] ) );
 
+                contextRegistry.register( context.getTimestamp() );
+
                 prepareContext( settings, context );
 
                 context.getAttributes().put( SETTINGS_ATRA_NAME, settings );
@@ -93,17 +105,27 @@ public abstract class KieWorkbenchFormsValuesProcessor<T extends RenderingSettin
         return null;
     }
 
+    /**
+     * Generates the values to be submitted to the process or task from the form values of given rendering context.
+     * Fails if the context is no longer available (e.g. evicted once idle) rather than submitting no data, the form
+     * has to be reopened in that case.
+     */
     public Map<String, Object> generateRuntimeValuesMap( long timestamp, Map<String, Object> formValues ) {
 
         BackendFormRenderingContext context = contextManager.getContext( timestamp );
 
-        if ( context != null ) {
-            FormDefinition form = context.getRenderingContext().getRootForm();
+        if ( context == null ) {
+            getLogger().warn( "Form rendering context {} is no longer available", timestamp );
+            throw new IllegalStateException( "The form is no longer available, please close it and open it again" );
+        }
 
-            if ( isValid( form ) ) {
-                Map<String, Object> formData = contextManager.updateContextData( timestamp, formValues ).getFormData();
-                return getOutputValues( formData, form, (T) context.getAttributes().get( SETTINGS_ATRA_NAME ) );
-            }
+        contextRegistry.touch( timestamp );
+
+        FormDefinition form = context.getRenderingContext().getRootForm();
+
+        if ( isValid( form ) ) {
+            Map<String, Object> formData = contextManager.updateContextData( timestamp, formValues ).getFormData();
+            return getOutputValues( formData, form, (T) context.getAttributes().get( SETTINGS_ATRA_NAME ) );
         }
         return Collections.emptyMap();
     }
@@ -111,9 +133,27 @@ public abstract class KieWorkbenchFormsValuesProcessor<T extends RenderingSettin
     protected ContextForms parseForms( T settings ) {
         ContextForms result = new ContextForms();
 
+        List<FormDefinition> forms = formCache.get( FORM_DEFINITIONS_TYPE, settings.getFormContent(), this::deserializeForms );
+        forms.forEach( formDefinition -> {
+            if ( formDefinition.getName().startsWith( getFormName( settings ) + BPMNVariableUtils.TASK_FORM_SUFFIX ) ) {
+                result.setRootForm( formDefinition );
+            } else {
+                result.getNestedForms().add( formDefinition );
+            }
+        } );
+        return result;
+    }
+
+    /**
+     * Deserializes all form definitions of given form content, the result is cached and shared by all renderings of
+     * the same content.
+     */
+    protected List<FormDefinition> deserializeForms( String formContent ) {
+        List<FormDefinition> result = new ArrayList<>();
+
         JsonParser parser = new JsonParser();
         Gson gson = new Gson();
-        JsonElement element = parser.parse( settings.getFormContent() );
+        JsonElement element = parser.parse( formContent );
 
         JsonArray forms = element.getAsJsonArray();
         forms.forEach( jsonForm -> {
@@ -122,15 +162,11 @@ public abstract class KieWorkbenchFormsValuesProcessor<T extends RenderingSettin
             if ( !StringUtils.isEmpty( content ) ) {
                 FormDefinition formDefinition = formSerializer.deserialize( content );
                 if ( formDefinition != null ) {
-                    if ( formDefinition.getName().startsWith( getFormName( settings ) + BPMNVariableUtils.TASK_FORM_SUFFIX ) ) {
-                        result.setRootForm( formDefinition );
-                    } else {
-                        result.getNestedForms().add( formDefinition );
-                    }
+                    result.add( formDefinition );
                 }
             }
         } );
-        return result;
+        return Collections.unmodifiableList( result );
     }
 
     protected ContextForms generateDefaultForms( T settings ) {
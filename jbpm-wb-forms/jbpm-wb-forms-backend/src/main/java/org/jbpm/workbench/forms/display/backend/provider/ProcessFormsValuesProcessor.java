@@ -42,8 +42,10 @@ public class ProcessFormsValuesProcessor extends KieWorkbenchFormsValuesProcesso
     @Inject
     public ProcessFormsValuesProcessor( FormDefinitionSerializer formSerializer,
                                         BackendFormRenderingContextManager contextManager,
-                                        DynamicBPMNFormGenerator dynamicBPMNFormGenerator ) {
-        super( formSerializer, contextManager, dynamicBPMNFormGenerator );
+                                        DynamicBPMNFormGenerator dynamicBPMNFormGenerator,
+                                        CompiledFormCache formCache,
+                                        FormRenderingContextRegistry contextRegistry ) {
+        super( formSerializer, contextManager, dynamicBPMNFormGenerator, formCache, contextRegistry );
     }
 
     @Override
@@ -47,8 +47,10 @@ public class TaskFormValuesProcessor extends KieWorkbenchFormsValuesProcessor<Ta
     @Inject
     public TaskFormValuesProcessor( FormDefinitionSerializer formSerializer,
                                     BackendFormRenderingContextManager contextManager,
-                                    DynamicBPMNFormGenerator dynamicBPMNFormGenerator ) {
-        super( formSerializer, contextManager, dynamicBPMNFormGenerator );
+                                    DynamicBPMNFormGenerator dynamicBPMNFormGenerator,
+                                    CompiledFormCache formCache,
+                                    FormRenderingContextRegistry contextRegistry ) {
+        super( formSerializer, contextManager, dynamicBPMNFormGenerator, formCache, contextRegistry );
     }
 
     @Override
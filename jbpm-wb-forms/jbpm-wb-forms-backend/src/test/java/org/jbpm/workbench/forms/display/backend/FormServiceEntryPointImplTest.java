@@ -18,14 +18,18 @@ package org.jbpm.workbench.forms.display.backend;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import javax.enterprise.inject.Instance;
 
 import org.apache.commons.io.IOUtils;
+import org.jbpm.document.Document;
 import org.jbpm.workbench.forms.display.FormRenderingSettings;
 import org.jbpm.workbench.forms.display.backend.provider.ClasspathFormProvider;
 import org.jbpm.workbench.forms.display.backend.provider.InMemoryFormProvider;
 import org.jbpm.workbench.forms.display.impl.StaticHTMLFormRenderingSettings;
 import org.jbpm.workbench.forms.service.providing.FormProvider;
+import org.jbpm.workbench.ks.integration.KieServerDefinitionCache;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -72,13 +76,15 @@ public class FormServiceEntryPointImplTest {
 
     protected String formContent;
 
+    protected TaskInstance taskInstance;
+
     @Before
     public void init() {
         Instance<FormProvider<? extends FormRenderingSettings>> instance = mock( Instance.class );
 
         when( instance.iterator() ).then( result -> Arrays.asList( inMemoryFormProvider ).iterator() );
 
-        serviceEntryPoint = new FormServiceEntryPointImpl( instance, classpathFormProvider ) {
+        serviceEntryPoint = new FormServiceEntryPointImpl( instance, classpathFormProvider, new KieServerDefinitionCache(), new FormPreparationExecutor( 2, null ) ) {
 
             @Override
             protected <T> T getClient( String serverTemplateId, String containerId, Class<T> clientType ) {
@@ -117,7 +123,7 @@ public class FormServiceEntryPointImplTest {
         when( processServicesClient.getUserTaskInputDefinitions( anyString(), anyString(), anyString() ) ).thenReturn(  new TaskInputsDefinition() );
         when( processServicesClient.getUserTaskOutputDefinitions( anyString(), anyString(), anyString() ) ).thenReturn(  new TaskOutputsDefinition() );
 
-        TaskInstance taskInstance = new TaskInstance();
+        taskInstance = new TaskInstance();
         taskInstance.setId( new Long(12) );
         taskInstance.setName( "TaskName" );
         taskInstance.setFormName( "TaskFormName" );
@@ -149,6 +155,24 @@ public class FormServiceEntryPointImplTest {
         assertEquals( "FormContent must be equal", formContent, htmlSettings.getFormContent() );
     }
 
+    @Test
+    public void testRenderProcessFormCached() {
+
+        when( uiServicesClient.getProcessRawForm( anyString(),
+                                                  anyString() ) ).thenReturn( formContent );
+
+        FormRenderingSettings settings = serviceEntryPoint.getFormDisplayProcess( "template",
+                                                                                  "domain",
+                                                                                  "testProcess" );
+        FormRenderingSettings cachedSettings = serviceEntryPoint.getFormDisplayProcess( "template",
+                                                                                        "domain",
+                                                                                        "testProcess" );
+
+        verify( processServicesClient ).getProcessDefinition( anyString(), anyString() );
+        verify( uiServicesClient ).getProcessRawForm( anyString(), anyString() );
+        assertEquals( ( (StaticHTMLFormRenderingSettings) settings ).getFormContent(), ( (StaticHTMLFormRenderingSettings) cachedSettings ).getFormContent() );
+    }
+
     @Test
     public void testRenderProcessDefaultForm() {
 
@@ -250,6 +274,34 @@ public class FormServiceEntryPointImplTest {
         assertNotEquals( "FormContent must be equal", formContent, htmlSettings.getFormContent() );
     }
 
+    @Test
+    public void testRenderTaskFormResolvesDocumentLinksOnce() {
+        Document document = mock( Document.class );
+        when( document.getIdentifier() ).thenReturn( "documentId" );
+        when( documentServicesClient.getDocumentLink( "documentId" ) ).thenReturn( "documentLink" );
+
+        Map<String, Object> inputs = new HashMap<>();
+        inputs.put( "document", document );
+        inputs.put( "documentCopy", document );
+        Map<String, Object> outputs = new HashMap<>();
+        outputs.put( "document", document );
+        taskInstance.setInputData( inputs );
+        taskInstance.setOutputData( outputs );
+
+        when( uiServicesClient.getTaskRawForm( anyString(), anyLong() ) ).thenReturn( formContent );
+
+        FormRenderingSettings settings = serviceEntryPoint.getFormDisplayTask( "template",
+                                                                               "domain",
+                                                                               12 );
+
+        verify( documentServicesClient ).getDocumentLink( "documentId" );
+        verify( document, times( 3 ) ).setLink( "documentLink" );
+        verify( processServicesClient ).getUserTaskInputDefinitions( anyString(), anyString(), anyString() );
+        verify( processServicesClient ).getUserTaskOutputDefinitions( anyString(), anyString(), anyString() );
+
+        assertEquals( "FormContent must be equal", formContent, ( (StaticHTMLFormRenderingSettings) settings ).getFormContent() );
+    }
+
     protected String getFormContent() {
         try {
             return IOUtils.toString( this.getClass().getResourceAsStream(
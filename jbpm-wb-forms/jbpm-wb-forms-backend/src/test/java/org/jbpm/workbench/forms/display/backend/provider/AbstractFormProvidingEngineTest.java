@@ -146,6 +146,15 @@ public abstract class AbstractFormProvidingEngineTest<SETTINGS extends Rendering
 
     }
 
+    @Test( expected = IllegalStateException.class )
+    public void testGenerateRuntimeValuesMapOfMissingContext() {
+        KieWorkbenchFormRenderingSettings settings = generateRenderingSettings();
+
+        contextManager.removeContext( settings.getTimestamp() );
+
+        processor.generateRuntimeValuesMap( settings.getTimestamp(), getFormValues() );
+    }
+
     protected String getFormContent() {
 
         try {
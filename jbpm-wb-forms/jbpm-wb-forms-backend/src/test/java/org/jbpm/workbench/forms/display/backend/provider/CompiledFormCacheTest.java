@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.forms.display.backend.provider;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CompiledFormCacheTest {
+
+    @Test
+    public void testCompiledOncePerSource() {
+        CompiledFormCache cache = new CompiledFormCache( 10, 60000 );
+        AtomicInteger compilations = new AtomicInteger();
+
+        Object compiled = cache.get( "type", "source", source -> {
+            compilations.incrementAndGet();
+            return new Object();
+        } );
+        assertSame( compiled, cache.get( "type", "source", source -> new Object() ) );
+        assertEquals( 1, compilations.get() );
+
+        // redeployed form has different source
+        assertNotSame( compiled, cache.get( "type", "changed source", source -> new Object() ) );
+        assertNotSame( compiled, cache.get( "otherType", "source", source -> new Object() ) );
+        assertEquals( 3, cache.size() );
+        assertEquals( 1, cache.getHitCount() );
+    }
+
+    @Test
+    public void testCompilationFailureNotCached() {
+        CompiledFormCache cache = new CompiledFormCache( 10, 60000 );
+
+        try {
+            cache.get( "type", "source", source -> {
+                throw new IllegalArgumentException( "Invalid form" );
+            } );
+            fail( "Compilation failure should be propagated" );
+        } catch ( IllegalArgumentException e ) {
+            assertEquals( "Invalid form", e.getMessage() );
+        }
+        assertEquals( 0, cache.size() );
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.forms.display.backend.provider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kie.workbench.common.forms.dynamic.service.context.generation.dynamic.BackendFormRenderingContextManager;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith( MockitoJUnitRunner.class )
+public class FormRenderingContextRegistryTest {
+
+    @Mock
+    private BackendFormRenderingContextManager contextManager;
+
+    private FormRenderingContextRegistry registry;
+
+    @Before
+    public void init() {
+        registry = new FormRenderingContextRegistry( contextManager, 2, 60000 );
+    }
+
+    @Test
+    public void testLeastRecentlyUsedContextEvicted() {
+        registry.register( 1 );
+        registry.register( 2 );
+        registry.touch( 1 );
+        registry.register( 3 );
+
+        verify( contextManager ).removeContext( 2 );
+        verify( contextManager, never() ).removeContext( 1 );
+        assertEquals( 2, registry.getLiveContexts() );
+        assertEquals( 1, registry.getEvictionCount() );
+    }
+
+    @Test
+    public void testRemovedContextNotCountedAsEvicted() {
+        registry.register( 1 );
+
+        registry.remove( 1 );
+
+        verify( contextManager ).removeContext( 1 );
+        assertEquals( 0, registry.getLiveContexts() );
+        assertEquals( 0, registry.getEvictionCount() );
+    }
+
+    @Test
+    public void testContextCountsExportedAsMetrics() {
+        registry.register( 1 );
+        registry.register( 2 );
+        registry.register( 3 );
+
+        String metrics = registry.getPrometheusMetrics();
+        assertTrue( metrics.contains( "# TYPE form_rendering_contexts gauge\n" ) );
+        assertTrue( metrics.contains( "form_rendering_contexts 2\n" ) );
+        assertTrue( metrics.contains( "form_rendering_context_evictions_total 1\n" ) );
+    }
+
+    @Test
+    public void testIdleContextEvicted() throws Exception {
+        registry = new FormRenderingContextRegistry( contextManager, 10, 1 );
+        registry.register( 1 );
+
+        Thread.sleep( 10 );
+        registry.cleanUp();
+
+        verify( contextManager ).removeContext( 1 );
+        assertEquals( 0, registry.getLiveContexts() );
+        assertEquals( 1, registry.getEvictionCount() );
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.forms.display.backend.provider;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import freemarker.template.Template;
+import org.jbpm.workbench.forms.service.providing.ProcessRenderingSettings;
+import org.jbpm.workbench.forms.service.providing.TaskRenderingSettings;
+import org.junit.Test;
+import org.kie.server.controller.api.model.events.ServerTemplateUpdated;
+import org.kie.server.controller.api.model.spec.ServerTemplate;
+
+import static org.junit.Assert.*;
+
+public class FreemakerFormProviderTest {
+
+    private static final String TEMPLATE = "<div>${name}</div>";
+
+    private FreemakerFormProvider provider = new FreemakerFormProvider() {
+        @Override
+        protected InputStream getProcessTemplateInputStream( ProcessRenderingSettings settings ) {
+            return null;
+        }
+
+        @Override
+        protected InputStream getTaskTemplateInputStream( TaskRenderingSettings settings ) {
+            return null;
+        }
+
+        @Override
+        public int getPriority() {
+            return 0;
+        }
+    };
+
+    @Test
+    public void testTemplateCompiledOnceAndShared() {
+        CompiledFormCache formCache = new CompiledFormCache( 10, 60000 );
+        provider.setFormCache( formCache );
+
+        assertEquals( "<div>first</div>", render( "first" ) );
+        assertEquals( "<div>second</div>", render( "second" ) );
+
+        assertEquals( 1, formCache.size() );
+        assertEquals( 1, formCache.getHitCount() );
+    }
+
+    @Test
+    public void testTemplatesUseSharedConfiguration() {
+        Template first = provider.compileTemplate( "first", TEMPLATE );
+        Template second = provider.compileTemplate( "second", TEMPLATE );
+
+        assertSame( FreemakerFormProvider.CONFIGURATION, first.getConfiguration() );
+        assertSame( first.getConfiguration(), second.getConfiguration() );
+    }
+
+    @Test
+    public void testLargeRenderingDoesNotLeakIntoNextOne() {
+        StringBuilder large = new StringBuilder();
+        for ( int i = 0; i < 100000; i++ ) {
+            large.append( 'x' );
+        }
+        assertEquals( "<div>" + large + "</div>", render( large.toString() ) );
+        assertEquals( "<div>small</div>", render( "small" ) );
+    }
+
+    @Test
+    public void testRenderingAfterIntrospectionCacheCleared() {
+        ServerTemplate serverTemplate = new ServerTemplate();
+        serverTemplate.setId( "template" );
+        assertEquals( "<div>first</div>", render( "first" ) );
+
+        new FreemakerIntrospectionCacheCleaner().onServerTemplateUpdated( new ServerTemplateUpdated( serverTemplate ) );
+
+        assertEquals( "<div>second</div>", render( "second" ) );
+    }
+
+    protected String render( String name ) {
+        InputStream source = new ByteArrayInputStream( TEMPLATE.getBytes( StandardCharsets.UTF_8 ) );
+        return provider.renderForm( "form", source, Collections.singletonMap( "name", name ) ).getFormContent();
+    }
+}
@@ -27,6 +27,8 @@ import org.jbpm.workbench.forms.service.providing.model.ProcessDefinition;
 import org.jbpm.workbench.forms.display.api.KieWorkbenchFormRenderingSettings;
 import org.jbpm.workbench.forms.display.backend.provider.AbstractFormProvidingEngineTest;
 import org.jbpm.workbench.forms.display.backend.provider.AbstractKieWorkbenchFormsProvider;
+import org.jbpm.workbench.forms.display.backend.provider.CompiledFormCache;
+import org.jbpm.workbench.forms.display.backend.provider.FormRenderingContextRegistry;
 import org.jbpm.workbench.forms.display.backend.provider.ProcessFormsValuesProcessor;
 import org.jbpm.workbench.forms.display.backend.provider.model.Invoice;
 import org.jbpm.workbench.forms.display.backend.provider.model.InvoiceLine;
@@ -72,7 +74,7 @@ public abstract class AbstractStartProcessFormTest<PROVIDER extends AbstractKieW
     protected ProcessFormsValuesProcessor getProcessorInstance( FormDefinitionSerializer formSerializer,
                                                                 BackendFormRenderingContextManager contextManager,
                                                                 DynamicBPMNFormGenerator dynamicBPMNFormGenerator ) {
-        return new ProcessFormsValuesProcessor( formSerializer, contextManager, dynamicBPMNFormGenerator );
+        return new ProcessFormsValuesProcessor( formSerializer, contextManager, dynamicBPMNFormGenerator, new CompiledFormCache(), new FormRenderingContextRegistry( contextManager, 1000, 1800000 ) );
     }
 
     @Override
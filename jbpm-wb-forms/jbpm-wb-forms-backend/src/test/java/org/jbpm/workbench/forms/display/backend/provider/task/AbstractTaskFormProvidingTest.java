@@ -27,6 +27,8 @@ import org.jbpm.workbench.forms.service.providing.model.TaskDefinition;
 import org.jbpm.workbench.forms.display.api.KieWorkbenchFormRenderingSettings;
 import org.jbpm.workbench.forms.display.backend.provider.AbstractFormProvidingEngineTest;
 import org.jbpm.workbench.forms.display.backend.provider.AbstractKieWorkbenchFormsProvider;
+import org.jbpm.workbench.forms.display.backend.provider.CompiledFormCache;
+import org.jbpm.workbench.forms.display.backend.provider.FormRenderingContextRegistry;
 import org.jbpm.workbench.forms.display.backend.provider.TaskFormValuesProcessor;
 import org.jbpm.workbench.forms.display.backend.provider.model.Client;
 import org.jbpm.workbench.forms.display.backend.provider.model.Invoice;
@@ -82,7 +84,7 @@ public abstract class AbstractTaskFormProvidingTest<PROVIDER extends AbstractKie
     protected TaskFormValuesProcessor getProcessorInstance( FormDefinitionSerializer formSerializer,
                                                             BackendFormRenderingContextManager contextManager,
                                                             DynamicBPMNFormGenerator dynamicBPMNFormGenerator ) {
-        return new TaskFormValuesProcessor( formSerializer, contextManager, dynamicBPMNFormGenerator );
+        return new TaskFormValuesProcessor( formSerializer, contextManager, dynamicBPMNFormGenerator, new CompiledFormCache(), new FormRenderingContextRegistry( contextManager, 1000, 1800000 ) );
     }
 
     @Override
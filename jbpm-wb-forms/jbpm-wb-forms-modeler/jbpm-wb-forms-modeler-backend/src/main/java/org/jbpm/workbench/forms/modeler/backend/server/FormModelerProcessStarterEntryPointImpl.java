@@ -20,17 +20,26 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import org.jboss.errai.bus.server.annotations.Service;
+import org.jbpm.workbench.forms.modeler.backend.server.impl.FormModelerContextRegistry;
 import org.jbpm.workbench.forms.modeler.service.FormModelerProcessStarterEntryPoint;
 import org.jbpm.workbench.ht.service.TaskService;
 import org.jbpm.workbench.pr.service.ProcessService;
+import org.jbpm.formModeler.api.client.FormRenderContext;
 import org.jbpm.formModeler.api.client.FormRenderContextManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 @Service
 @ApplicationScoped
 public class FormModelerProcessStarterEntryPointImpl implements FormModelerProcessStarterEntryPoint {
+    private static final Logger log = LoggerFactory.getLogger(FormModelerProcessStarterEntryPointImpl.class);
+
     @Inject
     private FormRenderContextManager formRenderContextManager;
 
+    @Inject
+    private FormModelerContextRegistry contextRegistry;
+
     @Inject
     private ProcessService processService;
 
@@ -39,8 +48,8 @@ public class FormModelerProcessStarterEntryPointImpl implements FormModelerProce
 
     @Override
     public Long startProcessFromRenderContext(String ctxUID, String serverTemplateId, String domainId, String processId, String correlationKey, Long parentProcessInstanceId) {
-        Map<String, Object> params = formRenderContextManager.getFormRenderContext(ctxUID).getOutputData();
-        formRenderContextManager.removeContext(ctxUID);
+        Map<String, Object> params = getOutputData(ctxUID);
+        removeContext(ctxUID);
 
         return processService.startProcess(serverTemplateId, domainId, processId, correlationKey, params);
 
@@ -48,8 +57,8 @@ public class FormModelerProcessStarterEntryPointImpl implements FormModelerProce
 
     @Override
     public Long saveTaskStateFromRenderContext(String ctxUID, String serverTemplateId, String containerId, Long taskId, boolean clearStatus) {
-        Map<String, Object> params = formRenderContextManager.getFormRenderContext(ctxUID).getOutputData();
-        if (clearStatus) formRenderContextManager.removeContext(ctxUID);
+        Map<String, Object> params = getOutputData(ctxUID);
+        if (clearStatus) removeContext(ctxUID);
         taskService.saveTaskContent(serverTemplateId, containerId, taskId, params);
 
         return -1l;
@@ -62,13 +71,31 @@ public class FormModelerProcessStarterEntryPointImpl implements FormModelerProce
 
     @Override
     public void completeTaskFromContext(String ctxUID, String serverTemplateId, String containerId, Long taskId) {
-        Map<String, Object> params = formRenderContextManager.getFormRenderContext(ctxUID).getOutputData();
-        formRenderContextManager.removeContext(ctxUID);
+        Map<String, Object> params = getOutputData(ctxUID);
+        removeContext(ctxUID);
         taskService.completeTask(serverTemplateId, containerId, taskId, params);
     }
 
     @Override
     public void clearContext(String ctxUID) {
-        formRenderContextManager.removeContext(ctxUID);
+        removeContext(ctxUID);
+    }
+
+    /**
+     * Output data of given render context. Fails if the context is no longer available (e.g. evicted once idle)
+     * rather than submitting no data, the form has to be reopened in that case.
+     */
+    protected Map<String, Object> getOutputData(String ctxUID) {
+        FormRenderContext context = formRenderContextManager.getFormRenderContext(ctxUID);
+        if (context == null) {
+            log.warn("Form render context {} is no longer available", ctxUID);
+            throw new IllegalStateException("The form is no longer available, please close it and open it again");
+        }
+        contextRegistry.touch(ctxUID);
+        return context.getOutputData();
+    }
+
+    protected void removeContext(String ctxUID) {
+        contextRegistry.remove(ctxUID);
     }
 }
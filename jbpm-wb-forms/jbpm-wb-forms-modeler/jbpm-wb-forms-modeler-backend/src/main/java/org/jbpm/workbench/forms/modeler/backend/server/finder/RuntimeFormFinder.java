@@ -16,14 +16,11 @@
 
 package org.jbpm.workbench.forms.modeler.backend.server.finder;
 
-import java.util.Iterator;
-import java.util.Map;
 import javax.inject.Inject;
 
 import org.jbpm.formModeler.api.client.FormRenderContext;
 import org.jbpm.formModeler.api.client.FormRenderContextManager;
 import org.jbpm.formModeler.api.model.Form;
-import org.jbpm.formModeler.core.config.FormSerializationManager;
 import org.jbpm.formModeler.core.rendering.FormFinder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,7 +32,7 @@ public class  RuntimeFormFinder implements FormFinder {
     private FormRenderContextManager formRenderContextManager;
 
     @Inject
-    private FormSerializationManager formSerializationManager;
+    private RuntimeFormIndex formIndex;
 
     @Override
     public Form getForm( String ctxUID ) {
@@ -50,17 +47,7 @@ public class  RuntimeFormFinder implements FormFinder {
 
         if ( renderContext != null ) {
             try {
-                Object form = renderContext.getContextForms().get( formPath );
-
-                if ( form != null ) {
-                    if ( form instanceof Form ) {
-                        return (Form) form;
-                    } else if ( form instanceof String ) {
-                        Form result = formSerializationManager.loadFormFromXML( (String) form );
-                        renderContext.getContextForms().put( formPath, result );
-                        return result;
-                    }
-                }
+                return formIndex.getFormByPath( renderContext, formPath );
             } catch ( Exception e ) {
                 log.warn( "Error getting form {} from context {}: {}", formPath, ctxUID, e );
             }
@@ -77,23 +64,7 @@ public class  RuntimeFormFinder implements FormFinder {
                     return renderContext.getForm();
                 }
 
-                Map forms = renderContext.getContextForms();
-
-                String header = formSerializationManager.generateHeaderFormFormId( formId );
-                for ( Iterator it = forms.keySet().iterator(); it.hasNext(); ) {
-                    String key = ( String ) it.next();
-                    Object form = forms.get( key );
-                    if ( form instanceof Form ) {
-                        if ( ( ( Form ) form ).getId().equals( formId ) ) {
-                            return ( Form ) form;
-                        }
-                    } else if ( form instanceof String && form.toString().trim().startsWith( header ) ) {
-                        Form result = formSerializationManager.loadFormFromXML( ( String ) form );
-                        renderContext.getContextForms().put( key, result );
-                        return result;
-                    }
-
-                }
+                return formIndex.getFormById( renderContext, formId );
             } catch ( Exception e ) {
                 log.warn( "Error getting form {} from context {}: {}", formId, ctxUID, e );
             }
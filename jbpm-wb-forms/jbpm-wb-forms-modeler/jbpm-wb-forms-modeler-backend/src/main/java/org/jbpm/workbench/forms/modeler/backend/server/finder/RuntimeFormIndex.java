@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.forms.modeler.backend.server.finder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.jbpm.formModeler.api.client.FormRenderContext;
+import org.jbpm.formModeler.api.model.Form;
+import org.jbpm.formModeler.core.config.FormSerializationManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the forms available in form render contexts. Every context gets an id to form path index built when the
+ * context is created, from the serialized form headers only, so nested forms are deserialized on their first access.
+ * Deserialized forms (rendered forms as well as their subforms) are shared by all contexts rendering the same form
+ * source (keyed by its SHA-256 digest), so forms opened again for the same deployment are not parsed again. Shared
+ * forms must not be modified.
+ */
+@ApplicationScoped
+public class RuntimeFormIndex {
+
+    public static final String CACHE_SIZE_PROPERTY = "org.jbpm.workbench.forms.modeler.cache.size";
+    public static final String CACHE_IDLE_PROPERTY = "org.jbpm.workbench.forms.modeler.cache.idle";
+
+    // form id used to find out where the id is placed in the serialized form header
+    private static final long HEADER_PROBE_ID = 987654321L;
+
+    private Logger log = LoggerFactory.getLogger( RuntimeFormIndex.class );
+
+    private FormSerializationManager formSerializationManager;
+
+    // weak keys compare contexts by identity and drop the index once the context is gone
+    private final Cache<FormRenderContext, Map<Long, String>> contextIndexes = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    private final Cache<String, Form> forms;
+
+    private String headerPrefix;
+
+    private String headerSuffix;
+
+    @Inject
+    public RuntimeFormIndex( FormSerializationManager formSerializationManager ) {
+        this( formSerializationManager,
+              Long.parseLong( System.getProperty( CACHE_SIZE_PROPERTY, "500" ) ),
+              Long.parseLong( System.getProperty( CACHE_IDLE_PROPERTY, "3600000" ) ) );
+    }
+
+    public RuntimeFormIndex( FormSerializationManager formSerializationManager,
+                             long maxSize,
+                             long idleMillis ) {
+        this.formSerializationManager = formSerializationManager;
+        this.forms = CacheBuilder.newBuilder()
+                .maximumSize( maxSize )
+                .expireAfterAccess( idleMillis, TimeUnit.MILLISECONDS )
+                .build();
+
+        String header = formSerializationManager.generateHeaderFormFormId( HEADER_PROBE_ID );
+        int idIndex = header == null ? -1 : header.indexOf( String.valueOf( HEADER_PROBE_ID ) );
+        if ( idIndex >= 0 ) {
+            headerPrefix = header.substring( 0, idIndex );
+            headerSuffix = header.substring( idIndex + String.valueOf( HEADER_PROBE_ID ).length() );
+        } else {
+            log.debug( "Unable to locate form id in serialized form header, forms will be looked up by header" );
+        }
+    }
+
+    /**
+     * Builds the id index of forms of given context, not deserializing any of them.
+     */
+    public Map<Long, String> index( FormRenderContext renderContext ) {
+        Map<Long, String> index = new ConcurrentHashMap<Long, String>();
+        Map contextForms = renderContext.getContextForms();
+        if ( contextForms != null ) {
+            for ( Object entry : contextForms.entrySet() ) {
+                Map.Entry formEntry = (Map.Entry) entry;
+                Long formId = getFormId( formEntry.getValue() );
+                if ( formId != null ) {
+                    index.put( formId, (String) formEntry.getKey() );
+                }
+            }
+        }
+        contextIndexes.put( renderContext, index );
+        return index;
+    }
+
+    public Form getFormById( FormRenderContext renderContext, long formId ) throws Exception {
+        Map<Long, String> index = contextIndexes.getIfPresent( renderContext );
+        if ( index == null ) {
+            index = index( renderContext );
+        }
+
+        String formPath = index.get( formId );
+        if ( formPath != null ) {
+            Form form = getFormByPath( renderContext, formPath );
+            if ( form != null && form.getId().equals( formId ) ) {
+                return form;
+            }
+        }
+
+        // forms added to the context after it was indexed
+        String header = formSerializationManager.generateHeaderFormFormId( formId );
+        Map contextForms = renderContext.getContextForms();
+        for ( Object key : contextForms.keySet().toArray() ) {
+            Object form = contextForms.get( key );
+            if ( ( form instanceof Form && ( (Form) form ).getId().equals( formId ) )
+                    || ( form instanceof String && form.toString().trim().startsWith( header ) ) ) {
+                index.put( formId, (String) key );
+                return getFormByPath( renderContext, (String) key );
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns form of given path deserializing (and keeping in the context) the form on its first access.
+     */
+    public Form getFormByPath( FormRenderContext renderContext, String formPath ) throws Exception {
+        Object form = renderContext.getContextForms().get( formPath );
+        if ( form instanceof Form ) {
+            return (Form) form;
+        } else if ( form instanceof String ) {
+            Form result = loadForm( (String) form );
+            renderContext.getContextForms().put( formPath, result );
+            return result;
+        }
+        return null;
+    }
+
+    /**
+     * Returns form deserialized from given source, a form already deserialized from the same source is reused.
+     */
+    public Form loadForm( String xml ) throws Exception {
+        try {
+            String digest = Hashing.sha256().hashString( xml, StandardCharsets.UTF_8 ).toString();
+            return forms.get( digest, () -> formSerializationManager.loadFormFromXML( xml ) );
+        } catch ( ExecutionException | UncheckedExecutionException e ) {
+            if ( e.getCause() instanceof Exception ) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    protected Long getFormId( Object form ) {
+        if ( form instanceof Form ) {
+            return ( (Form) form ).getId();
+        }
+        if ( !( form instanceof String ) || headerPrefix == null ) {
+            return null;
+        }
+        String xml = ( (String) form ).trim();
+        if ( !xml.startsWith( headerPrefix ) ) {
+            return null;
+        }
+        int end = headerPrefix.length();
+        while ( end < xml.length() && ( Character.isDigit( xml.charAt( end ) ) || ( end == headerPrefix.length() && xml.charAt( end ) == '-' ) ) ) {
+            end++;
+        }
+        if ( end == headerPrefix.length() || !xml.startsWith( headerSuffix, end ) ) {
+            return null;
+        }
+        try {
+            return Long.valueOf( xml.substring( headerPrefix.length(), end ) );
+        } catch ( NumberFormatException e ) {
+            return null;
+        }
+    }
+}
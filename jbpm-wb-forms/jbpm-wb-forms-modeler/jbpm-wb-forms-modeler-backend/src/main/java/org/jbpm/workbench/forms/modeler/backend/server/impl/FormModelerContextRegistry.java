@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.forms.modeler.backend.server.impl;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.SessionScoped;
+import javax.inject.Inject;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import org.jbpm.formModeler.api.client.FormRenderContextManager;
+import org.jbpm.formModeler.kie.services.FormRenderContentMarshallerManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of the form render contexts opened in the session. Contexts are otherwise only removed when a process
+ * is started, a task is saved or completed or the form is closed, so the ones of abandoned forms are removed here
+ * along with their marshaller contexts once idle or once the maximum number of live contexts is exceeded (least
+ * recently used first). Evictions happen on requests of the same session, remaining contexts are removed when the
+ * session ends.
+ */
+@SessionScoped
+public class FormModelerContextRegistry {
+
+    public static final String MAX_SIZE_PROPERTY = "org.jbpm.workbench.forms.modeler.context.size";
+    public static final String IDLE_TIME_PROPERTY = "org.jbpm.workbench.forms.modeler.context.idle";
+
+    private Logger log = LoggerFactory.getLogger( FormModelerContextRegistry.class );
+
+    @Inject
+    private FormRenderContextManager formRenderContextManager;
+
+    @Inject
+    private FormRenderContentMarshallerManager formRenderContentMarshaller;
+
+    // registration time of tracked contexts
+    private final Cache<String, Long> contexts;
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public FormModelerContextRegistry() {
+        this( null,
+              null,
+              Long.parseLong( System.getProperty( MAX_SIZE_PROPERTY, "100" ) ),
+              Long.parseLong( System.getProperty( IDLE_TIME_PROPERTY, "1800000" ) ) );
+    }
+
+    public FormModelerContextRegistry( FormRenderContextManager formRenderContextManager,
+                                       FormRenderContentMarshallerManager formRenderContentMarshaller,
+                                       long maxSize,
+                                       long idleMillis ) {
+        this.formRenderContextManager = formRenderContextManager;
+        this.formRenderContentMarshaller = formRenderContentMarshaller;
+        this.contexts = CacheBuilder.newBuilder()
+                .maximumSize( maxSize )
+                .expireAfterAccess( idleMillis, TimeUnit.MILLISECONDS )
+                .removalListener( (RemovalListener<String, Long>) notification -> {
+                    // explicitly removed contexts are released by remove
+                    if ( notification.wasEvicted() ) {
+                        evictionCount.incrementAndGet();
+                        release( notification.getKey() );
+                        log.debug( "Form render context {} evicted due to {}", notification.getKey(), notification.getCause() );
+                    }
+                } )
+                .build();
+    }
+
+    /**
+     * Starts tracking of a context just created along with its marshaller context, stale contexts are evicted first.
+     */
+    public void register( String ctxUID ) {
+        cleanUp();
+        contexts.put( ctxUID, System.currentTimeMillis() );
+    }
+
+    /**
+     * Marks context as used so it is not considered idle.
+     */
+    public void touch( String ctxUID ) {
+        contexts.getIfPresent( ctxUID );
+    }
+
+    public void remove( String ctxUID ) {
+        contexts.invalidate( ctxUID );
+        release( ctxUID );
+    }
+
+    /**
+     * Evicts idle contexts.
+     */
+    public void cleanUp() {
+        contexts.cleanUp();
+    }
+
+    public long getLiveContexts() {
+        return contexts.size();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @PreDestroy
+    public void removeAll() {
+        for ( String ctxUID : new ArrayList<String>( contexts.asMap().keySet() ) ) {
+            remove( ctxUID );
+        }
+    }
+
+    protected void release( String ctxUID ) {
+        try {
+            formRenderContextManager.removeContext( ctxUID );
+        } catch ( Exception e ) {
+            log.warn( "Failed to remove form render context {} due to {}", ctxUID, e.getMessage() );
+        }
+        // marshaller context holds the class loader of the container, release it along with the form context
+        formRenderContentMarshaller.removeContentMarshaller( ctxUID );
+    }
+}
@@ -22,6 +22,12 @@ import org.kie.internal.task.api.ContentMarshallerContext;
 import javax.enterprise.context.SessionScoped;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Marshaller contexts of the form render contexts opened in the session. Contexts keep the class loader of the
+ * container strongly, so forms stay usable even if the container is disposed meanwhile; they are removed along with
+ * the form render context when the form is submitted or closed, or by {@link FormModelerContextRegistry} once the
+ * form is abandoned.
+ */
 @SessionScoped
 public class FormRenderContentMarshallerManagerImpl implements FormRenderContentMarshallerManager {
     private ConcurrentHashMap<String, ContentMarshallerContext> marhsalContexts = new ConcurrentHashMap<String, ContentMarshallerContext>();
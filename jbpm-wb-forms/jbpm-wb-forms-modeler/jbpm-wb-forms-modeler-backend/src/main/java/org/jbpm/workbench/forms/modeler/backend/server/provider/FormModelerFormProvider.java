@@ -26,11 +26,12 @@ import org.jbpm.workbench.forms.service.providing.FormProvider;
 import org.jbpm.workbench.forms.service.providing.ProcessRenderingSettings;
 import org.jbpm.workbench.forms.service.providing.TaskRenderingSettings;
 import org.jbpm.workbench.forms.service.providing.model.TaskDefinition;
+import org.jbpm.workbench.forms.modeler.backend.server.finder.RuntimeFormIndex;
+import org.jbpm.workbench.forms.modeler.backend.server.impl.FormModelerContextRegistry;
 import org.jbpm.workbench.forms.modeler.display.impl.FormModelerFormRenderingSettings;
 import org.jbpm.formModeler.api.client.FormRenderContext;
 import org.jbpm.formModeler.api.client.FormRenderContextManager;
 import org.jbpm.formModeler.api.model.Form;
-import org.jbpm.formModeler.core.config.FormSerializationManager;
 import org.jbpm.formModeler.kie.services.FormRenderContentMarshallerManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,26 +41,31 @@ public class FormModelerFormProvider implements FormProvider<FormModelerFormRend
 
     protected Logger log = LoggerFactory.getLogger( FormModelerFormProvider.class );
 
-    private FormSerializationManager formSerializationManager;
-
     private FormRenderContextManager formRenderContextManager;
 
     private FormRenderContentMarshallerManager formRenderContentMarshaller;
 
+    private RuntimeFormIndex formIndex;
+
+    private FormModelerContextRegistry contextRegistry;
+
     @Inject
-    public FormModelerFormProvider( FormSerializationManager formSerializationManager,
-                                    FormRenderContextManager formRenderContextManager,
-                                    FormRenderContentMarshallerManager formRenderContentMarshaller ) {
-        this.formSerializationManager = formSerializationManager;
+    public FormModelerFormProvider( FormRenderContextManager formRenderContextManager,
+                                    FormRenderContentMarshallerManager formRenderContentMarshaller,
+                                    RuntimeFormIndex formIndex,
+                                    FormModelerContextRegistry contextRegistry ) {
         this.formRenderContextManager = formRenderContextManager;
         this.formRenderContentMarshaller = formRenderContentMarshaller;
+        this.formIndex = formIndex;
+        this.contextRegistry = contextRegistry;
     }
 
     @Override
     public FormModelerFormRenderingSettings render( ProcessRenderingSettings settings ) {
         if ( !StringUtils.isEmpty( settings.getFormContent() ) ) {
             try {
-                Form form = formSerializationManager.loadFormFromXML( settings.getFormContent() );
+                // deserialized form is shared with other renderings of the same form
+                Form form = formIndex.loadForm( settings.getFormContent() );
 
                 Map ctx = new HashMap();
 
@@ -72,6 +78,8 @@ public class FormModelerFormProvider implements FormProvider<FormModelerFormRend
                                                                                  new HashMap<String, Object>() );
                 formRenderContentMarshaller.addContentMarshaller( context.getUID(),
                                                                   settings.getMarshallerContext() );
+                formIndex.index( context );
+                contextRegistry.register( context.getUID() );
 
                 return new FormModelerFormRenderingSettings( context.getUID() );
             } catch ( Exception e ) {
@@ -87,7 +95,7 @@ public class FormModelerFormProvider implements FormProvider<FormModelerFormRend
             try {
 
                 TaskDefinition task = settings.getTask();
-                Form form = formSerializationManager.loadFormFromXML( settings.getFormContent() );
+                Form form = formIndex.loadForm( settings.getFormContent() );
 
                 Map inputs = new HashMap();
 
@@ -110,6 +118,8 @@ public class FormModelerFormProvider implements FormProvider<FormModelerFormRend
                                                                                  outputs );
                 formRenderContentMarshaller.addContentMarshaller( context.getUID(),
                                                                   settings.getMarshallerContext() );
+                formIndex.index( context );
+                contextRegistry.register( context.getUID() );
 
                 String status = task.getStatus();
                 boolean readonly = !"InProgress".equals( status );
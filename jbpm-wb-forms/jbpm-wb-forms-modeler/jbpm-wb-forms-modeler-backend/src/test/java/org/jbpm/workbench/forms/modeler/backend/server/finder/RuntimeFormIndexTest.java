@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.forms.modeler.backend.server.finder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jbpm.formModeler.api.client.FormRenderContext;
+import org.jbpm.formModeler.api.model.Form;
+import org.jbpm.formModeler.core.config.FormSerializationManager;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith( MockitoJUnitRunner.class )
+public class RuntimeFormIndexTest {
+
+    @Mock
+    private FormSerializationManager formSerializationManager;
+
+    private RuntimeFormIndex formIndex;
+
+    @Before
+    public void init() throws Exception {
+        when( formSerializationManager.generateHeaderFormFormId( anyLong() ) ).thenAnswer( invocation -> header( (Long) invocation.getArguments()[0] ) );
+        when( formSerializationManager.loadFormFromXML( anyString() ) ).thenAnswer( invocation -> form( (String) invocation.getArguments()[0] ) );
+
+        formIndex = new RuntimeFormIndex( formSerializationManager, 10, 60000 );
+    }
+
+    @Test
+    public void testIndexedFormDeserializedOnFirstAccess() throws Exception {
+        FormRenderContext context = context( "root.form", xml( 1 ), "nested.form", xml( 2 ) );
+
+        Map<Long, String> index = formIndex.index( context );
+
+        assertEquals( "root.form", index.get( 1L ) );
+        assertEquals( "nested.form", index.get( 2L ) );
+        verify( formSerializationManager, never() ).loadFormFromXML( anyString() );
+
+        Form form = formIndex.getFormById( context, 2 );
+
+        assertEquals( Long.valueOf( 2 ), form.getId() );
+        assertSame( form, context.getContextForms().get( "nested.form" ) );
+        assertSame( form, formIndex.getFormById( context, 2 ) );
+        verify( formSerializationManager ).loadFormFromXML( xml( 2 ) );
+        verify( formSerializationManager, never() ).loadFormFromXML( xml( 1 ) );
+    }
+
+    @Test
+    public void testNegativeFormIdIndexed() throws Exception {
+        FormRenderContext context = context( "negative.form", xml( -5 ) );
+
+        assertEquals( "negative.form", formIndex.index( context ).get( -5L ) );
+
+        Form form = formIndex.getFormById( context, -5 );
+
+        assertEquals( Long.valueOf( -5 ), form.getId() );
+    }
+
+    @Test
+    public void testFormAddedAfterIndexingFound() throws Exception {
+        FormRenderContext context = context( "root.form", xml( 1 ) );
+        formIndex.index( context );
+
+        context.getContextForms().put( "late.form", xml( 3 ) );
+        Form form = formIndex.getFormById( context, 3 );
+
+        assertEquals( Long.valueOf( 3 ), form.getId() );
+        assertSame( form, context.getContextForms().get( "late.form" ) );
+        assertNull( formIndex.getFormById( context, 4 ) );
+    }
+
+    @Test
+    public void testFormsReusedAcrossContexts() throws Exception {
+        FormRenderContext context = context( "root.form", xml( 1 ) );
+        FormRenderContext otherContext = context( "root.form", xml( 1 ) );
+
+        Form form = formIndex.getFormById( context, 1 );
+
+        assertSame( form, formIndex.getFormById( otherContext, 1 ) );
+        assertSame( form, formIndex.loadForm( xml( 1 ) ) );
+        verify( formSerializationManager, times( 1 ) ).loadFormFromXML( xml( 1 ) );
+    }
+
+    protected FormRenderContext context( String... pathsAndForms ) {
+        Map<String, Object> forms = new HashMap<>();
+        for ( int i = 0; i < pathsAndForms.length; i += 2 ) {
+            forms.put( pathsAndForms[i], pathsAndForms[i + 1] );
+        }
+        FormRenderContext context = mock( FormRenderContext.class );
+        doReturn( forms ).when( context ).getContextForms();
+        return context;
+    }
+
+    protected String header( long formId ) {
+        return "<form id=\"" + formId + "\">";
+    }
+
+    protected String xml( long formId ) {
+        return header( formId ) + "<field name=\"field" + formId + "\"/></form>";
+    }
+
+    protected Form form( String xml ) {
+        Long formId = Long.valueOf( xml.substring( xml.indexOf( '"' ) + 1, xml.indexOf( '"', xml.indexOf( '"' ) + 1 ) ) );
+        Form form = mock( Form.class );
+        doReturn( formId ).when( form ).getId();
+        return form;
+    }
+}
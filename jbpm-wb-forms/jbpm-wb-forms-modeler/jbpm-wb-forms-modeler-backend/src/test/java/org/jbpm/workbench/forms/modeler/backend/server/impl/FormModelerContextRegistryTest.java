@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.forms.modeler.backend.server.impl;
+
+import org.jbpm.formModeler.api.client.FormRenderContextManager;
+import org.jbpm.formModeler.kie.services.FormRenderContentMarshallerManager;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith( MockitoJUnitRunner.class )
+public class FormModelerContextRegistryTest {
+
+    @Mock
+    private FormRenderContextManager formRenderContextManager;
+
+    @Mock
+    private FormRenderContentMarshallerManager formRenderContentMarshaller;
+
+    private FormModelerContextRegistry registry;
+
+    @Before
+    public void init() {
+        registry = new FormModelerContextRegistry( formRenderContextManager, formRenderContentMarshaller, 2, 60000 );
+    }
+
+    @Test
+    public void testLeastRecentlyUsedContextEvicted() {
+        registry.register( "1" );
+        registry.register( "2" );
+        registry.touch( "1" );
+        registry.register( "3" );
+
+        verify( formRenderContextManager ).removeContext( "2" );
+        verify( formRenderContentMarshaller ).removeContentMarshaller( "2" );
+        verify( formRenderContextManager, never() ).removeContext( "1" );
+        assertEquals( 2, registry.getLiveContexts() );
+        assertEquals( 1, registry.getEvictionCount() );
+    }
+
+    @Test
+    public void testRemovedContextNotCountedAsEvicted() {
+        registry.register( "1" );
+
+        registry.remove( "1" );
+
+        verify( formRenderContextManager ).removeContext( "1" );
+        verify( formRenderContentMarshaller ).removeContentMarshaller( "1" );
+        assertEquals( 0, registry.getLiveContexts() );
+        assertEquals( 0, registry.getEvictionCount() );
+    }
+
+    @Test
+    public void testIdleContextEvicted() throws Exception {
+        registry = new FormModelerContextRegistry( formRenderContextManager, formRenderContentMarshaller, 10, 1 );
+        registry.register( "1" );
+
+        Thread.sleep( 10 );
+        registry.cleanUp();
+
+        verify( formRenderContextManager ).removeContext( "1" );
+        verify( formRenderContentMarshaller ).removeContentMarshaller( "1" );
+        assertEquals( 1, registry.getEvictionCount() );
+    }
+
+    @Test
+    public void testContextsRemovedWithSession() {
+        registry.register( "1" );
+        registry.register( "2" );
+
+        registry.removeAll();
+
+        verify( formRenderContextManager ).removeContext( "1" );
+        verify( formRenderContextManager ).removeContext( "2" );
+        assertEquals( 0, registry.getLiveContexts() );
+        assertEquals( 0, registry.getEvictionCount() );
+    }
+}
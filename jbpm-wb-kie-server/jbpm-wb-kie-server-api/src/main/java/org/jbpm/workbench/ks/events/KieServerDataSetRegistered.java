@@ -28,6 +28,8 @@ public class KieServerDataSetRegistered {
 
     private String serverTemplateId;
 
+    private long registrationTime;
+
     public KieServerDataSetRegistered() {
     }
 
@@ -36,6 +38,11 @@ public class KieServerDataSetRegistered {
         this.serverTemplateId = serverTemplateId;
     }
 
+    public KieServerDataSetRegistered(String serverInstanceId, String serverTemplateId, long registrationTime) {
+        this(serverInstanceId, serverTemplateId);
+        this.registrationTime = registrationTime;
+    }
+
     public String getServerInstanceId() {
         return serverInstanceId;
     }
@@ -52,6 +59,17 @@ public class KieServerDataSetRegistered {
         this.serverTemplateId = serverTemplateId;
     }
 
+    /**
+     * Time in milliseconds it took to register the data sets, including retries.
+     */
+    public long getRegistrationTime() {
+        return registrationTime;
+    }
+
+    public void setRegistrationTime(long registrationTime) {
+        this.registrationTime = registrationTime;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -79,6 +97,7 @@ public class KieServerDataSetRegistered {
         return "KieServerDataSetRegistered{" +
                 "serverInstanceId='" + serverInstanceId + '\'' +
                 ", serverTemplateId='" + serverTemplateId + '\'' +
+                ", registrationTime=" + registrationTime +
                 '}';
     }
 
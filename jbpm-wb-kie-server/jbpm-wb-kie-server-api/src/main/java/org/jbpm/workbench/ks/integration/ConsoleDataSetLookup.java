@@ -25,6 +25,24 @@ public class ConsoleDataSetLookup extends DataSetLookup {
 
     private String serverTemplateId;
 
+    /**
+     * When set the lookup is executed on all available server templates and results are merged.
+     */
+    private boolean allServerTemplates;
+
+    /**
+     * Keyset paging: value of the sort column on the last row of the previous page. When set the next page
+     * is looked up as the rows that follow this value instead of using the row offset.
+     */
+    private Comparable lastSortValue;
+
+    /**
+     * Keyset paging: unique column used to break ties of non unique sort columns, e.g. process instance id.
+     */
+    private String tieBreakerColumnId;
+
+    private Comparable lastTieBreakerValue;
+
     public String getServerTemplateId() {
         return serverTemplateId;
     }
@@ -33,6 +51,48 @@ public class ConsoleDataSetLookup extends DataSetLookup {
         this.serverTemplateId = serverTemplateId;
     }
 
+    public boolean isAllServerTemplates() {
+        return allServerTemplates;
+    }
+
+    public void setAllServerTemplates(boolean allServerTemplates) {
+        this.allServerTemplates = allServerTemplates;
+    }
+
+    public Comparable getLastSortValue() {
+        return lastSortValue;
+    }
+
+    public void setLastSortValue(Comparable lastSortValue) {
+        this.lastSortValue = lastSortValue;
+    }
+
+    public String getTieBreakerColumnId() {
+        return tieBreakerColumnId;
+    }
+
+    public void setTieBreakerColumnId(String tieBreakerColumnId) {
+        this.tieBreakerColumnId = tieBreakerColumnId;
+    }
+
+    public Comparable getLastTieBreakerValue() {
+        return lastTieBreakerValue;
+    }
+
+    public void setLastTieBreakerValue(Comparable lastTieBreakerValue) {
+        this.lastTieBreakerValue = lastTieBreakerValue;
+    }
+
+    public void seekAfter(Comparable lastSortValue, String tieBreakerColumnId, Comparable lastTieBreakerValue) {
+        this.lastSortValue = lastSortValue;
+        this.tieBreakerColumnId = tieBreakerColumnId;
+        this.lastTieBreakerValue = lastTieBreakerValue;
+    }
+
+    public boolean isKeysetPaging() {
+        return lastSortValue != null;
+    }
+
     public static DataSetLookup fromInstance(DataSetLookup orig, String serverTemplateId) {
         ConsoleDataSetLookup clone = new ConsoleDataSetLookup();
         clone.setDataSetUUID(orig.getDataSetUUID());
@@ -47,6 +107,9 @@ public class ConsoleDataSetLookup extends DataSetLookup {
 
     @Override
     public DataSetLookup cloneInstance() {
-        return fromInstance(super.cloneInstance(), getServerTemplateId());
+        ConsoleDataSetLookup clone = (ConsoleDataSetLookup) fromInstance(super.cloneInstance(), getServerTemplateId());
+        clone.seekAfter(lastSortValue, tieBreakerColumnId, lastTieBreakerValue);
+        clone.setAllServerTemplates(allServerTemplates);
+        return clone;
     }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.security;
+
+import java.util.concurrent.Callable;
+
+import org.kie.server.client.CredentialsProvider;
+
+/**
+ * Credentials provider that allows authorization of the calling user to be carried over to other threads.
+ * Delegate providers resolve authorization from the current request/subject which is bound to the request thread,
+ * thus remote calls issued from worker threads need the authorization to be propagated explicitly.
+ */
+public class PropagatingCredentialsProvider implements CredentialsProvider {
+
+    private static final ThreadLocal<String> PROPAGATED_AUTHORIZATION = new ThreadLocal<>();
+
+    private final CredentialsProvider delegate;
+
+    public PropagatingCredentialsProvider(CredentialsProvider delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String getHeaderName() {
+        return delegate.getHeaderName();
+    }
+
+    @Override
+    public String getAuthorization() {
+        String authorization = PROPAGATED_AUTHORIZATION.get();
+        if (authorization != null) {
+            return authorization;
+        }
+        return delegate.getAuthorization();
+    }
+
+    public CredentialsProvider getDelegate() {
+        return delegate;
+    }
+
+    public static <T> T callWithAuthorization(String authorization, Callable<T> task) throws Exception {
+        final String previous = PROPAGATED_AUTHORIZATION.get();
+        PROPAGATED_AUTHORIZATION.set(authorization);
+        try {
+            return task.call();
+        } finally {
+            if (previous == null) {
+                PROPAGATED_AUTHORIZATION.remove();
+            } else {
+                PROPAGATED_AUTHORIZATION.set(previous);
+            }
+        }
+    }
+}
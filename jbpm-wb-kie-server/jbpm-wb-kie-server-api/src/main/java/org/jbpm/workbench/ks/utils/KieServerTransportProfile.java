@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.utils;
+
+import org.kie.server.api.marshalling.MarshallingFormat;
+import org.kie.server.client.KieServicesConfiguration;
+
+/**
+ * Transport settings applied to all KIE Server clients created by the workbench. Defaults can be overridden with
+ * system properties, e.g. -Dorg.jbpm.workbench.ks.client.marshalling=JSON.
+ * <p>
+ * Clients use HttpURLConnection based transport, persistent connections are kept in the JVM wide keep-alive cache
+ * keyed by host thus are shared by all clients pointing to the same endpoint. Size of that cache is controlled by
+ * standard http.keepAlive and http.maxConnections system properties.
+ */
+public class KieServerTransportProfile {
+
+    public static final String TIMEOUT_PROPERTY = "org.jbpm.workbench.ks.client.timeout";
+    public static final String MARSHALLING_PROPERTY = "org.jbpm.workbench.ks.client.marshalling";
+
+    private static final KieServerTransportProfile DEFAULT = fromSystemProperties();
+
+    private final long timeout;
+    private final MarshallingFormat marshallingFormat;
+
+    public KieServerTransportProfile(long timeout, MarshallingFormat marshallingFormat) {
+        this.timeout = timeout;
+        this.marshallingFormat = marshallingFormat;
+    }
+
+    public static KieServerTransportProfile getDefault() {
+        return DEFAULT;
+    }
+
+    public static KieServerTransportProfile fromSystemProperties() {
+        final long timeout = Long.parseLong(System.getProperty(TIMEOUT_PROPERTY, "60000"));
+        final MarshallingFormat marshallingFormat = MarshallingFormat.valueOf(System.getProperty(MARSHALLING_PROPERTY, MarshallingFormat.XSTREAM.name()).toUpperCase());
+        return new KieServerTransportProfile(timeout, marshallingFormat);
+    }
+
+    public void apply(KieServicesConfiguration configuration) {
+        configuration.setTimeout(timeout);
+        configuration.setMarshallingFormat(marshallingFormat);
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public MarshallingFormat getMarshallingFormat() {
+        return marshallingFormat;
+    }
+
+    @Override
+    public String toString() {
+        return "KieServerTransportProfile{" +
+                "timeout=" + timeout +
+                ", marshallingFormat=" + marshallingFormat +
+                '}';
+    }
+}
@@ -19,8 +19,8 @@ package org.jbpm.workbench.ks.utils;
 import java.util.Arrays;
 
 import org.jbpm.workbench.ks.security.KeyCloakTokenCredentialsProvider;
+import org.jbpm.workbench.ks.security.PropagatingCredentialsProvider;
 import org.kie.server.api.KieServerConstants;
-import org.kie.server.api.marshalling.MarshallingFormat;
 import org.kie.server.client.CredentialsProvider;
 import org.kie.server.client.KieServicesClient;
 import org.kie.server.client.KieServicesConfiguration;
@@ -69,11 +69,19 @@ public class KieServerUtils {
     }
 
     public static KieServicesClient createKieServicesClient(final String endpoint, final ClassLoader classLoader, final KieServicesConfiguration configuration, final String... capabilities) {
+        return createKieServicesClient(endpoint, classLoader, configuration, LoadBalancer.getDefault(endpoint), capabilities);
+    }
+
+    public static KieServicesClient createKieServicesClient(final String endpoint, final ClassLoader classLoader, final CredentialsProvider credentialsProvider, final LoadBalancer loadBalancer, final String... capabilities) {
+        final KieServicesConfiguration configuration = KieServicesFactory.newRestConfiguration(endpoint, credentialsProvider);
+        return createKieServicesClient(endpoint, classLoader, configuration, loadBalancer, capabilities);
+    }
+
+    public static KieServicesClient createKieServicesClient(final String endpoint, final ClassLoader classLoader, final KieServicesConfiguration configuration, final LoadBalancer loadBalancer, final String... capabilities) {
         LOGGER.debug("Creating client that will use following endpoint {}", endpoint);
-        configuration.setTimeout(60000);
+        KieServerTransportProfile.getDefault().apply(configuration);
         configuration.setCapabilities(Arrays.asList(capabilities));
-        configuration.setMarshallingFormat(MarshallingFormat.XSTREAM);
-        configuration.setLoadBalancer(LoadBalancer.getDefault(endpoint));
+        configuration.setLoadBalancer(loadBalancer);
 
         KieServicesClient kieServicesClient;
 
@@ -94,7 +102,7 @@ public class KieServerUtils {
             credentialsProvider = new SubjectCredentialsProvider();
         }
         LOGGER.debug("{} initialized for the client.", credentialsProvider.getClass().getName());
-        return credentialsProvider;
+        return new PropagatingCredentialsProvider(credentialsProvider);
     }
 
     public static CredentialsProvider getAdminCredentialsProvider() {
@@ -16,6 +16,7 @@
 
 package org.jbpm.workbench.ks.integration;
 
+import java.util.Set;
 import javax.inject.Inject;
 
 import org.kie.server.client.KieServicesClient;
@@ -25,14 +26,27 @@ public abstract class AbstractKieServerService {
     @Inject
     private KieServerIntegration kieServerIntegration;
 
+    @Inject
+    private KieServerCallGuard callGuard;
+
+    @Inject
+    private KieServerCallMetrics callMetrics;
+
     protected <T> T getClient(final String serverTemplateId, final Class<T> clientType) {
         KieServicesClient client = getKieServicesClient(serverTemplateId);
-        return client.getServicesClient(clientType);
+        return callGuard.guard(serverTemplateId, clientType, instrument(serverTemplateId, clientType, client.getServicesClient(clientType)));
     }
 
     protected <T> T getClient(final String serverTemplateId, final String containerId, final Class<T> clientType) {
         KieServicesClient client = getKieServicesClient(serverTemplateId, containerId);
-        return client.getServicesClient(clientType);
+        return callGuard.guard(serverTemplateId, clientType, instrument(serverTemplateId, clientType, client.getServicesClient(clientType)));
+    }
+
+    private <T> T instrument(final String serverTemplateId, final Class<T> clientType, final T client) {
+        // strip CDI proxy suffix so metrics are reported per service class
+        final String service = getClass().getSimpleName();
+        final int proxySuffix = service.indexOf('$');
+        return callMetrics.instrument(proxySuffix > 0 ? service.substring(0, proxySuffix) : service, serverTemplateId, clientType, client);
     }
 
     protected KieServicesClient getKieServicesClient(final String serverTemplateId, final String containerId) {
@@ -43,6 +57,10 @@ public abstract class AbstractKieServerService {
         return client;
     }
 
+    protected Set<String> getServerTemplateIds() {
+        return kieServerIntegration.getServerTemplateIds();
+    }
+
     protected KieServicesClient getKieServicesClient(final String serverTemplateId) {
         KieServicesClient client = kieServerIntegration.getServerClient(serverTemplateId);
         if (client == null) {
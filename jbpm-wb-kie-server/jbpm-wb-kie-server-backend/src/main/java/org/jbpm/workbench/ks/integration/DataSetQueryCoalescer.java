@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.enterprise.context.ApplicationScoped;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collapses concurrent identical data set queries into a single remote call. The first caller for a given
+ * query executes it while other callers wait (up to the configured max wait) and receive the same result.
+ * Callers that time out while waiting execute the query on their own. Queries are identical only when made by the
+ * same user (see {@link DataSetQueryKey#getIdentity()}), results of queries KIE Server filters by the caller are
+ * never handed to other users.
+ */
+@ApplicationScoped
+public class DataSetQueryCoalescer {
+
+    public static final String MAX_WAIT_PROPERTY = "org.jbpm.workbench.ks.dataset.coalescing.maxWait";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataSetQueryCoalescer.class);
+
+    private final ConcurrentMap<DataSetQueryKey, CompletableFuture<List<List>>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong collapsedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    private final long maxWaitMillis;
+
+    public DataSetQueryCoalescer() {
+        this(Long.parseLong(System.getProperty(MAX_WAIT_PROPERTY, "60000")));
+    }
+
+    public DataSetQueryCoalescer(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public List<List> execute(DataSetQueryKey key, Supplier<List<List>> query) {
+        final CompletableFuture<List<List>> future = new CompletableFuture<>();
+        final CompletableFuture<List<List>> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) {
+            collapsedCount.incrementAndGet();
+            LOGGER.debug("Query {} already in flight, waiting for its result", key);
+            try {
+                return existing.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                timeoutCount.incrementAndGet();
+                LOGGER.warn("Timeout after {} ms while waiting for in flight query {}, executing it directly", maxWaitMillis, key);
+                return query.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new RuntimeException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for query " + key, e);
+            }
+        }
+
+        try {
+            final List<List> result = query.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    public long getCollapsedCount() {
+        return collapsedCount.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.util.Objects;
+
+import org.kie.server.api.model.definition.QueryFilterSpec;
+import org.kie.server.api.model.definition.QueryParam;
+
+/**
+ * Normalized identity of a remote data set query, used to share results between identical lookups. KIE Server filters
+ * some queries (e.g. task lists) by the calling user, so the identity of the caller is part of the key and results are
+ * only shared between lookups of the same user.
+ */
+public class DataSetQueryKey {
+
+    private final String serverTemplateId;
+    private final String identity;
+    private final String dataSetUUID;
+    private final String filterFingerprint;
+    private final int page;
+    private final int pageSize;
+
+    public DataSetQueryKey(String serverTemplateId, String identity, String dataSetUUID, QueryFilterSpec filterSpec, int page, int pageSize) {
+        this(serverTemplateId, identity, dataSetUUID, fingerprint(filterSpec), page, pageSize);
+    }
+
+    public DataSetQueryKey(String serverTemplateId, String identity, String dataSetUUID, String filterFingerprint, int page, int pageSize) {
+        this.serverTemplateId = serverTemplateId;
+        this.identity = identity;
+        this.dataSetUUID = dataSetUUID;
+        this.filterFingerprint = filterFingerprint;
+        this.page = page;
+        this.pageSize = pageSize;
+    }
+
+    public static String fingerprint(QueryFilterSpec filterSpec) {
+        StringBuilder fingerprint = new StringBuilder();
+        if (filterSpec.getParameters() != null) {
+            for (QueryParam param : filterSpec.getParameters()) {
+                fingerprint.append(param.getColumn()).append('|')
+                        .append(param.getOperator()).append('|')
+                        .append(param.getValue()).append(';');
+            }
+        }
+        fingerprint.append("orderBy=").append(filterSpec.getOrderBy())
+                .append(filterSpec.isAscending() ? " ASC" : " DESC");
+        return fingerprint.toString();
+    }
+
+    public String getServerTemplateId() {
+        return serverTemplateId;
+    }
+
+    public String getIdentity() {
+        return identity;
+    }
+
+    public String getDataSetUUID() {
+        return dataSetUUID;
+    }
+
+    public String getFilterFingerprint() {
+        return filterFingerprint;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        DataSetQueryKey that = (DataSetQueryKey) o;
+
+        return page == that.page &&
+                pageSize == that.pageSize &&
+                Objects.equals(serverTemplateId, that.serverTemplateId) &&
+                Objects.equals(identity, that.identity) &&
+                Objects.equals(dataSetUUID, that.dataSetUUID) &&
+                Objects.equals(filterFingerprint, that.filterFingerprint);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(serverTemplateId, identity, dataSetUUID, filterFingerprint, page, pageSize);
+    }
+
+    @Override
+    public String toString() {
+        return "DataSetQueryKey{" +
+                "serverTemplateId='" + serverTemplateId + '\'' +
+                ", dataSetUUID='" + dataSetUUID + '\'' +
+                ", filter='" + filterFingerprint + '\'' +
+                ", page=" + page +
+                ", pageSize=" + pageSize +
+                '}';
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.runtime.KieContainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of kie containers used to provide class loaders for marshalling of container specific clients.
+ * Containers are keyed by release id so templates deploying the same GAV share a single container, the least
+ * recently used and idle ones are evicted and disposed. Listener is notified about every removed release id so
+ * clients holding on to class loader of the container can be dropped as well. Default size is meant to hold all
+ * containers of a large installation (a few hundred versions), evicting them would mean rebuilding on next use.
+ */
+public class KieContainerCache {
+
+    public static final String MAX_SIZE_PROPERTY = "org.jbpm.workbench.ks.container.cache.size";
+    public static final String IDLE_TIME_PROPERTY = "org.jbpm.workbench.ks.container.cache.idle";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KieContainerCache.class);
+
+    private final Function<ReleaseId, KieContainer> containerFactory;
+    private final Cache<String, Entry> cache;
+
+    public KieContainerCache(Function<ReleaseId, KieContainer> containerFactory,
+                             Consumer<String> removalListener) {
+        this(containerFactory,
+             removalListener,
+             Long.parseLong(System.getProperty(MAX_SIZE_PROPERTY, "500")),
+             Long.parseLong(System.getProperty(IDLE_TIME_PROPERTY, "3600000")));
+    }
+
+    public KieContainerCache(Function<ReleaseId, KieContainer> containerFactory,
+                             Consumer<String> removalListener,
+                             long maxSize,
+                             long idleMillis) {
+        this.containerFactory = containerFactory;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(idleMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .removalListener((RemovalListener<String, Entry>) notification -> {
+                    if (notification.getCause() == RemovalCause.REPLACED) {
+                        return;
+                    }
+                    LOGGER.debug("Kie container for {} removed from cache due to {}", notification.getKey(), notification.getCause());
+                    try {
+                        notification.getValue().getKieContainer().dispose();
+                    } catch (Exception e) {
+                        LOGGER.warn("Failed to dispose kie container for {} due to {}", notification.getKey(), e.getMessage());
+                    }
+                    if (removalListener != null) {
+                        removalListener.accept(notification.getKey());
+                    }
+                })
+                .build();
+        LOGGER.debug("Kie container cache created with max size {} and idle time {} ms", maxSize, idleMillis);
+    }
+
+    public static String toKey(ReleaseId releaseId) {
+        return releaseId.toExternalForm();
+    }
+
+    /**
+     * Returns container for given release id, building it if needed. Concurrent requests for the same
+     * release id wait for a single container to be built.
+     */
+    public KieContainer getKieContainer(ReleaseId releaseId) throws Exception {
+        try {
+            Entry entry = cache.get(toKey(releaseId), () -> createEntry(releaseId));
+            entry.accessed();
+            return entry.getKieContainer();
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Marks container of given release id as used, so it is not considered idle while its clients are in use.
+     */
+    public void touch(String releaseId) {
+        Entry entry = cache.getIfPresent(releaseId);
+        if (entry != null) {
+            entry.accessed();
+        }
+    }
+
+    /**
+     * Removes containers of all release ids that are not in given set, used when versions are undeployed.
+     */
+    public void retainAll(Set<String> releaseIds) {
+        cache.asMap().keySet().removeIf(key -> !releaseIds.contains(key));
+    }
+
+    public void invalidate(String releaseId) {
+        cache.invalidate(releaseId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public void cleanUp() {
+        cache.cleanUp();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    public List<EntryInfo> getEntries() {
+        List<EntryInfo> entries = new ArrayList<EntryInfo>();
+        cache.asMap().forEach((key, entry) -> entries.add(new EntryInfo(key, entry.getCreated(), entry.getLastAccessed(), entry.getAccessCount())));
+        return entries;
+    }
+
+    protected Entry createEntry(ReleaseId releaseId) {
+        final long start = System.currentTimeMillis();
+        final KieContainer kieContainer = containerFactory.apply(releaseId);
+        LOGGER.debug("Kie container for {} created in {} ms", releaseId, System.currentTimeMillis() - start);
+        return new Entry(kieContainer);
+    }
+
+    protected static class Entry {
+
+        private final KieContainer kieContainer;
+        private final long created = System.currentTimeMillis();
+        private volatile long lastAccessed = created;
+        private final AtomicLong accessCount = new AtomicLong();
+
+        Entry(KieContainer kieContainer) {
+            this.kieContainer = kieContainer;
+        }
+
+        void accessed() {
+            lastAccessed = System.currentTimeMillis();
+            accessCount.incrementAndGet();
+        }
+
+        KieContainer getKieContainer() {
+            return kieContainer;
+        }
+
+        long getCreated() {
+            return created;
+        }
+
+        long getLastAccessed() {
+            return lastAccessed;
+        }
+
+        long getAccessCount() {
+            return accessCount.get();
+        }
+    }
+
+    /**
+     * Snapshot of a cache entry.
+     */
+    public static class EntryInfo {
+
+        private final String releaseId;
+        private final long created;
+        private final long lastAccessed;
+        private final long accessCount;
+
+        public EntryInfo(String releaseId, long created, long lastAccessed, long accessCount) {
+            this.releaseId = releaseId;
+            this.created = created;
+            this.lastAccessed = lastAccessed;
+            this.accessCount = accessCount;
+        }
+
+        public String getReleaseId() {
+            return releaseId;
+        }
+
+        public long getCreated() {
+            return created;
+        }
+
+        public long getLastAccessed() {
+            return lastAccessed;
+        }
+
+        public long getAccessCount() {
+            return accessCount;
+        }
+
+        @Override
+        public String toString() {
+            return "EntryInfo{" +
+                    "releaseId='" + releaseId + '\'' +
+                    ", accessCount=" + accessCount +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+
+import org.kie.server.client.KieServicesHttpException;
+import org.kie.server.common.rest.KieServerHttpRequestException;
+import org.kie.server.controller.api.model.events.ServerInstanceConnected;
+import org.kie.server.controller.api.model.events.ServerTemplateDeleted;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bulkhead and circuit breaker per server template around KIE Server calls. After a number of consecutive
+ * connectivity failures calls to the template fail fast for a while. After that period a single trial call decides
+ * whether the template is available again. Optionally (when bulkhead size is set) each template allows a bounded
+ * number of concurrent calls so a hanging template cannot exhaust request threads, the bulkhead is disabled by
+ * default as a console shared by many users legitimately makes many concurrent calls to a single template.
+ */
+@ApplicationScoped
+public class KieServerCallGuard {
+
+    public static final String BULKHEAD_SIZE_PROPERTY = "org.jbpm.workbench.ks.bulkhead.size";
+    public static final String BULKHEAD_WAIT_PROPERTY = "org.jbpm.workbench.ks.bulkhead.wait";
+    public static final String FAILURE_THRESHOLD_PROPERTY = "org.jbpm.workbench.ks.circuit.failures";
+    public static final String OPEN_TIME_PROPERTY = "org.jbpm.workbench.ks.circuit.open";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KieServerCallGuard.class);
+
+    public enum CircuitState {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final ConcurrentMap<String, TemplateGuard> guards = new ConcurrentHashMap<String, TemplateGuard>();
+
+    private final int bulkheadSize;
+    private final long bulkheadWait;
+    private final int failureThreshold;
+    private final long openTime;
+
+    public KieServerCallGuard() {
+        this(Integer.parseInt(System.getProperty(BULKHEAD_SIZE_PROPERTY, "0")),
+             Long.parseLong(System.getProperty(BULKHEAD_WAIT_PROPERTY, "5000")),
+             Integer.parseInt(System.getProperty(FAILURE_THRESHOLD_PROPERTY, "5")),
+             Long.parseLong(System.getProperty(OPEN_TIME_PROPERTY, "30000")));
+    }
+
+    /**
+     * @param bulkheadSize maximum number of concurrent calls per server template, bulkhead is disabled if not positive
+     */
+    public KieServerCallGuard(int bulkheadSize, long bulkheadWait, int failureThreshold, long openTime) {
+        this.bulkheadSize = bulkheadSize;
+        this.bulkheadWait = bulkheadWait;
+        this.failureThreshold = failureThreshold;
+        this.openTime = openTime;
+    }
+
+    /**
+     * Wraps given services client so all its calls are guarded for the server template.
+     */
+    public <T> T guard(String serverTemplateId, Class<T> clientType, T client) {
+        if (client == null || !clientType.isInterface()) {
+            return client;
+        }
+        return clientType.cast(Proxy.newProxyInstance(clientType.getClassLoader(), new Class<?>[]{clientType}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(client, args);
+            }
+            return call(serverTemplateId, () -> {
+                try {
+                    return method.invoke(client, args);
+                } catch (InvocationTargetException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+            });
+        }));
+    }
+
+    public <T> T call(String serverTemplateId, Callable<T> call) throws Exception {
+        final TemplateGuard guard = guards.computeIfAbsent(serverTemplateId, TemplateGuard::new);
+        final boolean trial = guard.acquire();
+        try {
+            T result = call.call();
+            guard.succeeded(trial);
+            return result;
+        } catch (Exception e) {
+            if (isConnectivityFailure(e)) {
+                guard.failed(trial);
+            } else {
+                // server responded, thus it is available
+                guard.succeeded(trial);
+            }
+            throw e;
+        } finally {
+            guard.release();
+        }
+    }
+
+    protected boolean isConnectivityFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof KieServerHttpRequestException || cause instanceof IOException) {
+                return true;
+            }
+            if (cause instanceof KieServicesHttpException) {
+                // only gateway errors, other statuses come from the server itself
+                Integer httpCode = ((KieServicesHttpException) cause).getHttpCode();
+                return httpCode != null && (httpCode == 502 || httpCode == 503 || httpCode == 504);
+            }
+        }
+        return false;
+    }
+
+    public CircuitState getState(String serverTemplateId) {
+        TemplateGuard guard = guards.get(serverTemplateId);
+        return guard == null ? CircuitState.CLOSED : guard.state;
+    }
+
+    /**
+     * State of bulkhead and circuit breaker of every server template called so far.
+     */
+    public Map<String, GuardState> getStates() {
+        Map<String, GuardState> states = new HashMap<String, GuardState>();
+        guards.forEach((serverTemplateId, guard) -> states.put(serverTemplateId, guard.snapshot()));
+        return states;
+    }
+
+    public void reset(String serverTemplateId) {
+        guards.remove(serverTemplateId);
+    }
+
+    public void onServerInstanceConnected(@Observes ServerInstanceConnected serverInstanceConnected) {
+        // an instance (re)connected thus give the template another chance right away
+        TemplateGuard guard = guards.get(serverInstanceConnected.getServerInstance().getServerTemplateId());
+        if (guard != null) {
+            guard.close();
+        }
+    }
+
+    public void onServerTemplateDeleted(@Observes ServerTemplateDeleted serverTemplateDeleted) {
+        reset(serverTemplateDeleted.getServerTemplateId());
+    }
+
+    protected class TemplateGuard {
+
+        private final String serverTemplateId;
+        private final Semaphore permits = bulkheadSize > 0 ? new Semaphore(bulkheadSize) : null;
+        private final AtomicInteger activeCalls = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicLong rejectedCalls = new AtomicLong();
+        private volatile CircuitState state = CircuitState.CLOSED;
+        private volatile long openedAt;
+
+        TemplateGuard(String serverTemplateId) {
+            this.serverTemplateId = serverTemplateId;
+        }
+
+        /**
+         * @return true if the call is the trial call of a half open circuit
+         */
+        boolean acquire() {
+            boolean trial = false;
+            synchronized (this) {
+                if (state == CircuitState.OPEN && System.currentTimeMillis() - openedAt >= openTime) {
+                    state = CircuitState.HALF_OPEN;
+                    trial = true;
+                } else if (state != CircuitState.CLOSED) {
+                    rejectedCalls.incrementAndGet();
+                    throw new KieServerUnavailableException(serverTemplateId,
+                                                            "Server template " + serverTemplateId + " is unavailable, calls are suspended after " + consecutiveFailures.get() + " consecutive failures");
+                }
+            }
+            if (permits != null && !acquirePermit()) {
+                rejectedCalls.incrementAndGet();
+                if (trial) {
+                    reopen();
+                }
+                throw new KieServerUnavailableException(serverTemplateId,
+                                                        "Server template " + serverTemplateId + " is busy, " + bulkheadSize + " calls are already in progress");
+            }
+            activeCalls.incrementAndGet();
+            return trial;
+        }
+
+        /**
+         * Waits for a bulkhead permit, an interrupted wait rejects the call (keeping the interrupt flag) rather than
+         * throwing a checked exception client interfaces do not declare.
+         */
+        private boolean acquirePermit() {
+            try {
+                return permits.tryAcquire(bulkheadWait, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+                void release() {
+            activeCalls.decrementAndGet();
+            if (permits != null) {
+                permits.release();
+            }
+        }
+
+        void succeeded(boolean trial) {
+            consecutiveFailures.set(0);
+            if (trial || state != CircuitState.CLOSED) {
+                close();
+            }
+        }
+
+        void failed(boolean trial) {
+            int failures = consecutiveFailures.incrementAndGet();
+            if (trial || (failures >= failureThreshold && state == CircuitState.CLOSED)) {
+                reopen();
+            }
+        }
+
+        synchronized void close() {
+            if (state != CircuitState.CLOSED) {
+                LOGGER.info("Circuit breaker for server template {} closed", serverTemplateId);
+            }
+            consecutiveFailures.set(0);
+            state = CircuitState.CLOSED;
+        }
+
+        synchronized void reopen() {
+            openedAt = System.currentTimeMillis();
+            if (state != CircuitState.OPEN) {
+                LOGGER.warn("Circuit breaker for server template {} opened after {} consecutive failures", serverTemplateId, consecutiveFailures.get());
+            }
+            state = CircuitState.OPEN;
+        }
+
+        GuardState snapshot() {
+            return new GuardState(state, consecutiveFailures.get(), activeCalls.get(), rejectedCalls.get());
+        }
+    }
+
+    public static class GuardState {
+
+        private final CircuitState state;
+        private final int consecutiveFailures;
+        private final int activeCalls;
+        private final long rejectedCalls;
+
+        public GuardState(CircuitState state, int consecutiveFailures, int activeCalls, long rejectedCalls) {
+            this.state = state;
+            this.consecutiveFailures = consecutiveFailures;
+            this.activeCalls = activeCalls;
+            this.rejectedCalls = rejectedCalls;
+        }
+
+        public CircuitState getState() {
+            return state;
+        }
+
+        public int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        public int getActiveCalls() {
+            return activeCalls;
+        }
+
+        public long getRejectedCalls() {
+            return rejectedCalls;
+        }
+
+        @Override
+        public String toString() {
+            return "GuardState{" +
+                    "state=" + state +
+                    ", consecutiveFailures=" + consecutiveFailures +
+                    ", activeCalls=" + activeCalls +
+                    ", rejectedCalls=" + rejectedCalls +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.beans.ConstructorProperties;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records latency histogram, call and error counts and payload size of KIE Server calls made through services
+ * clients, per workbench service, client method and server template. Metrics are exported over JMX and can be
+ * rendered in Prometheus text format. Calls slower than a threshold are logged along with the call context, for
+ * instance the data set being looked up.
+ */
+@ApplicationScoped
+public class KieServerCallMetrics implements KieServerCallMetricsMXBean {
+
+    public static final String SLOW_CALL_PROPERTY = "org.jbpm.workbench.ks.metrics.slowCall";
+    public static final String OBJECT_NAME = "org.jbpm.workbench.ks:type=KieServerCallMetrics";
+
+    // upper bounds (inclusive) of latency histogram buckets in milliseconds
+    static final long[] BUCKETS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KieServerCallMetrics.class);
+
+    private static final ThreadLocal<String> CALL_CONTEXT = new ThreadLocal<String>();
+
+    private final ConcurrentMap<MetricKey, CallStats> stats = new ConcurrentHashMap<MetricKey, CallStats>();
+
+    private final long slowCallThreshold;
+
+    public KieServerCallMetrics() {
+        this(Long.parseLong(System.getProperty(SLOW_CALL_PROPERTY, "5000")));
+    }
+
+    public KieServerCallMetrics(long slowCallThreshold) {
+        this.slowCallThreshold = slowCallThreshold;
+    }
+
+    @PostConstruct
+    public void registerMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(this, objectName);
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Unable to register kie server call metrics in JMX due to {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void unregisterMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Unable to unregister kie server call metrics from JMX due to {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Sets context of calls made by the current thread, included in slow call log. Returns previous context
+     * so it can be restored.
+     */
+    public static String setCallContext(String context) {
+        String previous = CALL_CONTEXT.get();
+        if (context == null) {
+            CALL_CONTEXT.remove();
+        } else {
+            CALL_CONTEXT.set(context);
+        }
+        return previous;
+    }
+
+    /**
+     * Wraps given services client so all its calls are recorded for the service and server template.
+     */
+    public <T> T instrument(String service, String serverTemplateId, Class<T> clientType, T client) {
+        if (client == null || !clientType.isInterface()) {
+            return client;
+        }
+        final String clientName = clientType.getSimpleName();
+        return clientType.cast(Proxy.newProxyInstance(clientType.getClassLoader(), new Class<?>[]{clientType}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(client, args);
+            }
+            final long start = System.nanoTime();
+            boolean error = false;
+            Object result = null;
+            try {
+                result = method.invoke(client, args);
+                return result;
+            } catch (InvocationTargetException e) {
+                error = true;
+                throw e.getCause();
+            } finally {
+                record(service, clientName + "." + method.getName(), serverTemplateId, (System.nanoTime() - start) / 1000000, error, payloadSize(result));
+            }
+        }));
+    }
+
+    public void record(String service, String method, String serverTemplateId, long durationMillis, boolean error, long payloadSize) {
+        stats.computeIfAbsent(new MetricKey(service, method, serverTemplateId), key -> new CallStats()).record(durationMillis, error, payloadSize);
+        if (durationMillis >= slowCallThreshold) {
+            LOGGER.warn("Slow kie server call {}.{} on server template {} took {} ms{}", service, method, serverTemplateId, durationMillis,
+                        CALL_CONTEXT.get() == null ? "" : " (" + CALL_CONTEXT.get() + ")");
+        }
+    }
+
+    /**
+     * Number of items returned by a call, rows of query results, elements of collections and arrays.
+     */
+    protected static long payloadSize(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map) result).size();
+        }
+        if (result.getClass().isArray()) {
+            return Array.getLength(result);
+        }
+        return 1;
+    }
+
+    @Override
+    public List<CallMetricsSnapshot> getCallMetrics() {
+        List<CallMetricsSnapshot> snapshots = new ArrayList<CallMetricsSnapshot>();
+        stats.forEach((key, callStats) -> snapshots.add(callStats.snapshot(key)));
+        return snapshots;
+    }
+
+    @Override
+    public long getTotalCalls() {
+        return stats.values().stream().mapToLong(callStats -> callStats.calls.sum()).sum();
+    }
+
+    @Override
+    public long getTotalErrors() {
+        return stats.values().stream().mapToLong(callStats -> callStats.errors.sum()).sum();
+    }
+
+    @Override
+    public String getPrometheusMetrics() {
+        StringWriter writer = new StringWriter();
+        try {
+            writePrometheusMetrics(writer);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes all metrics in Prometheus text exposition format.
+     */
+    public void writePrometheusMetrics(Writer writer) throws IOException {
+        writer.write("# HELP kie_server_call_duration_milliseconds Duration of KIE Server calls.\n");
+        writer.write("# TYPE kie_server_call_duration_milliseconds histogram\n");
+        for (Map.Entry<MetricKey, CallStats> entry : stats.entrySet()) {
+            final String labels = entry.getKey().toLabels();
+            final CallStats callStats = entry.getValue();
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                cumulative += callStats.buckets.get(i);
+                writer.write("kie_server_call_duration_milliseconds_bucket{" + labels + ",le=\"" + BUCKETS[i] + "\"} " + cumulative + "\n");
+            }
+            writer.write("kie_server_call_duration_milliseconds_bucket{" + labels + ",le=\"+Inf\"} " + callStats.calls.sum() + "\n");
+            writer.write("kie_server_call_duration_milliseconds_sum{" + labels + "} " + callStats.totalDuration.sum() + "\n");
+            writer.write("kie_server_call_duration_milliseconds_count{" + labels + "} " + callStats.calls.sum() + "\n");
+        }
+        writer.write("# HELP kie_server_call_errors_total Failed KIE Server calls.\n");
+        writer.write("# TYPE kie_server_call_errors_total counter\n");
+        for (Map.Entry<MetricKey, CallStats> entry : stats.entrySet()) {
+            writer.write("kie_server_call_errors_total{" + entry.getKey().toLabels() + "} " + entry.getValue().errors.sum() + "\n");
+        }
+        writer.write("# HELP kie_server_call_payload_items_total Items (rows, elements) returned by KIE Server calls.\n");
+        writer.write("# TYPE kie_server_call_payload_items_total counter\n");
+        for (Map.Entry<MetricKey, CallStats> entry : stats.entrySet()) {
+            writer.write("kie_server_call_payload_items_total{" + entry.getKey().toLabels() + "} " + entry.getValue().payloadItems.sum() + "\n");
+        }
+    }
+
+    @Override
+    public void reset() {
+        stats.clear();
+    }
+
+    protected static class MetricKey {
+
+        private final String service;
+        private final String method;
+        private final String serverTemplateId;
+
+        MetricKey(String service, String method, String serverTemplateId) {
+            this.service = service;
+            this.method = method;
+            this.serverTemplateId = serverTemplateId;
+        }
+
+        String toLabels() {
+            return "service=\"" + escape(service) + "\",method=\"" + escape(method) + "\",server_template=\"" + escape(serverTemplateId) + "\"";
+        }
+
+        private static String escape(String value) {
+            return value == null ? "" : value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            MetricKey that = (MetricKey) o;
+
+            return Objects.equals(service, that.service) &&
+                    Objects.equals(method, that.method) &&
+                    Objects.equals(serverTemplateId, that.serverTemplateId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(service, method, serverTemplateId);
+        }
+    }
+
+    protected static class CallStats {
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalDuration = new LongAdder();
+        private final LongAdder payloadItems = new LongAdder();
+        // last slot counts calls slower than the last bucket
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS.length + 1);
+
+        void record(long durationMillis, boolean error, long payloadSize) {
+            calls.increment();
+            if (error) {
+                errors.increment();
+            }
+            totalDuration.add(durationMillis);
+            payloadItems.add(payloadSize);
+            int bucket = 0;
+            while (bucket < BUCKETS.length && durationMillis > BUCKETS[bucket]) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+        }
+
+        CallMetricsSnapshot snapshot(MetricKey key) {
+            long[] histogram = new long[buckets.length()];
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = buckets.get(i);
+            }
+            return new CallMetricsSnapshot(key.service, key.method, key.serverTemplateId, calls.sum(), errors.sum(), totalDuration.sum(), payloadItems.sum(), histogram);
+        }
+    }
+
+    public static class CallMetricsSnapshot {
+
+        private final String service;
+        private final String method;
+        private final String serverTemplateId;
+        private final long calls;
+        private final long errors;
+        private final long totalDuration;
+        private final long payloadItems;
+        private final long[] histogram;
+
+        @ConstructorProperties({"service", "method", "serverTemplateId", "calls", "errors", "totalDuration", "payloadItems", "histogram"})
+        public CallMetricsSnapshot(String service, String method, String serverTemplateId, long calls, long errors, long totalDuration, long payloadItems, long[] histogram) {
+            this.service = service;
+            this.method = method;
+            this.serverTemplateId = serverTemplateId;
+            this.calls = calls;
+            this.errors = errors;
+            this.totalDuration = totalDuration;
+            this.payloadItems = payloadItems;
+            this.histogram = histogram;
+        }
+
+        public String getService() {
+            return service;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getServerTemplateId() {
+            return serverTemplateId;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getTotalDuration() {
+            return totalDuration;
+        }
+
+        public long getPayloadItems() {
+            return payloadItems;
+        }
+
+        /**
+         * Number of calls per latency bucket, see {@link KieServerCallMetrics#BUCKETS}, last one counts slower calls.
+         */
+        public long[] getHistogram() {
+            return histogram;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.kie.server.client.KieServicesClient;
+import org.kie.server.client.balancer.LoadBalancer;
+import org.kie.server.client.impl.AbstractKieServicesClientImpl;
+import org.kie.server.controller.api.model.spec.ContainerSpec;
+import org.kie.server.controller.api.model.spec.ServerTemplate;
+
+/**
+ * Two level registry of kie server clients, server template to its clients and container id to container client.
+ * Clients of a server template are replaced as a whole when the template is updated so readers always see
+ * a consistent set of clients.
+ */
+public class KieServerClientRegistry {
+
+    private final ConcurrentMap<String, ServerTemplateClients> clientsByServerTemplate = new ConcurrentHashMap<String, ServerTemplateClients>();
+
+    public ServerTemplateClients get(String serverTemplateId) {
+        return clientsByServerTemplate.get(serverTemplateId);
+    }
+
+    /**
+     * Registers clients of a server template replacing (atomically) the ones registered before.
+     * @return previously registered clients or null
+     */
+    public ServerTemplateClients put(ServerTemplateClients serverTemplateClients) {
+        return clientsByServerTemplate.put(serverTemplateClients.getServerTemplate().getId(), serverTemplateClients);
+    }
+
+    public ServerTemplateClients remove(String serverTemplateId) {
+        return clientsByServerTemplate.remove(serverTemplateId);
+    }
+
+    public Collection<ServerTemplateClients> getAll() {
+        return Collections.unmodifiableCollection(clientsByServerTemplate.values());
+    }
+
+    /**
+     * Ids of server templates that have a client, meaning at least one server instance is known.
+     */
+    public Set<String> getServerTemplateIds() {
+        return clientsByServerTemplate.values().stream()
+                .filter(clients -> clients.getClient() != null)
+                .map(clients -> clients.getServerTemplate().getId())
+                .collect(Collectors.toSet());
+    }
+
+    protected static LoadBalancer getLoadBalancer(KieServicesClient client) {
+        if (client instanceof AbstractKieServicesClientImpl) {
+            return ((AbstractKieServicesClientImpl) client).getLoadBalancer();
+        }
+        return null;
+    }
+
+    public static class ServerTemplateClients {
+
+        private final ServerTemplate serverTemplate;
+        private final KieServicesClient client;
+        private final KieServicesClient adminClient;
+        private final ConcurrentMap<String, ContainerClient> containerClients = new ConcurrentHashMap<String, ContainerClient>();
+        private final Set<LoadBalancer> loadBalancers = ConcurrentHashMap.newKeySet();
+
+        public ServerTemplateClients(ServerTemplate serverTemplate, KieServicesClient client, KieServicesClient adminClient) {
+            this.serverTemplate = serverTemplate;
+            this.client = client;
+            this.adminClient = adminClient;
+            addLoadBalancer(client);
+            addLoadBalancer(adminClient);
+        }
+
+        public ServerTemplate getServerTemplate() {
+            return serverTemplate;
+        }
+
+        public KieServicesClient getClient() {
+            return client;
+        }
+
+        public KieServicesClient getAdminClient() {
+            return adminClient;
+        }
+
+        public ContainerClient getContainerClient(String containerId) {
+            return containerClients.get(containerId);
+        }
+
+        public Collection<ContainerClient> getContainerClients() {
+            return Collections.unmodifiableCollection(containerClients.values());
+        }
+
+        /**
+         * Adds container client, its load balancer is registered once the client is created which (as container
+         * clients are built lazily) might happen any time later.
+         */
+        public void addContainerClient(ContainerClient containerClient) {
+            containerClients.put(containerClient.getContainerId(), containerClient);
+            containerClient.onCreated(this::addLoadBalancer);
+        }
+
+        public boolean replaceContainerClient(ContainerClient containerClient, ContainerClient replacement) {
+            if (containerClients.replace(containerClient.getContainerId(), containerClient, replacement)) {
+                replacement.onCreated(this::addLoadBalancer);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Distinct load balancers used by clients of this template, clients using the same endpoints share one.
+         */
+        public Set<LoadBalancer> getLoadBalancers() {
+            return Collections.unmodifiableSet(loadBalancers);
+        }
+
+        /**
+         * All clients created for this template - template, admin and ready container clients.
+         */
+        public Set<KieServicesClient> getAllClients() {
+            Set<KieServicesClient> clients = new HashSet<KieServicesClient>();
+            if (client != null) {
+                clients.add(client);
+            }
+            if (adminClient != null) {
+                clients.add(adminClient);
+            }
+            for (ContainerClient containerClient : containerClients.values()) {
+                if (containerClient.getClient() != null) {
+                    clients.add(containerClient.getClient());
+                }
+            }
+            return clients;
+        }
+
+        protected void addLoadBalancer(KieServicesClient client) {
+            LoadBalancer loadBalancer = getLoadBalancer(client);
+            if (loadBalancer != null) {
+                loadBalancers.add(loadBalancer);
+            }
+        }
+    }
+
+    public static class ContainerClient {
+
+        private final ContainerSpec containerSpec;
+        private final String releaseId;
+        private volatile KieServicesClient client;
+        private volatile FutureTask<KieServicesClient> task;
+        private volatile Consumer<KieServicesClient> createdListener;
+
+        public ContainerClient(ContainerSpec containerSpec, String releaseId) {
+            this.containerSpec = containerSpec;
+            this.releaseId = releaseId;
+        }
+
+        public String getContainerId() {
+            return containerSpec.getId();
+        }
+
+        public ContainerSpec getContainerSpec() {
+            return containerSpec;
+        }
+
+        public String getReleaseId() {
+            return releaseId;
+        }
+
+        public KieServicesClient getClient() {
+            return client;
+        }
+
+        public FutureTask<KieServicesClient> getTask() {
+            return task;
+        }
+
+        public void setTask(FutureTask<KieServicesClient> task) {
+            this.task = task;
+        }
+
+        public void created(KieServicesClient client) {
+            this.client = client;
+            this.task = null;
+            Consumer<KieServicesClient> listener = this.createdListener;
+            if (listener != null) {
+                listener.accept(client);
+            }
+        }
+
+        /**
+         * Sets listener notified once the client is created, replacing the previous one as the container client
+         * moves to clients of an updated template. Listener is called right away if the client already exists.
+         */
+        public void onCreated(Consumer<KieServicesClient> listener) {
+            this.createdListener = listener;
+            KieServicesClient client = this.client;
+            if (client != null) {
+                listener.accept(client);
+            }
+        }
+
+        public void cancel() {
+            FutureTask<KieServicesClient> task = this.task;
+            if (task != null) {
+                task.cancel(false);
+            }
+        }
+
+        public boolean isPending() {
+            FutureTask<KieServicesClient> task = this.task;
+            return client == null && task != null && !task.isDone();
+        }
+
+        public boolean isFailed() {
+            FutureTask<KieServicesClient> task = this.task;
+            return client == null && (task == null || task.isDone());
+        }
+    }
+}
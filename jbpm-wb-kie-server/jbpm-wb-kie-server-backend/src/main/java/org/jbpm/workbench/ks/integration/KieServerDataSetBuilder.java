@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.dashbuilder.dataset.ColumnType;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetFactory;
+import org.dashbuilder.dataset.def.DataSetDef;
+import org.dashbuilder.dataset.impl.DataColumnImpl;
+
+/**
+ * Builds data sets out of raw KIE Server query rows in a column oriented way. Column value lists are
+ * pre-sized from the expected row count and rows are written directly into them, so no per cell column
+ * lookup or list growth takes place. Rows can be supplied one by one, thus the complete result does not
+ * need to be materialized upfront.
+ */
+public class KieServerDataSetBuilder {
+
+    private final DataSet dataSet;
+    private final int expectedRows;
+    private final List<List<Object>> columnValues = new ArrayList<>();
+    private int rowCount = 0;
+
+    public KieServerDataSetBuilder(DataSetDef def, int expectedRows) {
+        this.expectedRows = Math.max(expectedRows, 0);
+        this.dataSet = DataSetFactory.newEmptyDataSet();
+        this.dataSet.setUUID(def.getUUID());
+        this.dataSet.setDefinition(def);
+    }
+
+    public KieServerDataSetBuilder column(String columnId, ColumnType columnType) {
+        final DataColumnImpl column = new DataColumnImpl(columnId, columnType);
+        final List<Object> values = new ArrayList<>(expectedRows);
+        dataSet.addColumn(column);
+        column.setValues(values);
+        columnValues.add(values);
+        return this;
+    }
+
+    public KieServerDataSetBuilder row(List<?> row) {
+        final int columns = columnValues.size();
+        final int values = Math.min(row.size(), columns);
+        for (int i = 0; i < values; i++) {
+            columnValues.get(i).add(row.get(i));
+        }
+        // keep columns aligned when row is shorter than expected
+        for (int i = values; i < columns; i++) {
+            columnValues.get(i).add(null);
+        }
+        rowCount++;
+        return this;
+    }
+
+    public KieServerDataSetBuilder rows(Iterator<? extends List<?>> rows) {
+        while (rows.hasNext()) {
+            row(rows.next());
+        }
+        return this;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public DataSet build() {
+        dataSet.setRowCountNonTrimmed(rowCount);
+        return dataSet;
+    }
+}
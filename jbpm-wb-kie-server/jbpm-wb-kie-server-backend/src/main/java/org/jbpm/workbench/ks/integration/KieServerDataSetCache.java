@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.kie.server.controller.api.model.events.ServerInstanceConnected;
+import org.kie.server.controller.api.model.events.ServerTemplateDeleted;
+import org.kie.server.controller.api.model.events.ServerTemplateUpdated;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Short lived, size bounded cache of raw query results returned by KIE Server for data set lookups.
+ * Entries expire after a configurable time to live and are invalidated whenever the workbench is
+ * notified about changes that might affect the results.
+ */
+@ApplicationScoped
+public class KieServerDataSetCache {
+
+    public static final String CACHE_SIZE_PROPERTY = "org.jbpm.workbench.ks.dataset.cache.size";
+    public static final String CACHE_TTL_PROPERTY = "org.jbpm.workbench.ks.dataset.cache.ttl";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KieServerDataSetCache.class);
+
+    private final Cache<DataSetQueryKey, List<List>> cache;
+
+    public KieServerDataSetCache() {
+        this(Long.parseLong(System.getProperty(CACHE_SIZE_PROPERTY, "500")),
+             Long.parseLong(System.getProperty(CACHE_TTL_PROPERTY, "10000")));
+    }
+
+    public KieServerDataSetCache(long maxSize, long ttlMillis) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        LOGGER.debug("Data set result cache created with max size {} and ttl {} ms", maxSize, ttlMillis);
+    }
+
+    public List<List> get(DataSetQueryKey key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(DataSetQueryKey key, List<List> rows) {
+        cache.put(key, rows);
+    }
+
+    public void invalidate(String serverTemplateId) {
+        if (serverTemplateId == null) {
+            invalidateAll();
+            return;
+        }
+        cache.asMap().keySet().removeIf(key -> serverTemplateId.equals(key.getServerTemplateId()));
+        LOGGER.debug("Data set result cache invalidated for server template {}", serverTemplateId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+        LOGGER.debug("Data set result cache invalidated");
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public void onServerTemplateUpdated(@Observes ServerTemplateUpdated serverTemplateUpdated) {
+        invalidate(serverTemplateUpdated.getServerTemplate().getId());
+    }
+
+    public void onServerTemplateDeleted(@Observes ServerTemplateDeleted serverTemplateDeleted) {
+        invalidate(serverTemplateDeleted.getServerTemplateId());
+    }
+
+    public void onServerInstanceConnected(@Observes ServerInstanceConnected serverInstanceConnected) {
+        invalidate(serverInstanceConnected.getServerInstance().getServerTemplateId());
+    }
+}
@@ -16,15 +16,32 @@
 
 package org.jbpm.workbench.ks.integration;
 
-import java.util.Iterator;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Event;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.dashbuilder.dataset.def.DataSetDef;
 import org.dashbuilder.dataset.def.DataSetDefRegistry;
 import org.dashbuilder.dataset.def.SQLDataSetDef;
@@ -42,19 +59,67 @@ import org.uberfire.commons.async.SimpleAsyncExecutorService;
 @ApplicationScoped
 public class KieServerDataSetManager {
 
+    public static final String REGISTRATION_THREADS_PROPERTY = "org.jbpm.workbench.ks.dataset.registration.threads";
+    public static final String REGISTRATION_PARALLELISM_PROPERTY = "org.jbpm.workbench.ks.dataset.registration.parallelism";
+    public static final String REGISTRATION_TIMEOUT_PROPERTY = "org.jbpm.workbench.ks.dataset.registration.timeout";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(KieServerDataSetManager.class);
 
+    private static final long INITIAL_BACKOFF = 500;
+    private static final long MAX_BACKOFF = 15000;
+    private static final int QUERIES_PAGE_SIZE = 100;
+    private static final int MAX_TRACKED_INSTANCES = 1000;
+
     private DataSetDefRegistry dataSetDefRegistry;
 
     private KieServerIntegration kieServerIntegration;
 
     private Event<KieServerDataSetRegistered> event;
 
+    // shared by registrations of all server instances, each registration uses at most parallelism threads
+    private final ExecutorService registrationExecutor;
+    private final int parallelism = Integer.parseInt(System.getProperty(REGISTRATION_PARALLELISM_PROPERTY, "4"));
+    private final long registrationTimeout = Long.parseLong(System.getProperty(REGISTRATION_TIMEOUT_PROPERTY, "300000"));
+
+    private final ConcurrentMap<String, Long> registrationLatencies = new ConcurrentHashMap<String, Long>();
+    // fingerprints of query definitions registered on each server instance, by definition name, as listed by the
+    // server on its last connect plus the ones sent since then
+    private final Cache<String, ConcurrentMap<String, String>> registeredFingerprints = CacheBuilder.newBuilder()
+            .maximumSize(MAX_TRACKED_INSTANCES)
+            .build();
+
     @Inject
     public KieServerDataSetManager(DataSetDefRegistry dataSetDefRegistry, KieServerIntegration kieServerIntegration, Event<KieServerDataSetRegistered> event) {
         this.dataSetDefRegistry = dataSetDefRegistry;
         this.kieServerIntegration = kieServerIntegration;
         this.event = event;
+
+        final AtomicInteger threadCounter = new AtomicInteger();
+        this.registrationExecutor = Executors.newFixedThreadPool(Integer.parseInt(System.getProperty(REGISTRATION_THREADS_PROPERTY, "10")), runnable -> {
+            Thread thread = new Thread(runnable, "kie-server-dataset-registration-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        registrationExecutor.shutdownNow();
+    }
+
+    /**
+     * Fingerprints of query definitions known to be registered on given server instance, by definition name.
+     */
+    public Map<String, String> getRegisteredFingerprints(String serverInstanceId) {
+        Map<String, String> fingerprints = registeredFingerprints.getIfPresent(serverInstanceId);
+        return fingerprints == null ? new HashMap<String, String>() : new HashMap<String, String>(fingerprints);
+    }
+
+    /**
+     * Time (in milliseconds) the last registration of data sets took for each server instance.
+     */
+    public Map<String, Long> getRegistrationLatencies() {
+        return new HashMap<String, Long>(registrationLatencies);
     }
 
     public void registerInKieServer(@Observes final ServerInstanceConnected serverInstanceConnected) {
@@ -88,8 +153,6 @@ public class KieServerDataSetManager {
                                         ).collect(Collectors.toSet());
 
                 registerQueriesWithRetry(serverTemplateId, serverInstanceId, queryDefinitions);
-
-                LOGGER.warn("Timeout while trying to register query definition on '{}'", serverInstanceId);
             } catch (Exception e) {
                 LOGGER.warn("Unable to register query definition on '{}' due to {}", serverInstanceId, e.getMessage(), e);
             }
@@ -97,33 +160,129 @@ public class KieServerDataSetManager {
     }
 
     protected void registerQueriesWithRetry(String serverTemplateId, String serverInstanceId, Set<QueryDefinition> queryDefinitions) throws Exception{
-        long waitLimit = 5 * 60 * 1000;   // default 5 min
-        long elapsed = 0;
+        final long started = System.currentTimeMillis();
+        final long deadline = started + registrationTimeout;
+        long backoff = INITIAL_BACKOFF;
+
+        final Set<QueryDefinition> pending = ConcurrentHashMap.newKeySet();
+        pending.addAll(queryDefinitions);
 
         QueryServicesClient queryClient = kieServerIntegration.getAdminServerClient(serverTemplateId).getServicesClient(QueryServicesClient.class);
+        boolean registeredQueriesChecked = false;
 
-        while (elapsed < waitLimit) {
+        while (true) {
             try {
-                Iterator<QueryDefinition> definitionIt = queryDefinitions.iterator();
-
-                while (definitionIt.hasNext()) {
-                    QueryDefinition definition = definitionIt.next();
-                    queryClient.replaceQuery(definition);
-                    LOGGER.info("Query definition {} (type {}) successfully registered on kie server '{}'", definition.getName(), definition.getTarget(), serverInstanceId);
-                    // remove successfully stored definition to avoid duplicated reads in case of intermediate error
-                    definitionIt.remove();
+                if (!registeredQueriesChecked) {
+                    removeUnchanged(queryClient, serverInstanceId, pending);
+                    registeredQueriesChecked = true;
                 }
+                registerQueries(queryClient, serverInstanceId, pending);
 
-                event.fire(new KieServerDataSetRegistered(serverInstanceId, serverTemplateId));
+                final long latency = System.currentTimeMillis() - started;
+                registrationLatencies.put(serverInstanceId, latency);
+                LOGGER.info("Data sets registered on kie server '{}' in {} ms", serverInstanceId, latency);
+
+                event.fire(new KieServerDataSetRegistered(serverInstanceId, serverTemplateId, latency));
                 return;
             } catch (KieServicesException | KieServerHttpRequestException e) {
                 // unable to register, might still be booting
-                Thread.sleep(500);
-                elapsed += 500;
+                if (System.currentTimeMillis() + backoff > deadline) {
+                    LOGGER.warn("Timeout while trying to register query definition on '{}'", serverInstanceId);
+                    return;
+                }
+                // exponential backoff with jitter to spread retries of instances restarted at once
+                final long wait = backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+                Thread.sleep(wait);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF);
                 // get admin client with forced check of endpoints as they might have been banned (marked as failed)
                 queryClient = kieServerIntegration.getAdminServerClientCheckEndpoints(serverTemplateId).getServicesClient(QueryServicesClient.class);
-                LOGGER.debug("Cannot reach KIE Server, elapsed time while waiting '{}', max time '{}' error {}", elapsed, waitLimit, e.getMessage());
+                LOGGER.debug("Cannot reach KIE Server, elapsed time while waiting '{}', max time '{}' error {}", System.currentTimeMillis() - started, registrationTimeout, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Removes definitions registered on the server with the same content, based on a single listing of queries
+     * known to the server, so only missing or changed definitions are sent. The server is listed on every connect
+     * as it might have lost its definitions (e.g. restarted with an in-memory database).
+     */
+    protected void removeUnchanged(QueryServicesClient queryClient, String serverInstanceId, Set<QueryDefinition> queryDefinitions) {
+        final ConcurrentMap<String, String> fingerprints = new ConcurrentHashMap<String, String>();
+        int page = 0;
+        List<QueryDefinition> registered;
+        do {
+            registered = queryClient.getQueries(page++, QUERIES_PAGE_SIZE);
+            if (registered == null) {
+                break;
+            }
+            registered.forEach(definition -> fingerprints.put(definition.getName(), fingerprint(definition)));
+        } while (registered.size() == QUERIES_PAGE_SIZE);
+        registeredFingerprints.put(serverInstanceId, fingerprints);
+
+        final int total = queryDefinitions.size();
+        queryDefinitions.removeIf(definition -> fingerprint(definition).equals(fingerprints.get(definition.getName())));
+        LOGGER.debug("{} of {} query definitions unchanged on kie server '{}'", total - queryDefinitions.size(), total, serverInstanceId);
+    }
+
+    /**
+     * Sends definitions concurrently, at most parallelism at a time. Successfully stored definitions are removed
+     * from given set to avoid duplicated writes on retry.
+     */
+    protected void registerQueries(QueryServicesClient queryClient, String serverInstanceId, Set<QueryDefinition> queryDefinitions) throws Exception {
+        final Semaphore permits = new Semaphore(parallelism);
+        final List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (QueryDefinition definition : new ArrayList<QueryDefinition>(queryDefinitions)) {
+            permits.acquire();
+            try {
+                futures.add(registrationExecutor.submit(() -> {
+                    try {
+                        queryClient.replaceQuery(definition);
+                        registeredFingerprints.asMap().computeIfAbsent(serverInstanceId, id -> new ConcurrentHashMap<String, String>())
+                                .put(definition.getName(), fingerprint(definition));
+                        LOGGER.info("Query definition {} (type {}) successfully registered on kie server '{}'", definition.getName(), definition.getTarget(), serverInstanceId);
+                        queryDefinitions.remove(definition);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        Exception failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null && e.getCause() instanceof Exception) {
+                    failure = (Exception) e.getCause();
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Content fingerprint of a query definition, covers everything that is sent to the server.
+     */
+    protected static String fingerprint(QueryDefinition definition) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[]{definition.getName(), definition.getExpression(), definition.getSource(), definition.getTarget()}) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            final StringBuilder fingerprint = new StringBuilder();
+            for (byte b : digest.digest()) {
+                fingerprint.append(String.format("%02x", b));
             }
+            return fingerprint.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
         }
     }
 
@@ -19,15 +19,22 @@ package org.jbpm.workbench.ks.integration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 
+import com.google.common.collect.Iterators;
 import org.dashbuilder.dataprovider.DataSetProvider;
 import org.dashbuilder.dataprovider.DataSetProviderType;
 import org.dashbuilder.dataset.ColumnType;
 import org.dashbuilder.dataset.DataColumn;
 import org.dashbuilder.dataset.DataSet;
-import org.dashbuilder.dataset.DataSetFactory;
 import org.dashbuilder.dataset.DataSetLookup;
 import org.dashbuilder.dataset.DataSetMetadata;
 import org.dashbuilder.dataset.def.DataColumnDef;
@@ -37,6 +44,7 @@ import org.dashbuilder.dataset.filter.CoreFunctionFilter;
 import org.dashbuilder.dataset.filter.DataSetFilter;
 import org.dashbuilder.dataset.filter.FilterFactory;
 import org.dashbuilder.dataset.filter.LogicalExprFilter;
+import org.dashbuilder.dataset.group.AggregateFunctionType;
 import org.dashbuilder.dataset.group.ColumnGroup;
 import org.dashbuilder.dataset.group.DataSetGroup;
 import org.dashbuilder.dataset.group.GroupFunction;
@@ -60,6 +68,30 @@ public class KieServerDataSetProvider extends AbstractKieServerService implement
 
     public static final DataSetProviderType TYPE = new KieServerDataSetProviderType();
 
+    public static final String ROW_COUNT_PROPERTY = "org.jbpm.workbench.ks.dataset.rowCount";
+
+    public static final String FAN_OUT_TIMEOUT_PROPERTY = "org.jbpm.workbench.ks.dataset.fanout.timeout";
+
+    /**
+     * Column added to data sets looked up on all server templates holding id of the server template of each row.
+     */
+    public static final String SERVER_TEMPLATE_COLUMN = "serverTemplateId";
+
+    protected static final String COUNT_COLUMN = "rowCount";
+
+    private long fanOutTimeout = Long.parseLong(System.getProperty(FAN_OUT_TIMEOUT_PROPERTY, "10000"));
+
+    private boolean rowCountEnabled = Boolean.parseBoolean(System.getProperty(ROW_COUNT_PROPERTY, "false"));
+
+    @Inject
+    private KieServerDataSetCache dataSetCache;
+
+    @Inject
+    private DataSetQueryCoalescer queryCoalescer;
+
+    @Inject
+    private KieServerParallelExecutor parallelExecutor;
+
     @Override
     public DataSetProviderType getType() {
         return TYPE;
@@ -86,29 +118,21 @@ public class KieServerDataSetProvider extends AbstractKieServerService implement
         }
         ConsoleDataSetLookup dataSetLookup = (ConsoleDataSetLookup) lookup;
         LOGGER.debug("Data Set lookup using Server Template Id: {}", dataSetLookup.getServerTemplateId());
-        if (dataSetLookup.getServerTemplateId() == null || dataSetLookup.getServerTemplateId().isEmpty()) {
+        if (!dataSetLookup.isAllServerTemplates() && (dataSetLookup.getServerTemplateId() == null || dataSetLookup.getServerTemplateId().isEmpty())) {
             return buildDataSet(def, new ArrayList<>(), new ArrayList<>());
         }
 
-        final QueryServicesClient queryClient = getClient(dataSetLookup.getServerTemplateId(), QueryServicesClient.class);
-
         List<QueryParam> filterParams = new ArrayList<>();
-        QueryFilterSpec filterSpec = new QueryFilterSpec();
+        final QueryFilterSpec filterSpec = new QueryFilterSpec();
         // apply filtering
 
         for (DataSetFilter filter : dataSetLookup.getOperationList(DataSetFilter.class)) {
             if (filter != null) {
 
                 for (ColumnFilter cFilter : filter.getColumnFilterList()) {
-                    if (cFilter instanceof CoreFunctionFilter) {
-
-                        CoreFunctionFilter coreFunctionFilter = (CoreFunctionFilter) cFilter;
-
-                        filterParams.add(new QueryParam(coreFunctionFilter.getColumnId(), coreFunctionFilter.getType().toString(), coreFunctionFilter.getParameters()));
-                    } else if (cFilter instanceof LogicalExprFilter) {
-                        LogicalExprFilter logicalExprFilter = (LogicalExprFilter) cFilter;
-                        filterParams.add(new QueryParam(logicalExprFilter.getColumnId(), logicalExprFilter.getLogicalOperator().toString(), logicalExprFilter.getLogicalTerms()));
-
+                    QueryParam queryParam = toQueryParam(cFilter);
+                    if (queryParam != null) {
+                        filterParams.add(queryParam);
                     }
                 }
             }
@@ -162,24 +186,312 @@ public class KieServerDataSetProvider extends AbstractKieServerService implement
             filterSpec.setOrderBy(orderBy.toString());
             filterSpec.setAscending(sortOrder.equals(SortOrder.ASCENDING));
         }
-        List<List> instances = null;
+        if (dataSetLookup.isAllServerTemplates()) {
+            return lookupAllServerTemplates(def, dataSetLookup, filterSpec, filterParams, extraColumns, rowCountEnabled && dataSetGroup == null);
+        }
+
+        final QueryServicesClient queryClient = getClient(dataSetLookup.getServerTemplateId(), QueryServicesClient.class);
+
+        final List<List> instances;
+        final int firstRow;
+        if (dataSetLookup.isKeysetPaging() && sort != null && dataSetGroup == null && sort.getColumnSortList().size() == 1) {
+            final QueryFilterSpec seekSpec = buildKeysetFilterSpec(dataSetLookup, filterParams, sort.getColumnSortList().get(0));
+            instances = performQuery(queryClient, newQueryKey(dataSetLookup.getServerTemplateId(), dataSetLookup.getDataSetUUID(), seekSpec, 0, dataSetLookup.getNumberOfRows()), seekSpec);
+            // position of the page is not known when seeking by key
+            firstRow = -1;
+        } else {
+            instances = fetchRows(queryClient, dataSetLookup, filterSpec);
+            firstRow = dataSetLookup.getRowOffset();
+        }
+        LOGGER.debug("Query client returned {} row(s)", instances.size());
+
+        DataSet dataSet = buildDataSet(def, instances, extraColumns);
+        if (rowCountEnabled && dataSetGroup == null) {
+            dataSet.setRowCountNonTrimmed(countRows(def, queryClient, dataSetLookup, filterParams, firstRow, instances.size()));
+        }
+        return dataSet;
+    }
+
+    /**
+     * Executes the lookup on every server template in parallel and merges the results on the sort columns.
+     * Each template is asked for all rows up to the end of the requested page, templates that do not respond
+     * within the fan out timeout are left out. Every row is tagged with the server template it comes from.
+     * The total row count is the sum of the row counts of the templates, exact when row count is enabled,
+     * otherwise templates that returned a full slice count as having at least one more row.
+     */
+    protected DataSet lookupAllServerTemplates(DataSetDef def, ConsoleDataSetLookup dataSetLookup, QueryFilterSpec filterSpec, List<QueryParam> filterParams,
+                                               List<DataColumn> extraColumns, boolean countRows) throws Exception {
+        final int rowOffset = Math.max(dataSetLookup.getRowOffset(), 0);
+        final int pageSize = dataSetLookup.getNumberOfRows();
+        final int rowsPerTemplate = pageSize > 0 ? rowOffset + pageSize : pageSize;
+        final List<String> serverTemplateIds = new ArrayList<>(getServerTemplateIds());
+        // row counts of the templates, only read for queries that completed
+        final int[] templateRowCounts = new int[serverTemplateIds.size()];
+
+        final List<Callable<List<List>>> queries = new ArrayList<>();
+        for (int index = 0; index < serverTemplateIds.size(); index++) {
+            final int templateIndex = index;
+            final String serverTemplateId = serverTemplateIds.get(index);
+            queries.add(() -> {
+                final QueryServicesClient queryClient = getClient(serverTemplateId, QueryServicesClient.class);
+                final List<List> rows = performQuery(queryClient, newQueryKey(serverTemplateId, dataSetLookup.getDataSetUUID(), filterSpec, 0, rowsPerTemplate), filterSpec);
+                if (countRows) {
+                    templateRowCounts[templateIndex] = countRows(def, queryClient, serverTemplateId, dataSetLookup.getDataSetUUID(), filterParams, rowsPerTemplate, 0, rows.size());
+                } else {
+                    templateRowCounts[templateIndex] = rowsPerTemplate > 0 && rows.size() >= rowsPerTemplate ? rows.size() + 1 : rows.size();
+                }
+                final List<List> taggedRows = new ArrayList<>(rows.size());
+                for (List row : rows) {
+                    List taggedRow = new ArrayList(row);
+                    taggedRow.add(serverTemplateId);
+                    taggedRows.add(taggedRow);
+                }
+                return taggedRows;
+            });
+        }
+
+        final List<Future<List<List>>> results = parallelExecutor.invokeAll(queries, fanOutTimeout);
+        final List<List<List>> templateRows = new ArrayList<>();
+        int rowCount = 0;
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                templateRows.add(results.get(i).get());
+                rowCount += templateRowCounts[i];
+            } catch (CancellationException e) {
+                LOGGER.warn("Query {} on server template {} did not complete within {} ms", dataSetLookup.getDataSetUUID(), serverTemplateIds.get(i), fanOutTimeout);
+            } catch (ExecutionException e) {
+                LOGGER.warn("Encountered {} while fetching query {} from server template {}", e.getCause().getMessage(), dataSetLookup.getDataSetUUID(), serverTemplateIds.get(i));
+            }
+        }
+
+        final List<String> columnIds = new ArrayList<>();
+        if (extraColumns != null && !extraColumns.isEmpty()) {
+            extraColumns.forEach(column -> columnIds.add(column.getId()));
+        } else {
+            def.getColumns().forEach(column -> columnIds.add(column.getId()));
+        }
+
+        final Comparator<List> comparator = rowComparator(dataSetLookup.getFirstSortOp(), columnIds);
+        final List<List> merged = mergeRows(templateRows, comparator, rowsPerTemplate);
+        final List<List> page = pageSize > 0 ?
+                merged.subList(Math.min(rowOffset, merged.size()), Math.min(rowOffset + pageSize, merged.size())) :
+                merged;
+
+        final KieServerDataSetBuilder builder = new KieServerDataSetBuilder(def, page.size());
+        if (extraColumns != null && !extraColumns.isEmpty()) {
+            extraColumns.forEach(column -> builder.column(column.getId(), column.getColumnType()));
+        } else {
+            def.getColumns().forEach(column -> builder.column(column.getId(), column.getColumnType()));
+        }
+        builder.column(SERVER_TEMPLATE_COLUMN, ColumnType.LABEL);
+
+        final DataSet dataSet = builder.rows((Iterator) page.iterator()).build();
+        dataSet.setRowCountNonTrimmed(rowCount);
+        return dataSet;
+    }
+
+    protected Comparator<List> rowComparator(DataSetSort sort, List<String> columnIds) {
+        if (sort == null || sort.getColumnSortList().isEmpty()) {
+            return null;
+        }
+        Comparator<List> comparator = null;
+        SortOrder sortOrder = SortOrder.UNSPECIFIED;
+        for (ColumnSort columnSort : sort.getColumnSortList()) {
+            final int index = columnIds.indexOf(columnSort.getColumnId());
+            if (index < 0) {
+                continue;
+            }
+            final Comparator<List> columnComparator = (row1, row2) -> compareValues(row1.get(index), row2.get(index));
+            comparator = comparator == null ? columnComparator : comparator.thenComparing(columnComparator);
+            // same as for the remote query, last sort column order applies to all columns
+            sortOrder = columnSort.getOrder();
+        }
+        if (comparator != null && !sortOrder.equals(SortOrder.ASCENDING)) {
+            comparator = comparator.reversed();
+        }
+        return comparator;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected static int compareValues(Object value1, Object value2) {
+        if (value1 == value2) {
+            return 0;
+        }
+        if (value1 == null) {
+            return -1;
+        }
+        if (value2 == null) {
+            return 1;
+        }
+        return ((Comparable) value1).compareTo(value2);
+    }
+
+    /**
+     * K-way merge of row lists that are already sorted with given comparator. Rows are concatenated when there is
+     * no comparator. At most limit rows are returned unless limit is not positive.
+     */
+    protected static List<List> mergeRows(List<List<List>> sources, Comparator<List> comparator, int limit) {
+        final List<List> merged = new ArrayList<>();
+        if (comparator == null) {
+            sources.forEach(merged::addAll);
+        } else {
+            final List<Iterator<List>> iterators = new ArrayList<>(sources.size());
+            sources.forEach(source -> iterators.add(source.iterator()));
+            final Iterator<List> mergedIterator = Iterators.mergeSorted(iterators, comparator);
+            while (mergedIterator.hasNext() && (limit <= 0 || merged.size() < limit)) {
+                merged.add(mergedIterator.next());
+            }
+        }
+        return limit > 0 && merged.size() > limit ? merged.subList(0, limit) : merged;
+    }
+
+    /**
+     * Fetches rows starting at the lookup row offset. KIE Server pages by page number thus when the offset is not
+     * aligned to the page size the two pages covering the requested rows are fetched and sliced.
+     */
+    protected List<List> fetchRows(QueryServicesClient queryClient, ConsoleDataSetLookup dataSetLookup, QueryFilterSpec filterSpec) {
+        final int rowOffset = dataSetLookup.getRowOffset();
+        final int pageSize = dataSetLookup.getNumberOfRows();
+        if (pageSize <= 0 || rowOffset % pageSize == 0) {
+            final int page = pageSize > 0 ? rowOffset / pageSize : 0;
+            return performQuery(queryClient, newQueryKey(dataSetLookup.getServerTemplateId(), dataSetLookup.getDataSetUUID(), filterSpec, page, pageSize), filterSpec);
+        }
+
+        final int page = rowOffset / pageSize;
+        final int skip = rowOffset - page * pageSize;
+        final List<List> first = performQuery(queryClient, newQueryKey(dataSetLookup.getServerTemplateId(), dataSetLookup.getDataSetUUID(), filterSpec, page, pageSize), filterSpec);
+        if (first.size() <= skip) {
+            return Collections.emptyList();
+        }
+        final List<List> rows = new ArrayList<>(pageSize);
+        rows.addAll(first.subList(skip, first.size()));
+        if (first.size() == pageSize) {
+            final List<List> second = performQuery(queryClient, newQueryKey(dataSetLookup.getServerTemplateId(), dataSetLookup.getDataSetUUID(), filterSpec, page + 1, pageSize), filterSpec);
+            rows.addAll(second.subList(0, Math.min(skip, second.size())));
+        }
+        return rows;
+    }
+
+    /**
+     * Builds filter spec that seeks to the rows following the last sort key (and tie breaker) of the previous page.
+     */
+    protected QueryFilterSpec buildKeysetFilterSpec(ConsoleDataSetLookup dataSetLookup, List<QueryParam> filterParams, ColumnSort columnSort) {
+        final String sortColumnId = columnSort.getColumnId();
+        final boolean ascending = columnSort.getOrder().equals(SortOrder.ASCENDING);
+        final Comparable lastSortValue = dataSetLookup.getLastSortValue();
+        final String tieBreakerColumnId = dataSetLookup.getTieBreakerColumnId();
+
+        ColumnFilter seekFilter = ascending ? FilterFactory.greaterThan(sortColumnId, lastSortValue) : FilterFactory.lowerThan(sortColumnId, lastSortValue);
+        String orderBy = sortColumnId;
+        if (tieBreakerColumnId != null && !tieBreakerColumnId.equals(sortColumnId) && dataSetLookup.getLastTieBreakerValue() != null) {
+            final Comparable lastTieBreakerValue = dataSetLookup.getLastTieBreakerValue();
+            ColumnFilter tieFilter = ascending ? FilterFactory.greaterThan(tieBreakerColumnId, lastTieBreakerValue) : FilterFactory.lowerThan(tieBreakerColumnId, lastTieBreakerValue);
+            seekFilter = FilterFactory.OR(seekFilter, FilterFactory.AND(FilterFactory.equalsTo(sortColumnId, lastSortValue), tieFilter));
+            orderBy = sortColumnId + "," + tieBreakerColumnId;
+        }
+
+        List<QueryParam> seekParams = new ArrayList<>(filterParams);
+        seekParams.add(toQueryParam(seekFilter));
+
+        QueryFilterSpec seekSpec = new QueryFilterSpec();
+        seekSpec.setParameters(seekParams.toArray(new QueryParam[seekParams.size()]));
+        seekSpec.setOrderBy(orderBy);
+        seekSpec.setAscending(ascending);
+        return seekSpec;
+    }
+
+    protected QueryParam toQueryParam(ColumnFilter columnFilter) {
+        if (columnFilter instanceof CoreFunctionFilter) {
+
+            CoreFunctionFilter coreFunctionFilter = (CoreFunctionFilter) columnFilter;
+
+            return new QueryParam(coreFunctionFilter.getColumnId(), coreFunctionFilter.getType().toString(), coreFunctionFilter.getParameters());
+        } else if (columnFilter instanceof LogicalExprFilter) {
+            LogicalExprFilter logicalExprFilter = (LogicalExprFilter) columnFilter;
+            return new QueryParam(logicalExprFilter.getColumnId(), logicalExprFilter.getLogicalOperator().toString(), logicalExprFilter.getLogicalTerms());
+        }
+        return null;
+    }
+
+    /**
+     * Key of a query made on behalf of the calling user, must be created on the thread making the call.
+     */
+    protected DataSetQueryKey newQueryKey(String serverTemplateId, String dataSetUUID, QueryFilterSpec filterSpec, int page, int pageSize) {
+        return new DataSetQueryKey(serverTemplateId, parallelExecutor.currentIdentity(), dataSetUUID, filterSpec, page, pageSize);
+    }
+
+    protected List<List> performQuery(QueryServicesClient queryClient, DataSetQueryKey queryKey, QueryFilterSpec filterSpec) {
+        List<List> instances = dataSetCache.get(queryKey);
+        if (instances != null) {
+            LOGGER.debug("Query result for {} served from cache with {} row(s)", queryKey, instances.size());
+            return instances;
+        }
+
         try {
-            instances = queryClient.query(
-                    dataSetLookup.getDataSetUUID(),
-                    QueryServicesClient.QUERY_MAP_RAW,
-                    filterSpec,
-                    dataSetLookup.getRowOffset() / dataSetLookup.getNumberOfRows(),
-                    dataSetLookup.getNumberOfRows(),
-                    List.class
-            );
-        } catch (KieServerHttpRequestException e) {
+            return queryCoalescer.execute(queryKey, () -> {
+                // identifies the data set in slow call log
+                final String previousContext = KieServerCallMetrics.setCallContext("data set " + queryKey.getDataSetUUID());
+                try {
+                    List<List> rows = queryClient.query(
+                            queryKey.getDataSetUUID(),
+                            QueryServicesClient.QUERY_MAP_RAW,
+                            filterSpec,
+                            queryKey.getPage(),
+                            queryKey.getPageSize(),
+                            List.class
+                    );
+                    dataSetCache.put(queryKey, rows);
+                    return rows;
+                } finally {
+                    KieServerCallMetrics.setCallContext(previousContext);
+                }
+            });
+        } catch (KieServerHttpRequestException | KieServerUnavailableException e) {
             // in case on any exception return empty data set and log error
-            LOGGER.warn("Encountered {} while fetching query for {}", e.getMessage(), dataSetLookup.getDataSetUUID());
-            instances = Collections.emptyList();
+            LOGGER.warn("Encountered {} while fetching query for {}", e.getMessage(), queryKey.getDataSetUUID());
+            return Collections.emptyList();
         }
-        LOGGER.debug("Query client returned {} row(s)", instances.size());
+    }
 
-        return buildDataSet(def, instances, extraColumns);
+    /**
+     * Calculates total number of rows matching the lookup filters. When the returned page is the last one the total is
+     * derived from it, otherwise a (cached) count query is issued to KIE Server. First row is -1 when the position of
+     * the page is not known, e.g. for keyset paging.
+     */
+    protected int countRows(DataSetDef def, QueryServicesClient queryClient, ConsoleDataSetLookup dataSetLookup, List<QueryParam> filterParams, int firstRow, int pageRows) {
+        return countRows(def, queryClient, dataSetLookup.getServerTemplateId(), dataSetLookup.getDataSetUUID(), filterParams, dataSetLookup.getNumberOfRows(), firstRow, pageRows);
+    }
+
+    protected int countRows(DataSetDef def, QueryServicesClient queryClient, String serverTemplateId, String dataSetUUID, List<QueryParam> filterParams,
+                            int pageSize, int firstRow, int pageRows) {
+        final int pageStart = Math.max(firstRow, 0);
+        if (firstRow >= 0 && (pageSize <= 0 || (pageRows < pageSize && (pageRows > 0 || firstRow == 0)))) {
+            return pageStart + pageRows;
+        }
+        if (def.getColumns() == null || def.getColumns().isEmpty()) {
+            return pageStart + pageRows;
+        }
+
+        List<QueryParam> countParams = new ArrayList<>(filterParams);
+        countParams.add(new QueryParam(def.getColumns().get(0).getId(), AggregateFunctionType.COUNT.toString(), Arrays.asList(COUNT_COLUMN)));
+        QueryFilterSpec countSpec = new QueryFilterSpec();
+        countSpec.setParameters(countParams.toArray(new QueryParam[countParams.size()]));
+
+        final DataSetQueryKey countKey = newQueryKey(serverTemplateId, dataSetUUID, countSpec, 0, 1);
+        List<List> result = performQuery(queryClient, countKey, countSpec);
+        if (!result.isEmpty() && !result.get(0).isEmpty() && result.get(0).get(0) instanceof Number) {
+            return ((Number) result.get(0).get(0)).intValue();
+        }
+        LOGGER.debug("Unable to count rows for {}, falling back to page size", countKey);
+        return pageStart + pageRows;
+    }
+
+    public boolean isRowCountEnabled() {
+        return rowCountEnabled;
+    }
+
+    public void setRowCountEnabled(boolean rowCountEnabled) {
+        this.rowCountEnabled = rowCountEnabled;
     }
 
     @Override
@@ -188,37 +500,25 @@ public class KieServerDataSetProvider extends AbstractKieServerService implement
     }
 
     protected DataSet buildDataSet(DataSetDef def, List<List> instances, List<DataColumn> extraColumns) throws Exception {
-        DataSet dataSet = DataSetFactory.newEmptyDataSet();
-        dataSet.setUUID(def.getUUID());
-        dataSet.setDefinition(def);
+        return buildDataSet(def, (Iterator) instances.iterator(), instances.size(), extraColumns);
+    }
+
+    protected DataSet buildDataSet(DataSetDef def, Iterator<? extends List<?>> rows, int expectedRows, List<DataColumn> extraColumns) throws Exception {
+        KieServerDataSetBuilder builder = new KieServerDataSetBuilder(def, expectedRows);
 
         if (extraColumns != null && !extraColumns.isEmpty()) {
 
             for (DataColumn extraColumn : extraColumns) {
-                dataSet.addColumn(extraColumn);
+                builder.column(extraColumn.getId(), extraColumn.getColumnType());
             }
         } else {
 
             for (DataColumnDef column : def.getColumns()) {
-                DataColumn numRows = new DataColumnImpl(column.getId(), column.getColumnType());
-                dataSet.addColumn(numRows);
+                builder.column(column.getId(), column.getColumnType());
             }
         }
 
-        for(List<Object> row : instances ) {
-
-            int columnIndex = 0;
-            for (Object value : row) {
-                DataColumn intervalBuilder = dataSet.getColumnByIndex(columnIndex);
-                intervalBuilder.getValues().add(value);
-
-                columnIndex++;
-            }
-        }
-        // set size of the results to allow paging to be more then the actual size
-//        dataSet.setRowCountNonTrimmed(instances.size() == 0 ? 0 : instances.size() + 1);
-        dataSet.setRowCountNonTrimmed(instances.size());
-        return dataSet;
+        return builder.rows(rows).build();
     }
 
     protected void appendIntervalSelection(DataSetGroup intervalSel, List<QueryParam> filterParams) {
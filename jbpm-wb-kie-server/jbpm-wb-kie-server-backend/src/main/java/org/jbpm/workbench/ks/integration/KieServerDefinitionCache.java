@@ -0,0 +1,187 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.kie.server.controller.api.model.events.ServerTemplateDeleted;
+import org.kie.server.controller.api.model.events.ServerTemplateUpdated;
+import org.kie.server.controller.api.model.spec.ContainerSpec;
+import org.kie.server.controller.api.model.spec.ServerTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of process definition data (process, user task and variable definitions) fetched from KIE Server, keyed by
+ * server template, container and process id. Definitions deployed in a container never change for the given
+ * container version so entries are only dropped when the container is redeployed, upgraded or removed, as
+ * reported by server template update events.
+ */
+@ApplicationScoped
+public class KieServerDefinitionCache {
+
+    public static final String CACHE_SIZE_PROPERTY = "org.jbpm.workbench.ks.definition.cache.size";
+    public static final String CACHE_TTL_PROPERTY = "org.jbpm.workbench.ks.definition.cache.ttl";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KieServerDefinitionCache.class);
+
+    private final Cache<DefinitionKey, Object> cache;
+
+    // container id to release id and status of every known server template
+    private final ConcurrentMap<String, Map<String, String>> containersByServerTemplate = new ConcurrentHashMap<String, Map<String, String>>();
+
+    public KieServerDefinitionCache() {
+        this(Long.parseLong(System.getProperty(CACHE_SIZE_PROPERTY, "1000")),
+             Long.parseLong(System.getProperty(CACHE_TTL_PROPERTY, "86400000")));
+    }
+
+    public KieServerDefinitionCache(long maxSize, long ttlMillis) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        LOGGER.debug("Definition cache created with max size {} and ttl {} ms", maxSize, ttlMillis);
+    }
+
+    /**
+     * Returns given definition of a process, loading it when not cached. Definition names distinguish the different
+     * kinds of definitions of the same process, null results are not cached.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String serverTemplateId, String containerId, String processId, String definition, Callable<T> loader) {
+        final DefinitionKey key = new DefinitionKey(serverTemplateId, containerId, processId, definition);
+        T value = (T) cache.getIfPresent(key);
+        if (value == null) {
+            try {
+                value = loader.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            if (value != null) {
+                cache.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public void invalidate(String serverTemplateId, String containerId) {
+        cache.asMap().keySet().removeIf(key -> Objects.equals(serverTemplateId, key.serverTemplateId) && Objects.equals(containerId, key.containerId));
+        LOGGER.debug("Definition cache invalidated for container {} of server template {}", containerId, serverTemplateId);
+    }
+
+    public void invalidate(String serverTemplateId) {
+        cache.asMap().keySet().removeIf(key -> Objects.equals(serverTemplateId, key.serverTemplateId));
+        LOGGER.debug("Definition cache invalidated for server template {}", serverTemplateId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    public void onServerTemplateUpdated(@Observes ServerTemplateUpdated serverTemplateUpdated) {
+        final ServerTemplate serverTemplate = serverTemplateUpdated.getServerTemplate();
+        final Map<String, String> containers = new HashMap<String, String>();
+        if (serverTemplate.getContainersSpec() != null) {
+            for (ContainerSpec containerSpec : serverTemplate.getContainersSpec()) {
+                containers.put(containerSpec.getId(), toState(containerSpec));
+            }
+        }
+
+        final Map<String, String> previous = containersByServerTemplate.put(serverTemplate.getId(), containers);
+        if (previous == null) {
+            // state of the containers definitions were loaded for is not known
+            invalidate(serverTemplate.getId());
+            return;
+        }
+        for (Map.Entry<String, String> container : previous.entrySet()) {
+            if (!container.getValue().equals(containers.get(container.getKey()))) {
+                invalidate(serverTemplate.getId(), container.getKey());
+            }
+        }
+    }
+
+    public void onServerTemplateDeleted(@Observes ServerTemplateDeleted serverTemplateDeleted) {
+        containersByServerTemplate.remove(serverTemplateDeleted.getServerTemplateId());
+        invalidate(serverTemplateDeleted.getServerTemplateId());
+    }
+
+    /**
+     * Release id and status of a container, any change means the container was redeployed or undeployed.
+     */
+    protected static String toState(ContainerSpec containerSpec) {
+        final String releaseId = containerSpec.getReleasedId() == null ? "" : KieContainerCache.toKey(containerSpec.getReleasedId());
+        return releaseId + "|" + containerSpec.getStatus();
+    }
+
+    protected static class DefinitionKey {
+
+        private final String serverTemplateId;
+        private final String containerId;
+        private final String processId;
+        private final String definition;
+
+        DefinitionKey(String serverTemplateId, String containerId, String processId, String definition) {
+            this.serverTemplateId = serverTemplateId;
+            this.containerId = containerId;
+            this.processId = processId;
+            this.definition = definition;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            DefinitionKey that = (DefinitionKey) o;
+
+            return Objects.equals(serverTemplateId, that.serverTemplateId) &&
+                    Objects.equals(containerId, that.containerId) &&
+                    Objects.equals(processId, that.processId) &&
+                    Objects.equals(definition, that.definition);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(serverTemplateId, containerId, processId, definition);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.kie.server.client.CredentialsProvider;
+import org.kie.server.client.balancer.LoadBalancer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically probes every KIE Server instance url known to the load balancers and keeps rolling latency
+ * percentiles and error rate of each of them. Instances failing the probes are taken out of their load balancer
+ * and put back once they respond again, the collected latencies drive {@link LatencyAwareBalancerStrategy}.
+ */
+public class KieServerHealthMonitor {
+
+    public static final String INTERVAL_PROPERTY = "org.jbpm.workbench.ks.health.interval";
+    public static final String TIMEOUT_PROPERTY = "org.jbpm.workbench.ks.health.timeout";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KieServerHealthMonitor.class);
+
+    private static final int WINDOW = 100;
+    private static final double ERROR_RATE_THRESHOLD = 0.5;
+
+    private final ConcurrentMap<String, EndpointHealth> healthByUrl = new ConcurrentHashMap<String, EndpointHealth>();
+    private final CredentialsProvider credentialsProvider;
+    private final int timeout;
+
+    private ScheduledExecutorService scheduler;
+
+    public KieServerHealthMonitor(CredentialsProvider credentialsProvider) {
+        this(credentialsProvider, Integer.parseInt(System.getProperty(TIMEOUT_PROPERTY, "5000")));
+    }
+
+    public KieServerHealthMonitor(CredentialsProvider credentialsProvider, int timeout) {
+        this.credentialsProvider = credentialsProvider;
+        this.timeout = timeout;
+    }
+
+    public static long getInterval() {
+        return Long.parseLong(System.getProperty(INTERVAL_PROPERTY, "10000"));
+    }
+
+    /**
+     * Starts probing of all instances of given load balancers, keyed by their endpoints ('|' separated urls).
+     */
+    public void start(Supplier<Map<String, LoadBalancer>> loadBalancers, long interval) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kie-server-health-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                probeAll(loadBalancers.get());
+            } catch (Exception e) {
+                LOGGER.warn("Unexpected error while probing kie servers due to {}", e.getMessage(), e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        LOGGER.debug("Kie server health monitor started with interval {} ms", interval);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public void probeAll(Map<String, LoadBalancer> loadBalancers) {
+        final Set<String> probed = new HashSet<String>();
+        for (Map.Entry<String, LoadBalancer> entry : loadBalancers.entrySet()) {
+            final List<String> urls = Arrays.asList(entry.getKey().split("\\|"));
+            for (String url : urls) {
+                if (probed.add(url)) {
+                    probeAndRecord(url);
+                }
+            }
+            applyHealth(entry.getValue(), urls);
+        }
+        // forget instances no longer used by any template
+        healthByUrl.keySet().retainAll(probed);
+    }
+
+    protected void probeAndRecord(String url) {
+        final long start = System.nanoTime();
+        boolean error = false;
+        try {
+            probe(url);
+        } catch (Exception e) {
+            error = true;
+            LOGGER.debug("Kie server {} failed health probe due to {}", url, e.getMessage());
+        }
+        record(url, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), error);
+    }
+
+    /**
+     * Requests server info of given instance, any response other than server error means the instance is up.
+     */
+    protected void probe(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setConnectTimeout(timeout);
+            connection.setReadTimeout(timeout);
+            connection.setRequestProperty("Accept", "application/json");
+            if (credentialsProvider != null) {
+                connection.setRequestProperty(credentialsProvider.getHeaderName(), credentialsProvider.getAuthorization());
+            }
+            final int status = connection.getResponseCode();
+            final InputStream stream = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (stream != null) {
+                // drain response so the connection can be reused
+                final byte[] buffer = new byte[1024];
+                while (stream.read(buffer) != -1) {
+                    // discard
+                }
+                stream.close();
+            }
+            if (status >= 500) {
+                throw new IOException("Unexpected response status " + status);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Takes failing instances out of the load balancer (keeping at least one) and activates recovered ones.
+     */
+    protected void applyHealth(LoadBalancer loadBalancer, List<String> urls) {
+        for (String url : urls) {
+            EndpointHealth health = healthByUrl.get(url);
+            if (health == null) {
+                continue;
+            }
+            if (health.isHealthy()) {
+                if (loadBalancer.getFailedEndpoints().contains(url)) {
+                    loadBalancer.activate(url);
+                    LOGGER.debug("Kie server {} responds to health probes, activated", url);
+                }
+            } else if (loadBalancer.getAvailableEndpoints().contains(url) && loadBalancer.getAvailableEndpoints().size() > 1) {
+                loadBalancer.markAsFailed(url);
+                LOGGER.debug("Kie server {} fails health probes, marked as failed", url);
+            }
+        }
+    }
+
+    public void record(String url, long latency, boolean error) {
+        healthByUrl.computeIfAbsent(url, key -> new EndpointHealth()).record(latency, error);
+    }
+
+    public EndpointHealth getHealth(String url) {
+        return healthByUrl.get(url);
+    }
+
+    public Map<String, EndpointHealth> getHealth() {
+        return new HashMap<String, EndpointHealth>(healthByUrl);
+    }
+
+    /**
+     * Rolling statistics of the last probes of a single instance.
+     */
+    public static class EndpointHealth {
+
+        private final long[] latencies = new long[WINDOW];
+        private final boolean[] errors = new boolean[WINDOW];
+        private int next;
+        private int count;
+
+        private volatile long p50;
+        private volatile long p99;
+        private volatile double errorRate;
+        private volatile boolean lastSucceeded;
+
+        synchronized void record(long latency, boolean error) {
+            latencies[next] = latency;
+            errors[next] = error;
+            next = (next + 1) % WINDOW;
+            count = Math.min(count + 1, WINDOW);
+
+            final long[] successful = new long[count];
+            int successes = 0;
+            for (int i = 0; i < count; i++) {
+                if (!errors[i]) {
+                    successful[successes++] = latencies[i];
+                }
+            }
+            Arrays.sort(successful, 0, successes);
+            p50 = successes == 0 ? 0 : successful[percentileIndex(successes, 0.5)];
+            p99 = successes == 0 ? 0 : successful[percentileIndex(successes, 0.99)];
+            errorRate = (double) (count - successes) / count;
+            lastSucceeded = !error;
+        }
+
+        private static int percentileIndex(int size, double percentile) {
+            return Math.min(size - 1, (int) Math.ceil(percentile * size) - 1);
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        public boolean isHealthy() {
+            return lastSucceeded && errorRate < ERROR_RATE_THRESHOLD;
+        }
+
+        @Override
+        public String toString() {
+            return "EndpointHealth{" +
+                    "p50=" + p50 +
+                    ", p99=" + p99 +
+                    ", errorRate=" + errorRate +
+                    ", healthy=" + isHealthy() +
+                    '}';
+        }
+    }
+}
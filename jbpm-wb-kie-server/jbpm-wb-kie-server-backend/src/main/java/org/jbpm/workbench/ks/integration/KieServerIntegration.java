@@ -17,24 +17,38 @@
 package org.jbpm.workbench.ks.integration;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
+import org.jbpm.workbench.ks.integration.KieServerClientRegistry.ContainerClient;
+import org.jbpm.workbench.ks.integration.KieServerClientRegistry.ServerTemplateClients;
 import org.kie.api.KieServices;
 import org.kie.api.runtime.KieContainer;
 import org.kie.server.api.KieServerConstants;
 import org.kie.server.client.CredentialsProvider;
 import org.kie.server.client.KieServicesClient;
 import org.kie.server.client.balancer.LoadBalancer;
-import org.kie.server.client.impl.AbstractKieServicesClientImpl;
 import org.kie.server.controller.api.model.events.ServerInstanceConnected;
 import org.kie.server.controller.api.model.events.ServerInstanceDisconnected;
 import org.kie.server.controller.api.model.events.ServerTemplateDeleted;
@@ -57,13 +71,30 @@ import static org.jbpm.workbench.ks.utils.KieServerUtils.getAdminCredentialsProv
 @ApplicationScoped
 public class KieServerIntegration {
 
+    public static final String WARM_UP_THREADS_PROPERTY = "org.jbpm.workbench.ks.client.warmup.threads";
+
     private static final Logger logger = LoggerFactory.getLogger(KieServerIntegration.class);
 
+    public enum ContainerClientStatus {
+        PENDING,
+        READY,
+        FAILED
+    }
+
     private KieServices kieServices;
 
-    private ConcurrentMap<String, KieServicesClient> serverTemplatesClients = new ConcurrentHashMap<String, KieServicesClient>();
-    private ConcurrentMap<String, KieServicesClient> adminClients = new ConcurrentHashMap<String, KieServicesClient>();
+    // clients indexed by server template and container, replaced as a whole on template update
+    private KieServerClientRegistry clientRegistry = new KieServerClientRegistry();
     private ConcurrentMap<String, ServerInstanceKey> serverInstancesById = new ConcurrentHashMap<String, ServerInstanceKey>();
+    // load balancers are shared by all clients (template, container and admin) using the same endpoints
+    private ConcurrentMap<String, LoadBalancer> loadBalancersByEndpoints = new ConcurrentHashMap<String, LoadBalancer>();
+    private ConcurrentMap<String, String> endpointsByServerTemplate = new ConcurrentHashMap<String, String>();
+
+    private KieContainerCache kieContainerCache;
+
+    private KieServerHealthMonitor healthMonitor;
+
+    private ExecutorService warmUpExecutor;
 
     @Inject
     private SpecManagementService specManagementService;
@@ -71,6 +102,23 @@ public class KieServerIntegration {
     @PostConstruct
     public void createAvailableClients() {
         kieServices = KieServices.Factory.get();
+        kieContainerCache = new KieContainerCache(kieServices::newKieContainer,
+                                                  this::onKieContainerRemoved);
+
+        final int warmUpThreads = Integer.parseInt(System.getProperty(WARM_UP_THREADS_PROPERTY, "4"));
+        final AtomicInteger threadCounter = new AtomicInteger();
+        warmUpExecutor = Executors.newFixedThreadPool(warmUpThreads, runnable -> {
+            Thread thread = new Thread(runnable, "kie-server-client-warm-up-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        final long healthCheckInterval = KieServerHealthMonitor.getInterval();
+        if (healthCheckInterval > 0) {
+            healthMonitor = new KieServerHealthMonitor(getAdminCredentialsProvider());
+            healthMonitor.start(() -> loadBalancersByEndpoints,
+                                healthCheckInterval);
+        }
 
         Collection<ServerTemplate> serverTemplates = specManagementService.listServerTemplates();
         logger.debug("Found {} server templates, creating clients for them...", serverTemplates.size());
@@ -78,24 +126,110 @@ public class KieServerIntegration {
         serverTemplates.forEach((serverTemplate) -> buildClientsForServer(serverTemplate));
     }
 
+    @PreDestroy
+    public void shutdown() {
+        if (warmUpExecutor != null) {
+            warmUpExecutor.shutdownNow();
+        }
+        if (kieContainerCache != null) {
+            kieContainerCache.invalidateAll();
+        }
+        if (healthMonitor != null) {
+            healthMonitor.stop();
+        }
+    }
+
     public KieServicesClient getServerClient(String serverTemplateId) {
-        return serverTemplatesClients.get(serverTemplateId);
+        ServerTemplateClients clients = clientRegistry.get(serverTemplateId);
+        return clients == null ? null : clients.getClient();
     }
 
 
     public KieServicesClient getServerClient(String serverTemplateId, String containerId) {
-        return serverTemplatesClients.get(serverTemplateId + "|" + containerId);
+        ServerTemplateClients clients = clientRegistry.get(serverTemplateId);
+        if (clients == null) {
+            return null;
+        }
+        ContainerClient containerClient = clients.getContainerClient(containerId);
+        if (containerClient == null) {
+            return null;
+        }
+        KieServicesClient client = containerClient.getClient();
+        if (client != null) {
+            touchKieContainer(containerClient.getReleaseId());
+            return client;
+        }
+        final FutureTask<KieServicesClient> clientTask = containerClient.getTask();
+        if (clientTask != null) {
+            // not warmed up yet, build it on calling thread unless it is already being built in background
+            client = runClientTask(serverTemplateId, containerId, clientTask);
+            final ServerTemplateClients currentClients = clientRegistry.get(serverTemplateId);
+            if (client == null && clientTask.isCancelled() && currentClients != null && currentClients.getContainerClient(containerId) == containerClient) {
+                // cancelled although the container is still deployed (e.g. warm up shut down), build it again
+                client = runClientTask(serverTemplateId, containerId, prepareContainerClient(currentClients.getServerTemplate(), containerClient));
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Runs given client task on calling thread unless it is already running or done and waits for its result,
+     * null when the client could not be created or its creation was cancelled.
+     */
+    protected KieServicesClient runClientTask(String serverTemplateId, String containerId, FutureTask<KieServicesClient> clientTask) {
+        clientTask.run();
+        try {
+            return clientTask.get();
+        } catch (CancellationException e) {
+            logger.debug("Creation of KieServerClient for {}|{} was cancelled", serverTemplateId, containerId);
+        } catch (ExecutionException e) {
+            logger.debug("KieServerClient for {}|{} could not be created due to {}", serverTemplateId, containerId, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * Status of clients of all known containers, allows to follow progress of the background warm up.
+     */
+    public Map<String, ContainerClientStatus> getContainerClientsStatus() {
+        Map<String, ContainerClientStatus> status = new HashMap<String, ContainerClientStatus>();
+        for (ServerTemplateClients clients : clientRegistry.getAll()) {
+            for (ContainerClient containerClient : clients.getContainerClients()) {
+                final String key = clients.getServerTemplate().getId() + "|" + containerClient.getContainerId();
+                if (containerClient.getClient() != null) {
+                    status.put(key, ContainerClientStatus.READY);
+                } else {
+                    status.put(key, containerClient.isPending() ? ContainerClientStatus.PENDING : ContainerClientStatus.FAILED);
+                }
+            }
+        }
+        return status;
+    }
+
+    public boolean isWarmUpCompleted() {
+        return clientRegistry.getAll().stream()
+                .flatMap(clients -> clients.getContainerClients().stream())
+                .noneMatch(ContainerClient::isPending);
+    }
+
+    public Set<String> getServerTemplateIds() {
+        return clientRegistry.getServerTemplateIds();
     }
 
     public KieServicesClient getAdminServerClient(String serverTemplateId) {
-        return adminClients.get(serverTemplateId);
+        ServerTemplateClients clients = clientRegistry.get(serverTemplateId);
+        return clients == null ? null : clients.getAdminClient();
     }
 
     public KieServicesClient getAdminServerClientCheckEndpoints(String serverTemplateId) {
-        KieServicesClient adminClient = adminClients.get(serverTemplateId);
+        KieServicesClient adminClient = getAdminServerClient(serverTemplateId);
         if (adminClient != null) {
-            LoadBalancer loadBalancer = ((AbstractKieServicesClientImpl) adminClient).getLoadBalancer();
-            loadBalancer.checkFailedEndpoints();
+            LoadBalancer loadBalancer = KieServerClientRegistry.getLoadBalancer(adminClient);
+            if (loadBalancer != null) {
+                loadBalancer.checkFailedEndpoints();
+            }
         }
         return adminClient;
     }
@@ -122,81 +256,50 @@ public class KieServerIntegration {
 
     public void onServerTemplateDeleted(@Observes ServerTemplateDeleted serverTemplateDeleted) {
         // remove all clients for this server template and its containers
-        Iterator<Map.Entry<String, KieServicesClient>> iterator = serverTemplatesClients.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<String, KieServicesClient> entry = iterator.next();
-            if (entry.getKey().startsWith(serverTemplateDeleted.getServerTemplateId())) {
-                //KieServicesClient client = entry.getValue();
-                //client.close();
-                logger.debug("KieServerClient removed and closed for server template {}", entry.getKey());
+        ServerTemplateClients clients = clientRegistry.remove(serverTemplateDeleted.getServerTemplateId());
+        if (clients != null) {
+            // cancel pending container clients
+            clients.getContainerClients().forEach(ContainerClient::cancel);
+            logger.debug("KieServerClients removed for server template {}", serverTemplateDeleted.getServerTemplateId());
+        }
 
-                iterator.remove();
-            }
+        String endpoints = endpointsByServerTemplate.remove(serverTemplateDeleted.getServerTemplateId());
+        if (endpoints != null && !endpointsByServerTemplate.containsValue(endpoints)) {
+            loadBalancersByEndpoints.remove(endpoints);
         }
-        // remove admin client
-        adminClients.remove(serverTemplateDeleted.getServerTemplateId());
 
         removeServerInstancesFromIndex(serverTemplateDeleted.getServerTemplateId());
+        releaseUnusedKieContainers();
     }
 
     public void onServerInstanceDisconnected(@Observes ServerInstanceDisconnected serverInstanceDisconnected) {
         ServerInstanceKey serverInstanceKey = serverInstancesById.get(serverInstanceDisconnected.getServerInstanceId());
 
         if (serverInstanceKey != null) {
-            Iterator<Map.Entry<String, KieServicesClient>> iterator = serverTemplatesClients.entrySet().iterator();
-            while (iterator.hasNext()) {
-                Map.Entry<String, KieServicesClient> entry = iterator.next();
-                if (entry.getKey().startsWith(serverInstanceKey.getServerTemplateId())) {
-                    KieServicesClient client = entry.getValue();
-                    if (client != null) {
-                        LoadBalancer loadBalancer = ((AbstractKieServicesClientImpl) client).getLoadBalancer();
-                        loadBalancer.markAsFailed(serverInstanceKey.getUrl());
-
-                        logger.debug("Server instance {} for server template {} removed from client thus won't be used for operations", serverInstanceKey.getUrl(), serverInstanceKey.getServerTemplateId());
-                    }
-
-                    logger.debug("KieServerClient load balancer updated for server template {}", entry.getKey());
+            ServerTemplateClients clients = clientRegistry.get(serverInstanceKey.getServerTemplateId());
+            if (clients != null) {
+                // clients of the template share load balancers thus marking them is enough to update all clients
+                for (LoadBalancer loadBalancer : clients.getLoadBalancers()) {
+                    loadBalancer.markAsFailed(serverInstanceKey.getUrl());
                 }
+                logger.debug("Server instance {} for server template {} removed from client thus won't be used for operations", serverInstanceKey.getUrl(), serverInstanceKey.getServerTemplateId());
             }
 
             serverInstancesById.remove(serverInstanceKey.getServerInstanceId());
-
-            // update admin client
-            KieServicesClient adminClient = adminClients.get(serverInstanceKey.getServerTemplateId());
-            if (adminClient != null) {
-                LoadBalancer loadBalancer = ((AbstractKieServicesClientImpl) adminClient).getLoadBalancer();
-                loadBalancer.markAsFailed(serverInstanceKey.getUrl());
-
-                logger.debug("Server instance {} for server template {} removed from client thus won't be used for operations", serverInstanceKey.getUrl(), serverInstanceKey.getServerTemplateId());
-            }
         }
     }
 
     public void onServerInstanceConnected(@Observes ServerInstanceConnected serverInstanceConnected) {
 
         ServerInstance serverInstance = serverInstanceConnected.getServerInstance();
+        // keep the instance indexed so it can be found when it disconnects again
+        serverInstancesById.put(serverInstance.getServerInstanceId(), serverInstance);
 
-        Iterator<Map.Entry<String, KieServicesClient>> iterator = serverTemplatesClients.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<String, KieServicesClient> entry = iterator.next();
-            if (entry.getKey().startsWith(serverInstance.getServerTemplateId())) {
-                KieServicesClient client = entry.getValue();
-                // update regular clients
-                updateOrBuildClient(client, serverInstance);
-
-                logger.debug("KieServerClient load balancer updated for server template {}", entry.getKey());
+        ServerTemplateClients clients = clientRegistry.get(serverInstance.getServerTemplateId());
+        if (clients != null && clients.getClient() != null) {
+            for (LoadBalancer loadBalancer : clients.getLoadBalancers()) {
+                loadBalancer.activate(serverInstance.getUrl());
             }
-        }
-
-        KieServicesClient adminClient = adminClients.get(serverInstance.getServerTemplateId());
-        // update admin clients
-        updateOrBuildClient(adminClient, serverInstance);
-    }
-
-    protected void updateOrBuildClient(KieServicesClient client, ServerInstance serverInstance) {
-        if (client != null) {
-            LoadBalancer loadBalancer = ((AbstractKieServicesClientImpl) client).getLoadBalancer();
-            loadBalancer.activate(serverInstance.getUrl());
 
             logger.debug("Server instance {} for server template {} activated on client thus will be used for operations", serverInstance.getUrl(), serverInstance.getServerTemplateId());
         } else {
@@ -209,38 +312,145 @@ public class KieServerIntegration {
     }
 
     protected void buildClientsForServer(ServerTemplate serverTemplate) {
+        final ServerTemplateClients previous = clientRegistry.get(serverTemplate.getId());
+
         KieServicesClient kieServicesClient = createClientForTemplate(serverTemplate, null, getCredentialsProvider());
-        if (kieServicesClient != null) {
-            serverTemplatesClients.put(serverTemplate.getId(), kieServicesClient);
-        }
+        KieServicesClient adminKieServicesClient = createClientForTemplate(serverTemplate, null, getAdminCredentialsProvider());
+        final ServerTemplateClients clients = new ServerTemplateClients(serverTemplate, kieServicesClient, adminKieServicesClient);
 
+        final List<ContainerClient> scheduled = new ArrayList<ContainerClient>();
         if (serverTemplate.getContainersSpec() != null) {
             for (ContainerSpec containerSpec : serverTemplate.getContainersSpec()) {
-                try {
-                    String key = serverTemplate.getId() + "|" + containerSpec.getId();
-                    if (serverTemplatesClients.containsKey(key)) {
-                        logger.debug("KieServerClient for {} is already created", key);
-                        continue;
-                    }
-
-                    KieContainer kieContainer = kieServices.newKieContainer(containerSpec.getReleasedId());
-
-                    KieServicesClient kieServicesClientForContainer = createClientForTemplate(serverTemplate, kieContainer.getClassLoader(), getCredentialsProvider());
-                    if (kieServicesClient != null) {
-                        serverTemplatesClients.put(key, kieServicesClientForContainer);
-                    }
-                } catch (Exception e) {
-                    logger.warn("Failed ot create kie server client for container {} due to {}", containerSpec.getId(), e.getMessage());
+                final String releaseId = containerSpec.getReleasedId() == null ? null : KieContainerCache.toKey(containerSpec.getReleasedId());
+                final ContainerClient existing = previous == null ? null : previous.getContainerClient(containerSpec.getId());
+                if (existing != null && Objects.equals(existing.getReleaseId(), releaseId) && !existing.isFailed()) {
+                    logger.debug("KieServerClient for {}|{} is already created or scheduled", serverTemplate.getId(), containerSpec.getId());
+                    clients.addContainerClient(existing);
+                    continue;
                 }
+                // container clients require kie container to be built, which might be expensive, thus they are
+                // created in background or on first use whichever comes first
+                ContainerClient containerClient = new ContainerClient(containerSpec, releaseId);
+                // task is set before the client is published so it is never seen without one
+                prepareContainerClient(serverTemplate, containerClient);
+                clients.addContainerClient(containerClient);
+                scheduled.add(containerClient);
             }
         }
-        // lastly create admin client
-        KieServicesClient adminKieServicesClient = createClientForTemplate(serverTemplate, null, getAdminCredentialsProvider());
-        if (adminKieServicesClient != null) {
-            adminClients.put(serverTemplate.getId(), adminKieServicesClient);
+        // swap all clients of the template at once
+        clientRegistry.put(clients);
+
+        if (previous != null) {
+            // cancel building of clients for containers no longer deployed
+            previous.getContainerClients().stream()
+                    .filter(containerClient -> clients.getContainerClient(containerClient.getContainerId()) != containerClient)
+                    .forEach(ContainerClient::cancel);
+        }
+        scheduled.forEach(this::warmUpContainerClient);
+
+        releaseUnusedKieContainers();
+    }
+
+    /**
+     * Sets the task creating the client of given container client, the task is run in background by the warm up or
+     * on first use, whichever comes first.
+     */
+    protected FutureTask<KieServicesClient> prepareContainerClient(ServerTemplate serverTemplate, ContainerClient containerClient) {
+        final String key = serverTemplate.getId() + "|" + containerClient.getContainerId();
+        FutureTask<KieServicesClient> clientTask = new FutureTask<KieServicesClient>(() -> {
+            KieServicesClient client = buildClientForContainer(serverTemplate, containerClient.getContainerSpec(), key);
+            if (client != null) {
+                containerClient.created(client);
+            }
+            return client;
+        });
+        containerClient.setTask(clientTask);
+        return clientTask;
+    }
+
+    protected void warmUpContainerClient(ContainerClient containerClient) {
+        final FutureTask<KieServicesClient> clientTask = containerClient.getTask();
+        if (clientTask != null && warmUpExecutor != null) {
+            try {
+                warmUpExecutor.execute(clientTask);
+            } catch (RejectedExecutionException e) {
+                // shut down, the client is created on first use
+                logger.debug("Warm up of KieServerClient for {} rejected", containerClient.getContainerId());
+            }
+        }
+    }
+
+    protected KieServicesClient buildClientForContainer(ServerTemplate serverTemplate, ContainerSpec containerSpec, String key) throws Exception {
+        try {
+            // containers are shared by all templates deploying the same release id
+            KieContainer kieContainer = kieContainerCache.getKieContainer(containerSpec.getReleasedId());
+
+            KieServicesClient kieServicesClientForContainer = createClientForTemplate(serverTemplate, kieContainer.getClassLoader(), getCredentialsProvider());
+            if (kieServicesClientForContainer != null) {
+                logger.debug("KieServerClient for {} created", key);
+            }
+            return kieServicesClientForContainer;
+        } catch (Exception e) {
+            logger.warn("Failed ot create kie server client for container {} due to {}", containerSpec.getId(), e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Disposes kie containers of release ids not deployed on any of the server templates.
+     */
+    protected void releaseUnusedKieContainers() {
+        if (kieContainerCache == null) {
+            return;
+        }
+        Set<String> deployedReleaseIds = new HashSet<String>();
+        for (ServerTemplateClients clients : clientRegistry.getAll()) {
+            for (ContainerClient containerClient : clients.getContainerClients()) {
+                if (containerClient.getReleaseId() != null) {
+                    deployedReleaseIds.add(containerClient.getReleaseId());
+                }
+            }
+        }
+        kieContainerCache.retainAll(deployedReleaseIds);
+    }
+
+    /**
+     * Drops clients using class loader of a kie container removed from the cache, they will be recreated
+     * (along with the container) on next use.
+     */
+    protected void onKieContainerRemoved(String releaseId) {
+        for (ServerTemplateClients clients : clientRegistry.getAll()) {
+            for (ContainerClient containerClient : clients.getContainerClients()) {
+                if (containerClient.getClient() == null || !releaseId.equals(containerClient.getReleaseId())) {
+                    continue;
+                }
+                ContainerClient replacement = new ContainerClient(containerClient.getContainerSpec(), releaseId);
+                // task is set before the replacement is published so it is never seen without one
+                prepareContainerClient(clients.getServerTemplate(), replacement);
+                if (clients.replaceContainerClient(containerClient, replacement)) {
+                    logger.debug("KieServerClient for {}|{} released along with kie container {}", clients.getServerTemplate().getId(), containerClient.getContainerId(), releaseId);
+                }
+            }
         }
     }
 
+    protected void touchKieContainer(String releaseId) {
+        if (releaseId != null && kieContainerCache != null) {
+            kieContainerCache.touch(releaseId);
+        }
+    }
+
+    /**
+     * Kie containers currently held to serve container clients along with their usage.
+     */
+    public List<KieContainerCache.EntryInfo> getKieContainerCacheEntries() {
+        return kieContainerCache == null ? new ArrayList<KieContainerCache.EntryInfo>() : kieContainerCache.getEntries();
+    }
+
+    protected void setKieContainerCache(KieContainerCache kieContainerCache) {
+        this.kieContainerCache = kieContainerCache;
+    }
+
     protected KieServicesClient createClientForTemplate(ServerTemplate serverTemplate, ClassLoader classLoader, CredentialsProvider credentialsProvider) {
 
         if (serverTemplate.getServerInstanceKeys() == null || serverTemplate.getServerInstanceKeys().isEmpty()) {
@@ -267,7 +477,8 @@ public class KieServerIntegration {
                 mappedCapabilities.add(KieServerConstants.CAPABILITY_BRP);
             }
 
-            final KieServicesClient kieServicesClient = createKieServicesClient(endpoints.toString(), classLoader, credentialsProvider, mappedCapabilities.toArray(new String[mappedCapabilities.size()]));
+            final LoadBalancer loadBalancer = getLoadBalancer(serverTemplate.getId(), endpoints.toString());
+            final KieServicesClient kieServicesClient = createKieServicesClient(endpoints.toString(), classLoader, credentialsProvider, loadBalancer, mappedCapabilities.toArray(new String[mappedCapabilities.size()]));
 
             logger.debug("KieServerClient created successfully for server template {}", serverTemplate);
 
@@ -280,4 +491,47 @@ public class KieServerIntegration {
         }
     }
 
-}
\ No newline at end of file
+    protected LoadBalancer getLoadBalancer(String serverTemplateId, String endpoints) {
+        String previousEndpoints = endpointsByServerTemplate.put(serverTemplateId, endpoints);
+        if (previousEndpoints != null && !previousEndpoints.equals(endpoints) && !endpointsByServerTemplate.containsValue(previousEndpoints)) {
+            loadBalancersByEndpoints.remove(previousEndpoints);
+        }
+        return loadBalancersByEndpoints.computeIfAbsent(endpoints, this::newLoadBalancer);
+    }
+
+    protected LoadBalancer newLoadBalancer(String endpoints) {
+        if (healthMonitor == null) {
+            return LoadBalancer.getDefault(endpoints);
+        }
+        // route to the fastest healthy instances based on active health probes
+        return new LoadBalancer(new LatencyAwareBalancerStrategy(new ArrayList<String>(Arrays.asList(endpoints.split("\\|"))), healthMonitor));
+    }
+
+    /**
+     * Rolling latency and error rate of every probed server instance url, empty when health probes are disabled.
+     */
+    public Map<String, KieServerHealthMonitor.EndpointHealth> getEndpointsHealth() {
+        return healthMonitor == null ? new HashMap<String, KieServerHealthMonitor.EndpointHealth>() : healthMonitor.getHealth();
+    }
+
+    protected void setHealthMonitor(KieServerHealthMonitor healthMonitor) {
+        this.healthMonitor = healthMonitor;
+    }
+
+    /**
+     * Number of clients sharing transport (load balancer) of each set of endpoints.
+     */
+    public Map<String, Long> getClientsPerEndpoints() {
+        Map<String, Long> clientsPerEndpoints = new HashMap<String, Long>();
+        List<KieServicesClient> clients = new ArrayList<KieServicesClient>();
+        clientRegistry.getAll().forEach(serverTemplateClients -> clients.addAll(serverTemplateClients.getAllClients()));
+        for (Map.Entry<String, LoadBalancer> entry : loadBalancersByEndpoints.entrySet()) {
+            long count = clients.stream()
+                    .filter(client -> KieServerClientRegistry.getLoadBalancer(client) == entry.getValue())
+                    .count();
+            clientsPerEndpoints.put(entry.getKey(), count);
+        }
+        return clientsPerEndpoints;
+    }
+
+}
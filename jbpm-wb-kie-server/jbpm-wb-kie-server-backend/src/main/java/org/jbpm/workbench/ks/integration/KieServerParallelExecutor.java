@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+
+import com.google.common.hash.Hashing;
+import org.jbpm.workbench.ks.security.PropagatingCredentialsProvider;
+import org.kie.server.client.CredentialsProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.jbpm.workbench.ks.utils.KieServerUtils.getCredentialsProvider;
+
+/**
+ * Bounded executor used to issue independent KIE Server calls concurrently. Authorization of the submitting user
+ * is propagated to the worker threads so calls are made on behalf of the same user.
+ */
+@ApplicationScoped
+public class KieServerParallelExecutor {
+
+    public static final String THREADS_PROPERTY = "org.jbpm.workbench.ks.parallel.threads";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KieServerParallelExecutor.class);
+
+    private final ExecutorService executorService;
+
+    private final CredentialsProvider credentialsProvider;
+
+    public KieServerParallelExecutor() {
+        this(Integer.parseInt(System.getProperty(THREADS_PROPERTY, "10")), getCredentialsProvider());
+    }
+
+    public KieServerParallelExecutor(int threads, CredentialsProvider credentialsProvider) {
+        this("kie-server-parallel-", threads, credentialsProvider);
+    }
+
+    protected KieServerParallelExecutor(String threadNamePrefix, int threads, CredentialsProvider credentialsProvider) {
+        final AtomicInteger threadCounter = new AtomicInteger();
+        this.executorService = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, threadNamePrefix + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.credentialsProvider = credentialsProvider;
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        return executorService.submit(propagate(task));
+    }
+
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeoutMillis) throws InterruptedException {
+        final List<Callable<T>> propagatedTasks = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            propagatedTasks.add(propagate(task));
+        }
+        return executorService.invokeAll(propagatedTasks, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    protected <T> Callable<T> propagate(Callable<T> task) {
+        final String authorization = currentAuthorization();
+        return () -> PropagatingCredentialsProvider.callWithAuthorization(authorization, task);
+    }
+
+    /**
+     * Identity of the calling user as seen by KIE Server - digest of its authorization so that credentials are not
+     * retained, null when no user is bound to the calling thread.
+     */
+    public String currentIdentity() {
+        final String authorization = currentAuthorization();
+        return authorization == null ? null : Hashing.sha256().hashString(authorization, StandardCharsets.UTF_8).toString();
+    }
+
+    protected String currentAuthorization() {
+        try {
+            return credentialsProvider.getAuthorization();
+        } catch (RuntimeException e) {
+            // no user bound to the calling thread
+            LOGGER.debug("Unable to resolve authorization of the calling thread due to {}", e.toString());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+/**
+ * Thrown instead of calling KIE Server when calls to a server template are suspended, either because its
+ * circuit breaker is open or because it has reached the maximum number of concurrent calls.
+ */
+public class KieServerUnavailableException extends RuntimeException {
+
+    private final String serverTemplateId;
+
+    public KieServerUnavailableException(String serverTemplateId, String message) {
+        super(message);
+        this.serverTemplateId = serverTemplateId;
+    }
+
+    public String getServerTemplateId() {
+        return serverTemplateId;
+    }
+}
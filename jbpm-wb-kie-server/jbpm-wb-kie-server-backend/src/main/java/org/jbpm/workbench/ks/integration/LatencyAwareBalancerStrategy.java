@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.kie.server.client.balancer.impl.RoundRobinBalancerStrategy;
+
+/**
+ * Balancer strategy preferring the fastest healthy instances as measured by {@link KieServerHealthMonitor}.
+ * Requests are spread round robin among instances whose median latency is close to the fastest one, so a slow
+ * instance does not get traffic while others respond quicker. Falls back to plain round robin until
+ * instances were probed.
+ */
+public class LatencyAwareBalancerStrategy extends RoundRobinBalancerStrategy {
+
+    // instances up to this much slower than the fastest one are still considered fast
+    private static final double LATENCY_TOLERANCE = 1.2;
+
+    private final KieServerHealthMonitor healthMonitor;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public LatencyAwareBalancerStrategy(List<String> availableEndpoints, KieServerHealthMonitor healthMonitor) {
+        super(availableEndpoints);
+        this.healthMonitor = healthMonitor;
+    }
+
+    @Override
+    public String next() {
+        final List<String> candidates = getFastestEndpoints();
+        if (candidates.isEmpty()) {
+            return super.next();
+        }
+        return candidates.get(Math.abs(counter.getAndIncrement() % candidates.size()));
+    }
+
+    protected List<String> getFastestEndpoints() {
+        final List<String> available = getAvailableEndpoints();
+        // health is updated concurrently by probes, take a single snapshot of each endpoint and decide on it
+        final Map<String, Long> healthyLatencies = new LinkedHashMap<String, Long>();
+        long fastest = Long.MAX_VALUE;
+        for (String url : available) {
+            KieServerHealthMonitor.EndpointHealth health = healthMonitor.getHealth(url);
+            if (health == null) {
+                // not probed yet, no basis for a decision
+                return new ArrayList<String>();
+            }
+            if (health.isHealthy()) {
+                final long p50 = health.getP50();
+                healthyLatencies.put(url, p50);
+                fastest = Math.min(fastest, p50);
+            }
+        }
+        final List<String> candidates = new ArrayList<String>();
+        if (fastest == Long.MAX_VALUE) {
+            return candidates;
+        }
+        final long limit = Math.max(fastest + 1, (long) (fastest * LATENCY_TOLERANCE));
+        healthyLatencies.forEach((url, p50) -> {
+            if (p50 <= limit) {
+                candidates.add(url);
+            }
+        });
+        return candidates;
+    }
+}
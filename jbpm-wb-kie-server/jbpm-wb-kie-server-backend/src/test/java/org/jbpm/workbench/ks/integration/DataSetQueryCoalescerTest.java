@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DataSetQueryCoalescerTest {
+
+    private final DataSetQueryKey key = new DataSetQueryKey("template", "user", "uuid", "filter", 0, 10);
+
+    @Test
+    public void testConcurrentIdenticalQueriesShareSingleCall() throws Exception {
+        final DataSetQueryCoalescer coalescer = new DataSetQueryCoalescer(5000);
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<List> rows = Collections.singletonList(Collections.singletonList("value"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<List<List>>> results = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                results.add(executor.submit(() -> coalescer.execute(key, () -> {
+                    calls.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return rows;
+                })));
+            }
+
+            while (coalescer.getCollapsedCount() < 4) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<List<List>> result : results) {
+                assertSame(rows, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, calls.get());
+        assertEquals(4, coalescer.getCollapsedCount());
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void testQueriesOfDifferentUsersNotCollapsed() throws Exception {
+        final DataSetQueryCoalescer coalescer = new DataSetQueryCoalescer(5000);
+        final DataSetQueryKey otherUserKey = new DataSetQueryKey("template", "otherUser", "uuid", "filter", 0, 10);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<List> rows = Collections.singletonList(Collections.singletonList("user"));
+
+        Thread firstCaller = new Thread(() -> coalescer.execute(key, () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rows;
+        }));
+        firstCaller.start();
+        started.await(5, TimeUnit.SECONDS);
+
+        List<List> otherRows = Collections.singletonList(Collections.singletonList("otherUser"));
+        assertSame(otherRows, coalescer.execute(otherUserKey, () -> otherRows));
+        assertEquals(0, coalescer.getCollapsedCount());
+
+        release.countDown();
+        firstCaller.join(5000);
+    }
+
+    @Test
+    public void testFailureIsPropagatedAndNotRetained() {
+        DataSetQueryCoalescer coalescer = new DataSetQueryCoalescer(5000);
+        try {
+            coalescer.execute(key, () -> {
+                throw new IllegalStateException("server down");
+            });
+            fail("Exception expected");
+        } catch (IllegalStateException e) {
+            assertEquals("server down", e.getMessage());
+        }
+
+        assertEquals(0, coalescer.getInFlightCount());
+        assertEquals(Collections.emptyList(), coalescer.execute(key, Collections::emptyList));
+    }
+
+    @Test
+    public void testWaitingCallerFallsBackAfterMaxWait() throws Exception {
+        final DataSetQueryCoalescer coalescer = new DataSetQueryCoalescer(10);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        Thread slowCaller = new Thread(() -> coalescer.execute(key, () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Collections.emptyList();
+        }));
+        slowCaller.start();
+        started.await(5, TimeUnit.SECONDS);
+
+        List<List> rows = Collections.singletonList(Collections.singletonList("direct"));
+        assertSame(rows, coalescer.execute(key, () -> rows));
+        assertEquals(1, coalescer.getTimeoutCount());
+
+        release.countDown();
+        slowCaller.join(5000);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.runtime.KieContainer;
+import org.kie.server.api.model.ReleaseId;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class KieContainerCacheTest {
+
+    private AtomicInteger builds;
+    private List<String> removed;
+    private KieContainerCache kieContainerCache;
+
+    @Before
+    public void setup() {
+        builds = new AtomicInteger();
+        removed = new ArrayList<String>();
+        kieContainerCache = new KieContainerCache(releaseId -> {
+                                                      builds.incrementAndGet();
+                                                      return mock(KieContainer.class);
+                                                  },
+                                                  removed::add,
+                                                  2,
+                                                  60000);
+    }
+
+    @Test
+    public void testContainerSharedForSameReleaseId() throws Exception {
+        KieContainer kieContainer = kieContainerCache.getKieContainer(new ReleaseId("org.jbpm", "evaluation", "1.0"));
+        KieContainer sameKieContainer = kieContainerCache.getKieContainer(new ReleaseId("org.jbpm", "evaluation", "1.0"));
+
+        assertSame(kieContainer, sameKieContainer);
+        assertEquals(1, builds.get());
+        assertEquals(1, kieContainerCache.getEntries().size());
+        assertEquals(2, kieContainerCache.getEntries().get(0).getAccessCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedContainerEvicted() throws Exception {
+        KieContainer kieContainer = kieContainerCache.getKieContainer(new ReleaseId("org.jbpm", "evaluation", "1.0"));
+        kieContainerCache.getKieContainer(new ReleaseId("org.jbpm", "evaluation", "2.0"));
+        kieContainerCache.getKieContainer(new ReleaseId("org.jbpm", "evaluation", "3.0"));
+        kieContainerCache.cleanUp();
+
+        assertEquals(2, kieContainerCache.size());
+        assertEquals(Collections.singletonList("org.jbpm:evaluation:1.0"), removed);
+        verify(kieContainer).dispose();
+    }
+
+    @Test
+    public void testUndeployedContainersReleased() throws Exception {
+        KieContainer kieContainer = kieContainerCache.getKieContainer(new ReleaseId("org.jbpm", "evaluation", "1.0"));
+        KieContainer upgradedKieContainer = kieContainerCache.getKieContainer(new ReleaseId("org.jbpm", "evaluation", "2.0"));
+
+        kieContainerCache.retainAll(Collections.singleton("org.jbpm:evaluation:2.0"));
+
+        assertEquals(1, kieContainerCache.size());
+        assertEquals(Collections.singletonList("org.jbpm:evaluation:1.0"), removed);
+        verify(kieContainer).dispose();
+        verify(upgradedKieContainer, never()).dispose();
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.kie.server.client.KieServicesException;
+import org.kie.server.client.QueryServicesClient;
+import org.kie.server.common.rest.KieServerHttpRequestException;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class KieServerCallGuardTest {
+
+    @Test
+    public void testCircuitOpensAfterConsecutiveFailures() throws Exception {
+        final KieServerCallGuard callGuard = new KieServerCallGuard(10, 100, 3, 60000);
+
+        for (int i = 0; i < 3; i++) {
+            assertCallFails(callGuard, "template", KieServerHttpRequestException.class);
+        }
+
+        assertEquals(KieServerCallGuard.CircuitState.OPEN, callGuard.getState("template"));
+        assertCallFails(callGuard, "template", KieServerUnavailableException.class);
+        assertEquals(1, callGuard.getStates().get("template").getRejectedCalls());
+        // other templates are not affected
+        assertEquals("ok", callGuard.call("other", () -> "ok"));
+    }
+
+    @Test
+    public void testServerErrorsDoNotOpenCircuit() throws Exception {
+        final KieServerCallGuard callGuard = new KieServerCallGuard(10, 100, 3, 60000);
+
+        for (int i = 0; i < 5; i++) {
+            try {
+                callGuard.call("template", () -> {
+                    throw new KieServicesException("Process definition not found");
+                });
+                fail("Exception expected");
+            } catch (KieServicesException e) {
+                // expected
+            }
+        }
+
+        assertEquals(KieServerCallGuard.CircuitState.CLOSED, callGuard.getState("template"));
+    }
+
+    @Test
+    public void testTrialCallClosesCircuit() throws Exception {
+        final KieServerCallGuard callGuard = new KieServerCallGuard(10, 100, 1, 0);
+
+        assertCallFails(callGuard, "template", KieServerHttpRequestException.class);
+        assertEquals(KieServerCallGuard.CircuitState.OPEN, callGuard.getState("template"));
+
+        assertEquals("ok", callGuard.call("template", () -> "ok"));
+        assertEquals(KieServerCallGuard.CircuitState.CLOSED, callGuard.getState("template"));
+    }
+
+    @Test
+    public void testBulkheadRejectsExcessiveCalls() throws Exception {
+        final KieServerCallGuard callGuard = new KieServerCallGuard(1, 10, 3, 60000);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> blocked = executorService.submit(() -> callGuard.call("template", () -> {
+                started.countDown();
+                release.await();
+                return "ok";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertEquals(1, callGuard.getStates().get("template").getActiveCalls());
+
+            assertCallFails(callGuard, "template", KieServerUnavailableException.class);
+
+            release.countDown();
+            assertEquals("ok", blocked.get(5, TimeUnit.SECONDS));
+            assertEquals(KieServerCallGuard.CircuitState.CLOSED, callGuard.getState("template"));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInterruptedBulkheadWaitRejectsGuardedCall() throws Exception {
+        final KieServerCallGuard callGuard = new KieServerCallGuard(1, 60000, 3, 60000);
+        final QueryServicesClient queryClient = callGuard.guard("template", QueryServicesClient.class, mock(QueryServicesClient.class));
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            executorService.submit(() -> callGuard.call("template", () -> {
+                started.countDown();
+                release.await();
+                return "ok";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            Thread.currentThread().interrupt();
+            try {
+                queryClient.getQueries(0, 10);
+                fail("Exception expected");
+            } catch (KieServerUnavailableException e) {
+                // expected, not wrapped in UndeclaredThrowableException
+            }
+            assertTrue(Thread.interrupted());
+            assertEquals(KieServerCallGuard.CircuitState.CLOSED, callGuard.getState("template"));
+        } finally {
+            release.countDown();
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBulkheadDisabledByDefault() throws Exception {
+        final KieServerCallGuard callGuard = new KieServerCallGuard();
+        final int calls = 50;
+        final CountDownLatch started = new CountDownLatch(calls);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executorService = Executors.newFixedThreadPool(calls);
+        try {
+            final List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < calls; i++) {
+                results.add(executorService.submit(() -> callGuard.call("template", () -> {
+                    started.countDown();
+                    release.await();
+                    return "ok";
+                })));
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertEquals(calls, callGuard.getStates().get("template").getActiveCalls());
+
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("ok", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(0, callGuard.getStates().get("template").getActiveCalls());
+            assertEquals(0, callGuard.getStates().get("template").getRejectedCalls());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testGuardedClientDelegatesCalls() {
+        final KieServerCallGuard callGuard = new KieServerCallGuard(10, 100, 1, 60000);
+        final QueryServicesClient queryClient = mock(QueryServicesClient.class);
+        doThrow(new KieServerHttpRequestException("Connection refused")).when(queryClient).unregisterQuery("query");
+
+        final QueryServicesClient guardedClient = callGuard.guard("template", QueryServicesClient.class, queryClient);
+        try {
+            guardedClient.unregisterQuery("query");
+            fail("Exception expected");
+        } catch (KieServerHttpRequestException e) {
+            // expected
+        }
+        try {
+            guardedClient.unregisterQuery("query");
+            fail("Exception expected");
+        } catch (KieServerUnavailableException e) {
+            assertEquals("template", e.getServerTemplateId());
+        }
+
+        verify(queryClient, times(1)).unregisterQuery("query");
+    }
+
+    private void assertCallFails(KieServerCallGuard callGuard, String serverTemplateId, Class<? extends Exception> expected) throws Exception {
+        try {
+            callGuard.call(serverTemplateId, () -> {
+                throw new KieServerHttpRequestException("Connection refused");
+            });
+            fail("Exception expected");
+        } catch (Exception e) {
+            assertTrue(expected.isInstance(e));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.kie.server.client.QueryServicesClient;
+import org.kie.server.common.rest.KieServerHttpRequestException;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class KieServerCallMetricsTest {
+
+    @Test
+    public void testCallsRecordedPerServiceMethodAndTemplate() {
+        final KieServerCallMetrics callMetrics = new KieServerCallMetrics(Long.MAX_VALUE);
+        final QueryServicesClient queryClient = mock(QueryServicesClient.class);
+        doReturn(Arrays.asList(1, 2, 3)).when(queryClient).query("dataSet", QueryServicesClient.QUERY_MAP_RAW, 0, 10, List.class);
+        doThrow(new KieServerHttpRequestException("error")).when(queryClient).query("failing", QueryServicesClient.QUERY_MAP_RAW, 0, 10, List.class);
+
+        final QueryServicesClient instrumented = callMetrics.instrument("DataSetProvider", "template", QueryServicesClient.class, queryClient);
+        instrumented.query("dataSet", QueryServicesClient.QUERY_MAP_RAW, 0, 10, List.class);
+        instrumented.query("dataSet", QueryServicesClient.QUERY_MAP_RAW, 0, 10, List.class);
+        try {
+            instrumented.query("failing", QueryServicesClient.QUERY_MAP_RAW, 0, 10, List.class);
+            fail("Exception expected");
+        } catch (KieServerHttpRequestException e) {
+            // expected, not wrapped by the proxy
+        }
+        callMetrics.instrument("DataSetProvider", "template2", QueryServicesClient.class, queryClient).query("dataSet", QueryServicesClient.QUERY_MAP_RAW, 0, 10, List.class);
+
+        assertEquals(4, callMetrics.getTotalCalls());
+        assertEquals(1, callMetrics.getTotalErrors());
+        final KieServerCallMetrics.CallMetricsSnapshot snapshot = callMetrics.getCallMetrics().stream()
+                .filter(metrics -> "template".equals(metrics.getServerTemplateId()))
+                .findFirst()
+                .get();
+        assertEquals("DataSetProvider", snapshot.getService());
+        assertEquals("QueryServicesClient.query", snapshot.getMethod());
+        assertEquals(3, snapshot.getCalls());
+        assertEquals(1, snapshot.getErrors());
+        assertEquals(6, snapshot.getPayloadItems());
+        assertEquals(3, Arrays.stream(snapshot.getHistogram()).sum());
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        final KieServerCallMetrics callMetrics = new KieServerCallMetrics(Long.MAX_VALUE);
+
+        callMetrics.record("service", "method", "template", 3, false, 0);
+        callMetrics.record("service", "method", "template", 5, false, 0);
+        callMetrics.record("service", "method", "template", 300, false, 0);
+        callMetrics.record("service", "method", "template", 60000, false, 0);
+
+        final long[] histogram = callMetrics.getCallMetrics().get(0).getHistogram();
+        assertEquals(KieServerCallMetrics.BUCKETS.length + 1, histogram.length);
+        assertEquals(2, histogram[0]);
+        assertEquals(1, histogram[6]);
+        assertEquals(1, histogram[histogram.length - 1]);
+    }
+
+    @Test
+    public void testPrometheusMetrics() {
+        final KieServerCallMetrics callMetrics = new KieServerCallMetrics(Long.MAX_VALUE);
+        callMetrics.record("service", "method", "template", 20, false, 5);
+        callMetrics.record("service", "method", "template", 2000, true, 0);
+
+        final String metrics = callMetrics.getPrometheusMetrics();
+
+        final String labels = "service=\"service\",method=\"method\",server_template=\"template\"";
+        assertTrue(metrics.contains("kie_server_call_duration_milliseconds_bucket{" + labels + ",le=\"10\"} 0\n"));
+        assertTrue(metrics.contains("kie_server_call_duration_milliseconds_bucket{" + labels + ",le=\"25\"} 1\n"));
+        assertTrue(metrics.contains("kie_server_call_duration_milliseconds_bucket{" + labels + ",le=\"+Inf\"} 2\n"));
+        assertTrue(metrics.contains("kie_server_call_duration_milliseconds_sum{" + labels + "} 2020\n"));
+        assertTrue(metrics.contains("kie_server_call_errors_total{" + labels + "} 1\n"));
+        assertTrue(metrics.contains("kie_server_call_payload_items_total{" + labels + "} 5\n"));
+    }
+
+    @Test
+    public void testNonInterfaceClientNotInstrumented() {
+        final KieServerCallMetrics callMetrics = new KieServerCallMetrics();
+        final String client = "client";
+
+        assertSame(client, callMetrics.instrument("service", "template", String.class, client));
+    }
+}
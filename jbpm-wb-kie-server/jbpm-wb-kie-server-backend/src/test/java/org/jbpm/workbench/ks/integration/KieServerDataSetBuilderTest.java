@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.dashbuilder.dataset.ColumnType;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.def.DataSetDef;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class KieServerDataSetBuilderTest {
+
+    @Test
+    public void testBuildFromRows() {
+        DataSetDef def = mock(DataSetDef.class);
+        when(def.getUUID()).thenReturn("uuid");
+
+        List<List<?>> rows = Arrays.asList(Arrays.asList(1L, "first"),
+                                           Arrays.asList(2L, "second"),
+                                           Collections.singletonList(3L));
+
+        DataSet dataSet = new KieServerDataSetBuilder(def, rows.size())
+                .column("id", ColumnType.NUMBER)
+                .column("name", ColumnType.LABEL)
+                .rows(rows.iterator())
+                .build();
+
+        assertEquals("uuid", dataSet.getUUID());
+        assertEquals(2, dataSet.getColumns().size());
+        assertEquals(3, dataSet.getRowCountNonTrimmed());
+        assertEquals(Arrays.asList(1L, 2L, 3L), dataSet.getColumnById("id").getValues());
+        assertEquals(Arrays.asList("first", "second", null), dataSet.getColumnById("name").getValues());
+    }
+}
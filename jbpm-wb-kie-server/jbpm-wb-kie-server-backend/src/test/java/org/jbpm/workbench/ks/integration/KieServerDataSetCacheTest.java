@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.kie.server.api.model.definition.QueryFilterSpec;
+import org.kie.server.api.model.definition.QueryParam;
+
+import static org.junit.Assert.*;
+
+public class KieServerDataSetCacheTest {
+
+    @Test
+    public void testKeyNormalization() {
+        QueryFilterSpec filterSpec = new QueryFilterSpec();
+        filterSpec.setParameters(new QueryParam[]{new QueryParam("status", "EQUALS_TO", Collections.singletonList(1))});
+        filterSpec.setOrderBy("processInstanceId");
+
+        QueryFilterSpec sameFilterSpec = new QueryFilterSpec();
+        sameFilterSpec.setParameters(new QueryParam[]{new QueryParam("status", "EQUALS_TO", Collections.singletonList(1))});
+        sameFilterSpec.setOrderBy("processInstanceId");
+
+        assertEquals(new DataSetQueryKey("template", "user", "uuid", filterSpec, 0, 10), new DataSetQueryKey("template", "user", "uuid", sameFilterSpec, 0, 10));
+        assertNotEquals(new DataSetQueryKey("template", "user", "uuid", filterSpec, 0, 10), new DataSetQueryKey("template", "user", "uuid", filterSpec, 1, 10));
+        assertNotEquals(new DataSetQueryKey("template", "user", "uuid", filterSpec, 0, 10), new DataSetQueryKey("template2", "user", "uuid", filterSpec, 0, 10));
+        assertNotEquals(new DataSetQueryKey("template", "user", "uuid", filterSpec, 0, 10), new DataSetQueryKey("template", "otherUser", "uuid", filterSpec, 0, 10));
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        KieServerDataSetCache cache = new KieServerDataSetCache(10, 60000);
+        DataSetQueryKey key = new DataSetQueryKey("template", "user", "uuid", "filter", 0, 10);
+        List<List> rows = Collections.singletonList(Collections.singletonList("value"));
+
+        assertNull(cache.get(key));
+        cache.put(key, rows);
+        assertEquals(rows, cache.get(key));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testSizeEviction() {
+        KieServerDataSetCache cache = new KieServerDataSetCache(2, 60000);
+        for (int i = 0; i < 5; i++) {
+            cache.put(new DataSetQueryKey("template", "user", "uuid", "filter", i, 10), Collections.emptyList());
+        }
+
+        assertEquals(2, cache.size());
+        assertEquals(3, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testInvalidateByServerTemplate() {
+        KieServerDataSetCache cache = new KieServerDataSetCache(10, 60000);
+        DataSetQueryKey key = new DataSetQueryKey("template", "user", "uuid", "filter", 0, 10);
+        DataSetQueryKey otherKey = new DataSetQueryKey("template-other", "user", "uuid", "filter", 0, 10);
+        cache.put(key, Collections.emptyList());
+        cache.put(otherKey, Collections.emptyList());
+
+        cache.invalidate("template");
+
+        assertNull(cache.get(key));
+        assertNotNull(cache.get(otherKey));
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        KieServerDataSetCache cache = new KieServerDataSetCache(10, 1);
+        DataSetQueryKey key = new DataSetQueryKey("template", "user", "uuid", "filter", 0, 10);
+        cache.put(key, Collections.emptyList());
+
+        Thread.sleep(10);
+
+        assertNull(cache.get(key));
+    }
+}
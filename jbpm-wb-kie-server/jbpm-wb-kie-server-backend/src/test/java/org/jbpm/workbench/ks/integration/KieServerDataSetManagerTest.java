@@ -17,8 +17,11 @@
 package org.jbpm.workbench.ks.integration;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.enterprise.event.Event;
 
@@ -37,6 +40,7 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.uberfire.mocks.EventSourceMock;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.*;
 import static org.mockito.Mockito.*;
 
@@ -126,4 +130,80 @@ public class KieServerDataSetManagerTest {
 
         assertEquals(1, receivedEvents.size());
     }
+
+    @Test
+    public void testRegisterQueriesSkipsAlreadyRegistered() throws Exception {
+        QueryDefinition registered = QueryDefinition.builder().name("registered").expression("select 1").source("jbpm").target("CUSTOM").build();
+        QueryDefinition changed = QueryDefinition.builder().name("changed").expression("select 2").source("jbpm").target("CUSTOM").build();
+        QueryDefinition missing = QueryDefinition.builder().name("missing").expression("select 3").source("jbpm").target("CUSTOM").build();
+        Set<QueryDefinition> definitions = new HashSet<>(Arrays.asList(registered, changed, missing));
+
+        when(queryClient.getQueries(0, 100)).thenReturn(Arrays.asList(
+                QueryDefinition.builder().name("registered").expression("select 1").source("jbpm").target("CUSTOM").build(),
+                QueryDefinition.builder().name("changed").expression("select 22").source("jbpm").target("CUSTOM").build()));
+
+        kieServerDataSetManager.registerQueriesWithRetry("template", "instance", definitions);
+
+        verify(queryClient, never()).replaceQuery(registered);
+        verify(queryClient).replaceQuery(changed);
+        verify(queryClient).replaceQuery(missing);
+        assertEquals(1, receivedEvents.size());
+    }
+
+    @Test
+    public void testRegisterQueriesConcurrently() throws Exception {
+        Set<QueryDefinition> definitions = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            definitions.add(QueryDefinition.builder().name("test" + i).expression("expression" + i).source("jbpm").target("CUSTOM").build());
+        }
+
+        kieServerDataSetManager.registerQueriesWithRetry("template", "instance", definitions);
+
+        verify(queryClient, times(50)).replaceQuery(any());
+        assertEquals(1, receivedEvents.size());
+        assertTrue(kieServerDataSetManager.getRegistrationLatencies().containsKey("instance"));
+    }
+
+    @Test
+    public void testRegisterQueriesResendsDefinitionWithChangedSource() throws Exception {
+        QueryDefinition query = QueryDefinition.builder().name("test").expression("select 1").source("jbpm").target("CUSTOM").build();
+        Set<QueryDefinition> definitions = new HashSet<>();
+        definitions.add(query);
+
+        when(queryClient.getQueries(0, 100)).thenReturn(Arrays.asList(
+                QueryDefinition.builder().name("test").expression("select 1").source("other").target("CUSTOM").build(),
+                QueryDefinition.builder().name("unrelated").expression("select 2").source("jbpm").target("CUSTOM").build()));
+
+        kieServerDataSetManager.registerQueriesWithRetry("template", "instance", definitions);
+
+        verify(queryClient).getQueries(0, 100);
+        verify(queryClient).replaceQuery(query);
+        Map<String, String> fingerprints = kieServerDataSetManager.getRegisteredFingerprints("instance");
+        assertEquals(2, fingerprints.size());
+        assertEquals(KieServerDataSetManager.fingerprint(query), fingerprints.get("test"));
+    }
+
+    @Test
+    public void testRegisterQueriesOnReconnectRestoresDefinitionsLostByServer() throws Exception {
+        QueryDefinition query = QueryDefinition.builder().name("test").expression("select 1").source("jbpm").target("CUSTOM").build();
+
+        kieServerDataSetManager.registerQueriesWithRetry("template", "instance", new HashSet<>(Arrays.asList(query)));
+        verify(queryClient).getQueries(0, 100);
+        verify(queryClient).replaceQuery(query);
+        assertEquals(KieServerDataSetManager.fingerprint(query), kieServerDataSetManager.getRegisteredFingerprints("instance").get("test"));
+
+        // same instance reconnected, definition still registered on the server
+        when(queryClient.getQueries(0, 100)).thenReturn(Arrays.asList(query));
+        kieServerDataSetManager.registerQueriesWithRetry("template", "instance", new HashSet<>(Arrays.asList(query)));
+        verify(queryClient, times(2)).getQueries(0, 100);
+        verify(queryClient).replaceQuery(query);
+        assertEquals(2, receivedEvents.size());
+
+        // server restarted with a fresh database
+        when(queryClient.getQueries(0, 100)).thenReturn(Collections.emptyList());
+        kieServerDataSetManager.registerQueriesWithRetry("template", "instance", new HashSet<>(Arrays.asList(query)));
+        verify(queryClient, times(3)).getQueries(0, 100);
+        verify(queryClient, times(2)).replaceQuery(query);
+        assertEquals(3, receivedEvents.size());
+    }
 }
@@ -16,9 +16,15 @@
 package org.jbpm.workbench.ks.integration;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 
+import org.dashbuilder.dataset.ColumnType;
+import org.dashbuilder.dataset.DataSet;
 import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.def.DataColumnDef;
 import org.dashbuilder.dataset.def.DataSetDef;
 import org.dashbuilder.dataset.filter.ColumnFilter;
 import org.dashbuilder.dataset.filter.CoreFunctionFilter;
@@ -28,16 +34,21 @@ import org.dashbuilder.dataset.group.DataSetGroup;
 import org.dashbuilder.dataset.group.GroupStrategy;
 import org.dashbuilder.dataset.group.Interval;
 import org.dashbuilder.dataset.impl.DataSetImpl;
+import org.dashbuilder.dataset.sort.ColumnSort;
+import org.dashbuilder.dataset.sort.DataSetSort;
+import org.dashbuilder.dataset.sort.SortOrder;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.kie.server.api.model.definition.QueryFilterSpec;
 import org.kie.server.api.model.definition.QueryParam;
+import org.kie.server.client.CredentialsProvider;
 import org.kie.server.client.KieServicesClient;
 import org.kie.server.client.QueryServicesClient;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import static org.dashbuilder.dataset.filter.FilterFactory.*;
@@ -67,6 +78,21 @@ public class KieServerDataSetProviderTest {
     @Mock
     DataSetDef dataSetDef;
 
+    @Spy
+    KieServerDataSetCache dataSetCache = new KieServerDataSetCache(10, 60000);
+
+    @Spy
+    DataSetQueryCoalescer queryCoalescer = new DataSetQueryCoalescer(1000);
+
+    @Spy
+    KieServerParallelExecutor parallelExecutor = new KieServerParallelExecutor(2, mock(CredentialsProvider.class));
+
+    @Spy
+    KieServerCallGuard callGuard = new KieServerCallGuard();
+
+    @Spy
+    KieServerCallMetrics callMetrics = new KieServerCallMetrics();
+
     @Before
     public void setUp() {
         when(kieServerIntegration.getServerClient("servereTemplateId")).thenReturn(kieServicesClient);
@@ -148,4 +174,210 @@ public class KieServerDataSetProviderTest {
 
     }
 
+    @Test
+    public void lookupDataSetServedFromCacheTest() throws Exception {
+        DataSetLookup lookup = new DataSetLookup();
+        lookup.setDataSetUUID("");
+        when(dataSetDef.getUUID()).thenReturn("");
+
+        DataSetLookup consoleLookup = ConsoleDataSetLookup.fromInstance(lookup, "servereTemplateId");
+        kieServerDataSetProvider.lookupDataSet(dataSetDef, consoleLookup);
+        kieServerDataSetProvider.lookupDataSet(dataSetDef, consoleLookup);
+
+        verify(queryServicesClient, times(1)).query(anyString(), anyString(), any(QueryFilterSpec.class), anyInt(), anyInt(), any());
+        assertEquals(1, dataSetCache.getHitCount());
+
+        dataSetCache.invalidate("servereTemplateId");
+        kieServerDataSetProvider.lookupDataSet(dataSetDef, consoleLookup);
+
+        verify(queryServicesClient, times(2)).query(anyString(), anyString(), any(QueryFilterSpec.class), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    public void lookupDataSetWhenServerTemplateUnavailableTest() throws Exception {
+        DataSetLookup lookup = new DataSetLookup();
+        lookup.setDataSetUUID("");
+        when(dataSetDef.getUUID()).thenReturn("");
+        when(queryServicesClient.query(anyString(), anyString(), any(QueryFilterSpec.class), anyInt(), anyInt(), any()))
+                .thenThrow(new KieServerUnavailableException("servereTemplateId", "Server template servereTemplateId is unavailable"));
+
+        DataSetLookup consoleLookup = ConsoleDataSetLookup.fromInstance(lookup, "servereTemplateId");
+        kieServerDataSetProvider.lookupDataSet(dataSetDef, consoleLookup);
+        kieServerDataSetProvider.lookupDataSet(dataSetDef, consoleLookup);
+
+        // failures are not cached
+        verify(queryServicesClient, times(2)).query(anyString(), anyString(), any(QueryFilterSpec.class), anyInt(), anyInt(), any());
+        assertEquals(0, dataSetCache.getHitCount());
+    }
+
+    @Test
+    public void lookupDataSetCachedPerUserTest() throws Exception {
+        DataSetLookup lookup = new DataSetLookup();
+        lookup.setDataSetUUID("");
+        when(dataSetDef.getUUID()).thenReturn("");
+        DataSetLookup consoleLookup = ConsoleDataSetLookup.fromInstance(lookup, "servereTemplateId");
+
+        doReturn("user1").when(parallelExecutor).currentIdentity();
+        kieServerDataSetProvider.lookupDataSet(dataSetDef, consoleLookup);
+
+        // KIE Server filters some queries by the caller, results of other users must not be served
+        doReturn("user2").when(parallelExecutor).currentIdentity();
+        kieServerDataSetProvider.lookupDataSet(dataSetDef, consoleLookup);
+
+        verify(queryServicesClient, times(2)).query(anyString(), anyString(), any(QueryFilterSpec.class), anyInt(), anyInt(), any());
+
+        doReturn("user1").when(parallelExecutor).currentIdentity();
+        kieServerDataSetProvider.lookupDataSet(dataSetDef, consoleLookup);
+
+        verify(queryServicesClient, times(2)).query(anyString(), anyString(), any(QueryFilterSpec.class), anyInt(), anyInt(), any());
+        assertEquals(1, dataSetCache.getHitCount());
+    }
+
+    @Test
+    public void lookupDataSetWithRowCountTest() throws Exception {
+        kieServerDataSetProvider.setRowCountEnabled(true);
+
+        DataSetLookup lookup = new DataSetLookup();
+        lookup.setDataSetUUID("");
+        lookup.setRowOffset(0);
+        lookup.setNumberOfRows(2);
+        when(dataSetDef.getUUID()).thenReturn("");
+        when(dataSetDef.getColumns()).thenReturn(Collections.singletonList(new DataColumnDef(COLUMN_TEST, ColumnType.NUMBER)));
+
+        doReturn(Arrays.asList(Collections.singletonList(1), Collections.singletonList(2))).when(queryServicesClient).query(anyString(), anyString(), any(QueryFilterSpec.class), eq(0), eq(2), any());
+        doReturn(Collections.singletonList(Collections.singletonList(10L))).when(queryServicesClient).query(anyString(), anyString(), any(QueryFilterSpec.class), eq(0), eq(1), any());
+
+        DataSet result = kieServerDataSetProvider.lookupDataSet(dataSetDef, ConsoleDataSetLookup.fromInstance(lookup, "servereTemplateId"));
+
+        assertEquals(2, result.getRowCount());
+        assertEquals(10, result.getRowCountNonTrimmed());
+
+        final ArgumentCaptor<QueryFilterSpec> captor = ArgumentCaptor.forClass(QueryFilterSpec.class);
+        verify(queryServicesClient).query(anyString(), anyString(), captor.capture(), eq(0), eq(1), any());
+        QueryParam countParam = captor.getValue().getParameters()[0];
+        assertEquals(COLUMN_TEST, countParam.getColumn());
+        assertEquals("COUNT", countParam.getOperator());
+    }
+
+    @Test
+    public void lookupDataSetWithRowCountOnLastPageTest() throws Exception {
+        kieServerDataSetProvider.setRowCountEnabled(true);
+
+        DataSetLookup lookup = new DataSetLookup();
+        lookup.setDataSetUUID("");
+        lookup.setRowOffset(4);
+        lookup.setNumberOfRows(2);
+        when(dataSetDef.getUUID()).thenReturn("");
+        when(dataSetDef.getColumns()).thenReturn(Collections.singletonList(new DataColumnDef(COLUMN_TEST, ColumnType.NUMBER)));
+
+        doReturn(Collections.singletonList(Collections.singletonList(5))).when(queryServicesClient).query(anyString(), anyString(), any(QueryFilterSpec.class), eq(2), eq(2), any());
+
+        DataSet result = kieServerDataSetProvider.lookupDataSet(dataSetDef, ConsoleDataSetLookup.fromInstance(lookup, "servereTemplateId"));
+
+        assertEquals(5, result.getRowCountNonTrimmed());
+        verify(queryServicesClient, times(1)).query(anyString(), anyString(), any(QueryFilterSpec.class), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    public void lookupDataSetWithUnalignedOffsetTest() throws Exception {
+        DataSetLookup lookup = new DataSetLookup();
+        lookup.setDataSetUUID("");
+        lookup.setRowOffset(3);
+        lookup.setNumberOfRows(2);
+        when(dataSetDef.getUUID()).thenReturn("");
+        when(dataSetDef.getColumns()).thenReturn(Collections.singletonList(new DataColumnDef(COLUMN_TEST, ColumnType.NUMBER)));
+
+        doReturn(Arrays.asList(Collections.singletonList(2), Collections.singletonList(3))).when(queryServicesClient).query(anyString(), anyString(), any(QueryFilterSpec.class), eq(1), eq(2), any());
+        doReturn(Arrays.asList(Collections.singletonList(4), Collections.singletonList(5))).when(queryServicesClient).query(anyString(), anyString(), any(QueryFilterSpec.class), eq(2), eq(2), any());
+
+        DataSet result = kieServerDataSetProvider.lookupDataSet(dataSetDef, ConsoleDataSetLookup.fromInstance(lookup, "servereTemplateId"));
+
+        assertEquals(Arrays.asList(3, 4), result.getColumnById(COLUMN_TEST).getValues());
+    }
+
+    @Test
+    public void lookupDataSetWithKeysetPagingTest() throws Exception {
+        DataSetLookup lookup = new DataSetLookup();
+        lookup.setDataSetUUID("");
+        lookup.setRowOffset(5000);
+        lookup.setNumberOfRows(10);
+        DataSetSort sort = new DataSetSort();
+        sort.addSortColumn(new ColumnSort(COLUMN_TEST, SortOrder.DESCENDING));
+        lookup.addOperation(sort);
+        when(dataSetDef.getUUID()).thenReturn("");
+
+        ConsoleDataSetLookup consoleLookup = (ConsoleDataSetLookup) ConsoleDataSetLookup.fromInstance(lookup, "servereTemplateId");
+        consoleLookup.seekAfter(10L, "id", 5L);
+        kieServerDataSetProvider.lookupDataSet(dataSetDef, consoleLookup);
+
+        final ArgumentCaptor<QueryFilterSpec> captor = ArgumentCaptor.forClass(QueryFilterSpec.class);
+        verify(queryServicesClient).query(anyString(), anyString(), captor.capture(), eq(0), eq(10), any());
+
+        QueryFilterSpec filterSpec = captor.getValue();
+        assertEquals(COLUMN_TEST + ",id", filterSpec.getOrderBy());
+        assertFalse(filterSpec.isAscending());
+        assertEquals(1, filterSpec.getParameters().length);
+        assertEquals("OR", filterSpec.getParameters()[0].getOperator());
+    }
+
+    @Test
+    public void lookupDataSetOnAllServerTemplatesTest() throws Exception {
+        KieServicesClient otherKieServicesClient = mock(KieServicesClient.class);
+        QueryServicesClient otherQueryServicesClient = mock(QueryServicesClient.class);
+        when(kieServerIntegration.getServerTemplateIds()).thenReturn(new HashSet<>(Arrays.asList("servereTemplateId", "otherTemplateId")));
+        when(kieServerIntegration.getServerClient("otherTemplateId")).thenReturn(otherKieServicesClient);
+        when(otherKieServicesClient.getServicesClient(QueryServicesClient.class)).thenReturn(otherQueryServicesClient);
+
+        DataSetLookup lookup = new DataSetLookup();
+        lookup.setDataSetUUID("");
+        lookup.setRowOffset(1);
+        lookup.setNumberOfRows(3);
+        DataSetSort sort = new DataSetSort();
+        sort.addSortColumn(new ColumnSort(COLUMN_TEST, SortOrder.ASCENDING));
+        lookup.addOperation(sort);
+        when(dataSetDef.getUUID()).thenReturn("");
+        when(dataSetDef.getColumns()).thenReturn(Collections.singletonList(new DataColumnDef(COLUMN_TEST, ColumnType.NUMBER)));
+
+        doReturn(Arrays.asList(Collections.singletonList(1), Collections.singletonList(4), Collections.singletonList(5))).when(queryServicesClient).query(anyString(), anyString(), any(QueryFilterSpec.class), eq(0), eq(4), any());
+        doReturn(Arrays.asList(Collections.singletonList(2), Collections.singletonList(3))).when(otherQueryServicesClient).query(anyString(), anyString(), any(QueryFilterSpec.class), eq(0), eq(4), any());
+
+        ConsoleDataSetLookup consoleLookup = (ConsoleDataSetLookup) ConsoleDataSetLookup.fromInstance(lookup, null);
+        consoleLookup.setAllServerTemplates(true);
+        DataSet result = kieServerDataSetProvider.lookupDataSet(dataSetDef, consoleLookup);
+
+        assertEquals(Arrays.asList(2, 3, 4), result.getColumnById(COLUMN_TEST).getValues());
+        assertEquals(Arrays.asList("otherTemplateId", "otherTemplateId", "servereTemplateId"), result.getColumnById(KieServerDataSetProvider.SERVER_TEMPLATE_COLUMN).getValues());
+        assertEquals(5, result.getRowCountNonTrimmed());
+    }
+
+    @Test
+    public void lookupDataSetOnAllServerTemplatesRowCountTest() throws Exception {
+        KieServicesClient otherKieServicesClient = mock(KieServicesClient.class);
+        QueryServicesClient otherQueryServicesClient = mock(QueryServicesClient.class);
+        when(kieServerIntegration.getServerTemplateIds()).thenReturn(new HashSet<>(Arrays.asList("servereTemplateId", "otherTemplateId")));
+        when(kieServerIntegration.getServerClient("otherTemplateId")).thenReturn(otherKieServicesClient);
+        when(otherKieServicesClient.getServicesClient(QueryServicesClient.class)).thenReturn(otherQueryServicesClient);
+
+        DataSetLookup lookup = new DataSetLookup();
+        lookup.setDataSetUUID("");
+        lookup.setRowOffset(0);
+        lookup.setNumberOfRows(3);
+        when(dataSetDef.getUUID()).thenReturn("");
+        when(dataSetDef.getColumns()).thenReturn(Collections.singletonList(new DataColumnDef(COLUMN_TEST, ColumnType.NUMBER)));
+
+        doReturn(Arrays.asList(Collections.singletonList(1), Collections.singletonList(4), Collections.singletonList(5))).when(queryServicesClient).query(anyString(), anyString(), any(QueryFilterSpec.class), eq(0), eq(3), any());
+        doReturn(Collections.singletonList(Collections.singletonList(10))).when(queryServicesClient).query(anyString(), anyString(), any(QueryFilterSpec.class), eq(0), eq(1), any());
+        doReturn(Arrays.asList(Collections.singletonList(2), Collections.singletonList(3))).when(otherQueryServicesClient).query(anyString(), anyString(), any(QueryFilterSpec.class), eq(0), eq(3), any());
+
+        ConsoleDataSetLookup consoleLookup = (ConsoleDataSetLookup) ConsoleDataSetLookup.fromInstance(lookup, null);
+        consoleLookup.setAllServerTemplates(true);
+
+        // template returning a full slice has at least one more row
+        assertEquals(6, kieServerDataSetProvider.lookupDataSet(dataSetDef, consoleLookup).getRowCountNonTrimmed());
+
+        kieServerDataSetProvider.setRowCountEnabled(true);
+        assertEquals(12, kieServerDataSetProvider.lookupDataSet(dataSetDef, consoleLookup).getRowCountNonTrimmed());
+        verify(otherQueryServicesClient, never()).query(anyString(), anyString(), any(QueryFilterSpec.class), eq(0), eq(1), any());
+    }
+
 }
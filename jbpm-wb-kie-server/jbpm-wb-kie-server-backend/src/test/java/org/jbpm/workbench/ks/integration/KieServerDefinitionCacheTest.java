@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.kie.server.api.model.KieContainerStatus;
+import org.kie.server.api.model.ReleaseId;
+import org.kie.server.controller.api.model.events.ServerTemplateDeleted;
+import org.kie.server.controller.api.model.events.ServerTemplateUpdated;
+import org.kie.server.controller.api.model.spec.ContainerSpec;
+import org.kie.server.controller.api.model.spec.ServerTemplate;
+
+import static org.junit.Assert.*;
+
+public class KieServerDefinitionCacheTest {
+
+    private final KieServerDefinitionCache cache = new KieServerDefinitionCache(10, 60000);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void testDefinitionLoadedOnce() {
+        assertEquals("definition", get("template", "container", "process", "variables"));
+        assertEquals("definition", get("template", "container", "process", "variables"));
+        assertEquals(1, loads.get());
+
+        get("template", "container", "process", "userTasks");
+        get("template", "container", "otherProcess", "variables");
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testNullNotCached() {
+        assertNull(cache.get("template", "container", "process", "variables", () -> null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testRedeployedContainerInvalidated() {
+        ServerTemplate serverTemplate = newServerTemplate(newContainerSpec("container", "1.0", KieContainerStatus.STARTED),
+                                                          newContainerSpec("otherContainer", "1.0", KieContainerStatus.STARTED));
+        cache.onServerTemplateUpdated(new ServerTemplateUpdated(serverTemplate));
+
+        get("template", "container", "process", "variables");
+        get("template", "otherContainer", "process", "variables");
+        assertEquals(2, loads.get());
+
+        // unrelated template update keeps definitions
+        cache.onServerTemplateUpdated(new ServerTemplateUpdated(serverTemplate));
+        assertEquals(2, cache.size());
+
+        serverTemplate.setContainersSpec(Arrays.asList(newContainerSpec("container", "2.0", KieContainerStatus.STARTED),
+                                                       newContainerSpec("otherContainer", "1.0", KieContainerStatus.STARTED)));
+        cache.onServerTemplateUpdated(new ServerTemplateUpdated(serverTemplate));
+
+        assertEquals(1, cache.size());
+        get("template", "container", "process", "variables");
+        get("template", "otherContainer", "process", "variables");
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testUndeployedContainerInvalidated() {
+        ServerTemplate serverTemplate = newServerTemplate(newContainerSpec("container", "1.0", KieContainerStatus.STARTED));
+        cache.onServerTemplateUpdated(new ServerTemplateUpdated(serverTemplate));
+        get("template", "container", "process", "variables");
+
+        serverTemplate.setContainersSpec(Collections.singletonList(newContainerSpec("container", "1.0", KieContainerStatus.STOPPED)));
+        cache.onServerTemplateUpdated(new ServerTemplateUpdated(serverTemplate));
+        assertEquals(0, cache.size());
+
+        get("template", "container", "process", "variables");
+        serverTemplate.setContainersSpec(Collections.emptyList());
+        cache.onServerTemplateUpdated(new ServerTemplateUpdated(serverTemplate));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testUnknownOrDeletedServerTemplateInvalidated() {
+        get("template", "container", "process", "variables");
+        get("otherTemplate", "container", "process", "variables");
+
+        cache.onServerTemplateUpdated(new ServerTemplateUpdated(newServerTemplate(newContainerSpec("container", "1.0", KieContainerStatus.STARTED))));
+        assertEquals(1, cache.size());
+
+        cache.onServerTemplateDeleted(new ServerTemplateDeleted("otherTemplate"));
+        assertEquals(0, cache.size());
+    }
+
+    private Object get(String serverTemplateId, String containerId, String processId, String definition) {
+        return cache.get(serverTemplateId, containerId, processId, definition, () -> {
+            loads.incrementAndGet();
+            return "definition";
+        });
+    }
+
+    private ServerTemplate newServerTemplate(ContainerSpec... containerSpecs) {
+        ServerTemplate serverTemplate = new ServerTemplate();
+        serverTemplate.setId("template");
+        serverTemplate.setContainersSpec(Arrays.asList(containerSpecs));
+        return serverTemplate;
+    }
+
+    private ContainerSpec newContainerSpec(String containerId, String version, KieContainerStatus status) {
+        ContainerSpec containerSpec = new ContainerSpec();
+        containerSpec.setId(containerId);
+        containerSpec.setReleasedId(new ReleaseId("org.jbpm", "evaluation", version));
+        containerSpec.setStatus(status);
+        return containerSpec;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.kie.server.client.balancer.LoadBalancer;
+
+import static org.junit.Assert.*;
+
+public class KieServerHealthMonitorTest {
+
+    private static final String FAST_URL = "http://fast:8080/kie-server/services/rest/server";
+    private static final String ALSO_FAST_URL = "http://also-fast:8080/kie-server/services/rest/server";
+    private static final String SLOW_URL = "http://slow:8080/kie-server/services/rest/server";
+
+    @Test
+    public void testRollingPercentilesAndErrorRate() {
+        KieServerHealthMonitor healthMonitor = new KieServerHealthMonitor(null, 1000);
+        for (int i = 1; i <= 100; i++) {
+            healthMonitor.record(FAST_URL, i, false);
+        }
+
+        KieServerHealthMonitor.EndpointHealth health = healthMonitor.getHealth(FAST_URL);
+        assertEquals(50, health.getP50());
+        assertEquals(99, health.getP99());
+        assertEquals(0.0, health.getErrorRate(), 0.0);
+        assertTrue(health.isHealthy());
+
+        for (int i = 0; i < 60; i++) {
+            healthMonitor.record(FAST_URL, 1, true);
+        }
+        assertEquals(0.6, health.getErrorRate(), 0.001);
+        assertFalse(health.isHealthy());
+    }
+
+    @Test
+    public void testFastestHealthyEndpointsPreferred() {
+        KieServerHealthMonitor healthMonitor = new KieServerHealthMonitor(null, 1000);
+        healthMonitor.record(FAST_URL, 10, false);
+        healthMonitor.record(ALSO_FAST_URL, 11, false);
+        healthMonitor.record(SLOW_URL, 500, false);
+
+        LatencyAwareBalancerStrategy strategy = new LatencyAwareBalancerStrategy(Arrays.asList(FAST_URL, ALSO_FAST_URL, SLOW_URL), healthMonitor);
+        Set<String> selected = new HashSet<String>();
+        for (int i = 0; i < 10; i++) {
+            selected.add(strategy.next());
+        }
+
+        assertEquals(new HashSet<String>(Arrays.asList(FAST_URL, ALSO_FAST_URL)), selected);
+    }
+
+    @Test
+    public void testHealthLookedUpOncePerEndpoint() {
+        final Set<String> lookedUp = new HashSet<String>();
+        KieServerHealthMonitor healthMonitor = new KieServerHealthMonitor(null, 1000) {
+            @Override
+            public EndpointHealth getHealth(String url) {
+                // health dropped (e.g. endpoints reset) once it was looked up
+                return lookedUp.add(url) ? super.getHealth(url) : null;
+            }
+        };
+        healthMonitor.record(FAST_URL, 10, false);
+        healthMonitor.record(SLOW_URL, 500, false);
+
+        LatencyAwareBalancerStrategy strategy = new LatencyAwareBalancerStrategy(Arrays.asList(FAST_URL, SLOW_URL), healthMonitor);
+
+        assertEquals(Collections.singletonList(FAST_URL), strategy.getFastestEndpoints());
+    }
+
+    @Test
+    public void testRoundRobinUntilProbed() {
+        KieServerHealthMonitor healthMonitor = new KieServerHealthMonitor(null, 1000);
+        healthMonitor.record(FAST_URL, 10, false);
+
+        LatencyAwareBalancerStrategy strategy = new LatencyAwareBalancerStrategy(Arrays.asList(FAST_URL, SLOW_URL), healthMonitor);
+        Set<String> selected = new HashSet<String>();
+        for (int i = 0; i < 10; i++) {
+            selected.add(strategy.next());
+        }
+
+        assertEquals(new HashSet<String>(Arrays.asList(FAST_URL, SLOW_URL)), selected);
+    }
+
+    @Test
+    public void testFailingEndpointTakenOutOfLoadBalancer() {
+        KieServerHealthMonitor healthMonitor = new KieServerHealthMonitor(null, 1000) {
+            @Override
+            protected void probe(String url) throws IOException {
+                if (SLOW_URL.equals(url)) {
+                    throw new IOException("Connection refused");
+                }
+            }
+        };
+        LoadBalancer loadBalancer = LoadBalancer.getDefault(FAST_URL + "|" + SLOW_URL);
+
+        healthMonitor.probeAll(Collections.singletonMap(FAST_URL + "|" + SLOW_URL, loadBalancer));
+
+        assertFalse(healthMonitor.getHealth(SLOW_URL).isHealthy());
+        assertEquals(Collections.singletonList(FAST_URL), loadBalancer.getAvailableEndpoints());
+    }
+}
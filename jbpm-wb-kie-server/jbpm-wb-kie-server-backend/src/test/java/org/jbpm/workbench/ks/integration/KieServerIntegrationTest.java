@@ -0,0 +1,319 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.ks.integration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.runtime.KieContainer;
+import org.kie.server.api.model.ReleaseId;
+import org.kie.server.client.CredentialsProvider;
+import org.kie.server.client.KieServicesClient;
+import org.kie.server.client.balancer.LoadBalancer;
+import org.kie.server.client.impl.KieServicesClientImpl;
+import org.kie.server.controller.api.model.events.ServerInstanceConnected;
+import org.kie.server.controller.api.model.events.ServerInstanceDisconnected;
+import org.kie.server.controller.api.model.runtime.ServerInstance;
+import org.kie.server.controller.api.model.runtime.ServerInstanceKey;
+import org.kie.server.controller.api.model.spec.ContainerSpec;
+import org.kie.server.controller.api.model.spec.ServerTemplate;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class KieServerIntegrationTest {
+
+    private KieServerIntegration kieServerIntegration;
+
+    @Before
+    public void setup() {
+        kieServerIntegration = new KieServerIntegration();
+    }
+
+    @Test
+    public void testLoadBalancerSharedForSameEndpoints() {
+        LoadBalancer loadBalancer = kieServerIntegration.getLoadBalancer("template", "http://localhost:8080/kie-server/services/rest/server");
+        LoadBalancer sameLoadBalancer = kieServerIntegration.getLoadBalancer("template", "http://localhost:8080/kie-server/services/rest/server");
+        LoadBalancer otherTemplateLoadBalancer = kieServerIntegration.getLoadBalancer("template2", "http://localhost:8080/kie-server/services/rest/server");
+
+        assertSame(loadBalancer, sameLoadBalancer);
+        assertSame(loadBalancer, otherTemplateLoadBalancer);
+    }
+
+    @Test
+    public void testLoadBalancerReplacedWhenEndpointsChange() {
+        LoadBalancer loadBalancer = kieServerIntegration.getLoadBalancer("template", "http://localhost:8080/kie-server/services/rest/server");
+        LoadBalancer updatedLoadBalancer = kieServerIntegration.getLoadBalancer("template", "http://localhost:8080/kie-server/services/rest/server|http://localhost:8180/kie-server/services/rest/server");
+
+        assertNotSame(loadBalancer, updatedLoadBalancer);
+        assertEquals(1, kieServerIntegration.getClientsPerEndpoints().size());
+    }
+
+    @Test
+    public void testContainerClientCreatedOnFirstUse() {
+        final KieServicesClient containerClient = mock(KieServicesClient.class);
+        final AtomicInteger builds = new AtomicInteger();
+        kieServerIntegration = new KieServerIntegration() {
+            @Override
+            protected KieServicesClient buildClientForContainer(ServerTemplate serverTemplate, ContainerSpec containerSpec, String key) {
+                builds.incrementAndGet();
+                return containerClient;
+            }
+        };
+
+        ContainerSpec containerSpec = new ContainerSpec();
+        containerSpec.setId("container");
+        ServerTemplate serverTemplate = new ServerTemplate();
+        serverTemplate.setId("template");
+        serverTemplate.setContainersSpec(Collections.singletonList(containerSpec));
+
+        kieServerIntegration.buildClientsForServer(serverTemplate);
+
+        assertEquals(KieServerIntegration.ContainerClientStatus.PENDING, kieServerIntegration.getContainerClientsStatus().get("template|container"));
+        assertFalse(kieServerIntegration.isWarmUpCompleted());
+
+        assertSame(containerClient, kieServerIntegration.getServerClient("template", "container"));
+        assertSame(containerClient, kieServerIntegration.getServerClient("template", "container"));
+        assertEquals(1, builds.get());
+        assertTrue(kieServerIntegration.isWarmUpCompleted());
+    }
+
+    @Test
+    public void testContainerClientPublishedWithTask() {
+        final List<Map<String, KieServerIntegration.ContainerClientStatus>> statusWhenPrepared = new ArrayList<>();
+        kieServerIntegration = new KieServerIntegration() {
+            @Override
+            protected FutureTask<KieServicesClient> prepareContainerClient(ServerTemplate serverTemplate, KieServerClientRegistry.ContainerClient containerClient) {
+                statusWhenPrepared.add(getContainerClientsStatus());
+                return super.prepareContainerClient(serverTemplate, containerClient);
+            }
+        };
+
+        kieServerIntegration.buildClientsForServer(newServerTemplate("template", "container"));
+
+        assertEquals(1, statusWhenPrepared.size());
+        assertTrue(statusWhenPrepared.get(0).isEmpty());
+        assertEquals(KieServerIntegration.ContainerClientStatus.PENDING, kieServerIntegration.getContainerClientsStatus().get("template|container"));
+    }
+
+    @Test
+    public void testCancelledContainerClientRebuiltOnUse() {
+        final KieServicesClient containerClient = mock(KieServicesClient.class);
+        final List<FutureTask<KieServicesClient>> tasks = new ArrayList<>();
+        kieServerIntegration = new KieServerIntegration() {
+            @Override
+            protected FutureTask<KieServicesClient> prepareContainerClient(ServerTemplate serverTemplate, KieServerClientRegistry.ContainerClient client) {
+                FutureTask<KieServicesClient> task = super.prepareContainerClient(serverTemplate, client);
+                tasks.add(task);
+                return task;
+            }
+
+            @Override
+            protected KieServicesClient buildClientForContainer(ServerTemplate serverTemplate, ContainerSpec containerSpec, String key) {
+                return containerClient;
+            }
+        };
+        kieServerIntegration.buildClientsForServer(newServerTemplate("template", "container"));
+
+        tasks.get(0).cancel(false);
+
+        assertSame(containerClient, kieServerIntegration.getServerClient("template", "container"));
+        assertEquals(2, tasks.size());
+        assertEquals(KieServerIntegration.ContainerClientStatus.READY, kieServerIntegration.getContainerClientsStatus().get("template|container"));
+    }
+
+    @Test
+    public void testContainerClientsReleasedWhenContainerUpgraded() {
+        kieServerIntegration = new KieServerIntegration() {
+            @Override
+            protected KieServicesClient createClientForTemplate(ServerTemplate serverTemplate, ClassLoader classLoader, CredentialsProvider credentialsProvider) {
+                return mock(KieServicesClient.class);
+            }
+        };
+        final KieContainer kieContainer = mock(KieContainer.class);
+        kieServerIntegration.setKieContainerCache(new KieContainerCache(releaseId -> kieContainer,
+                                                                        kieServerIntegration::onKieContainerRemoved,
+                                                                        10,
+                                                                        60000));
+
+        ContainerSpec containerSpec = new ContainerSpec();
+        containerSpec.setId("container");
+        containerSpec.setReleasedId(new ReleaseId("org.jbpm", "evaluation", "1.0"));
+        ServerTemplate serverTemplate = new ServerTemplate();
+        serverTemplate.setId("template");
+        serverTemplate.setContainersSpec(Collections.singletonList(containerSpec));
+
+        kieServerIntegration.buildClientsForServer(serverTemplate);
+        KieServicesClient containerClient = kieServerIntegration.getServerClient("template", "container");
+        assertNotNull(containerClient);
+        assertEquals(1, kieServerIntegration.getKieContainerCacheEntries().size());
+
+        ContainerSpec upgradedContainerSpec = new ContainerSpec();
+        upgradedContainerSpec.setId("container");
+        upgradedContainerSpec.setReleasedId(new ReleaseId("org.jbpm", "evaluation", "2.0"));
+        serverTemplate.setContainersSpec(Collections.singletonList(upgradedContainerSpec));
+
+        kieServerIntegration.buildClientsForServer(serverTemplate);
+
+        verify(kieContainer).dispose();
+        assertEquals(KieServerIntegration.ContainerClientStatus.PENDING, kieServerIntegration.getContainerClientsStatus().get("template|container"));
+        assertNotSame(containerClient, kieServerIntegration.getServerClient("template", "container"));
+        assertEquals("org.jbpm:evaluation:2.0", kieServerIntegration.getKieContainerCacheEntries().get(0).getReleaseId());
+    }
+
+    @Test
+    public void testContainerClientReplacementPublishedWithTask() {
+        final List<KieServerIntegration.ContainerClientStatus> statusWhenPrepared = new ArrayList<>();
+        kieServerIntegration = new KieServerIntegration() {
+            @Override
+            protected KieServicesClient createClientForTemplate(ServerTemplate serverTemplate, ClassLoader classLoader, CredentialsProvider credentialsProvider) {
+                return mock(KieServicesClient.class);
+            }
+
+            @Override
+            protected FutureTask<KieServicesClient> prepareContainerClient(ServerTemplate serverTemplate, KieServerClientRegistry.ContainerClient containerClient) {
+                statusWhenPrepared.add(getContainerClientsStatus().get("template|container"));
+                return super.prepareContainerClient(serverTemplate, containerClient);
+            }
+        };
+        kieServerIntegration.setKieContainerCache(new KieContainerCache(releaseId -> mock(KieContainer.class),
+                                                                        kieServerIntegration::onKieContainerRemoved,
+                                                                        10,
+                                                                        60000));
+        ServerTemplate serverTemplate = newServerTemplate("template", "container");
+        serverTemplate.getContainersSpec().get(0).setReleasedId(new ReleaseId("org.jbpm", "evaluation", "1.0"));
+        kieServerIntegration.buildClientsForServer(serverTemplate);
+        assertNotNull(kieServerIntegration.getServerClient("template", "container"));
+
+        kieServerIntegration.onKieContainerRemoved("org.jbpm:evaluation:1.0");
+
+        // replacement is prepared while the released client is still published
+        assertEquals(2, statusWhenPrepared.size());
+        assertEquals(KieServerIntegration.ContainerClientStatus.READY, statusWhenPrepared.get(1));
+        assertEquals(KieServerIntegration.ContainerClientStatus.PENDING, kieServerIntegration.getContainerClientsStatus().get("template|container"));
+    }
+
+    @Test
+    public void testConnectDisconnectStormUpdatesSharedLoadBalancerOnly() {
+        final String url = "http://localhost:8080/kie-server/services/rest/server";
+        final String otherUrl = "http://localhost:8180/kie-server/services/rest/server";
+        final Map<String, LoadBalancer> loadBalancers = new HashMap<String, LoadBalancer>();
+        kieServerIntegration = new KieServerIntegration() {
+            @Override
+            protected KieServicesClient createClientForTemplate(ServerTemplate serverTemplate, ClassLoader classLoader, CredentialsProvider credentialsProvider) {
+                indexServerInstances(serverTemplate);
+                LoadBalancer loadBalancer = loadBalancers.computeIfAbsent(serverTemplate.getId(), id -> spy(LoadBalancer.getDefault(url + "|" + otherUrl)));
+                KieServicesClientImpl client = mock(KieServicesClientImpl.class);
+                when(client.getLoadBalancer()).thenReturn(loadBalancer);
+                return client;
+            }
+
+            @Override
+            protected KieServicesClient buildClientForContainer(ServerTemplate serverTemplate, ContainerSpec containerSpec, String key) {
+                return createClientForTemplate(serverTemplate, null, null);
+            }
+        };
+
+        ServerTemplate serverTemplate = newServerTemplate("template", url, otherUrl, 200);
+        ServerTemplate otherServerTemplate = newServerTemplate("template2", url, otherUrl, 1);
+        kieServerIntegration.buildClientsForServer(serverTemplate);
+        kieServerIntegration.buildClientsForServer(otherServerTemplate);
+        for (ContainerSpec containerSpec : serverTemplate.getContainersSpec()) {
+            assertNotNull(kieServerIntegration.getServerClient("template", containerSpec.getId()));
+        }
+
+        ServerInstance serverInstance = new ServerInstance();
+        serverInstance.setServerInstanceId("template@localhost:8080");
+        serverInstance.setServerTemplateId("template");
+        serverInstance.setUrl(url);
+
+        final int events = 1000;
+        for (int i = 0; i < events; i++) {
+            kieServerIntegration.onServerInstanceDisconnected(new ServerInstanceDisconnected("template@localhost:8080"));
+            kieServerIntegration.onServerInstanceConnected(new ServerInstanceConnected(serverInstance));
+        }
+
+        verify(loadBalancers.get("template"), times(events)).markAsFailed(url);
+        verify(loadBalancers.get("template"), times(events)).activate(url);
+        verify(loadBalancers.get("template2"), never()).markAsFailed(anyString());
+        verify(loadBalancers.get("template2"), never()).activate(anyString());
+        assertEquals(200, kieServerIntegration.getContainerClientsStatus().values().stream()
+                .filter(status -> status == KieServerIntegration.ContainerClientStatus.READY)
+                .count());
+    }
+
+    @Test
+    public void testLoadBalancerOfLazilyCreatedContainerClientUpdated() {
+        final String url = "http://localhost:8080/kie-server/services/rest/server";
+        final LoadBalancer containerLoadBalancer = spy(LoadBalancer.getDefault(url));
+        kieServerIntegration = new KieServerIntegration() {
+            @Override
+            protected KieServicesClient createClientForTemplate(ServerTemplate serverTemplate, ClassLoader classLoader, CredentialsProvider credentialsProvider) {
+                indexServerInstances(serverTemplate);
+                return mock(KieServicesClient.class);
+            }
+
+            @Override
+            protected KieServicesClient buildClientForContainer(ServerTemplate serverTemplate, ContainerSpec containerSpec, String key) {
+                KieServicesClientImpl client = mock(KieServicesClientImpl.class);
+                when(client.getLoadBalancer()).thenReturn(containerLoadBalancer);
+                return client;
+            }
+        };
+
+        ServerTemplate serverTemplate = newServerTemplate("template", url, url, 1);
+        kieServerIntegration.buildClientsForServer(serverTemplate);
+        // template updated while the container client is still pending
+        kieServerIntegration.buildClientsForServer(serverTemplate);
+        assertNotNull(kieServerIntegration.getServerClient("template", "container0"));
+
+        kieServerIntegration.onServerInstanceDisconnected(new ServerInstanceDisconnected("template@localhost:8080"));
+
+        verify(containerLoadBalancer).markAsFailed(url);
+    }
+
+    private ServerTemplate newServerTemplate(String id, String url, String otherUrl, int containers) {
+        ServerTemplate serverTemplate = new ServerTemplate();
+        serverTemplate.setId(id);
+        serverTemplate.addServerInstance(new ServerInstanceKey(id, "localhost:8080", id + "@localhost:8080", url));
+        serverTemplate.addServerInstance(new ServerInstanceKey(id, "localhost:8180", id + "@localhost:8180", otherUrl));
+        List<ContainerSpec> containersSpec = new ArrayList<ContainerSpec>();
+        for (int i = 0; i < containers; i++) {
+            ContainerSpec containerSpec = new ContainerSpec();
+            containerSpec.setId("container" + i);
+            containersSpec.add(containerSpec);
+        }
+        serverTemplate.setContainersSpec(containersSpec);
+        return serverTemplate;
+    }
+
+    private ServerTemplate newServerTemplate(String serverTemplateId, String containerId) {
+        ContainerSpec containerSpec = new ContainerSpec();
+        containerSpec.setId(containerId);
+        ServerTemplate serverTemplate = new ServerTemplate();
+        serverTemplate.setId(serverTemplateId);
+        serverTemplate.setContainersSpec(Collections.singletonList(containerSpec));
+        return serverTemplate;
+    }
+}
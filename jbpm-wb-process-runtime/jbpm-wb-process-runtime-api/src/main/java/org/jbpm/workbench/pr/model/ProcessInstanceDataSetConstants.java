@@ -23,6 +23,8 @@ public final class ProcessInstanceDataSetConstants {
 
     public static final String PROCESS_INSTANCE_DATASET = "jbpmProcessInstances";
     public static final String PROCESS_INSTANCE_WITH_VARIABLES_DATASET = "jbpmProcessInstancesWithVariables";
+    public static final String PROCESS_INSTANCE_TASK_EVENTS_DATASET = "jbpmProcessInstanceTaskEvents";
+    public static final String PROCESS_INSTANCE_VARIABLES_DATASET = "jbpmProcessInstanceVariables";
 
     public static final String COLUMN_PROCESS_INSTANCE_ID = "processInstanceId";
     public static final String COLUMN_PROCESS_ID = "processId";
@@ -47,6 +49,22 @@ public final class ProcessInstanceDataSetConstants {
     public static final String VARIABLE_VALUE = "value";
     public static final String VARIABLE_ID = "id";
 
+    public static final String COLUMN_TASK_EVENT_ID = "id";
+    public static final String COLUMN_TASK_EVENT_TASK_ID = "taskId";
+    public static final String COLUMN_TASK_EVENT_WORK_ITEM_ID = "workItemId";
+    public static final String COLUMN_TASK_EVENT_TYPE = "type";
+    public static final String COLUMN_TASK_EVENT_USER_ID = "userId";
+    public static final String COLUMN_TASK_EVENT_LOG_TIME = "logTime";
+    public static final String COLUMN_TASK_EVENT_PROCESS_INSTANCE_ID = "processInstanceId";
+
+    public static final String COLUMN_VARIABLE_ID = "id";
+    public static final String COLUMN_VARIABLE_PROCESS_INSTANCE_ID = "processInstanceId";
+    public static final String COLUMN_VARIABLE_NAME = "variableId";
+    public static final String COLUMN_VARIABLE_VALUE = "value";
+    public static final String COLUMN_VARIABLE_OLD_VALUE = "oldValue";
+    public static final String COLUMN_VARIABLE_LOG_DATE = "log_date";
+    public static final String COLUMN_VARIABLE_NAME_LOWER = "variableIdLower";
+
     public static final String COL_ID_SELECT = "Select";
     public static final String COL_ID_ACTIONS = "Actions";
 }
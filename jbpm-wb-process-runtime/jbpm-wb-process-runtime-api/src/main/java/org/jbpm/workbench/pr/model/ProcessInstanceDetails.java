@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.pr.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.errai.common.client.api.annotations.Portable;
+
+/**
+ * Composite details of a single process instance, only requested facets are populated. Facets that could not be
+ * loaded are reported as failed instead of failing the whole batch.
+ */
+@Portable
+public class ProcessInstanceDetails implements Serializable {
+
+    private ProcessInstanceKey processInstanceKey;
+    private ProcessInstanceSummary summary;
+    private List<NodeInstanceSummary> activeNodes;
+    private RuntimeLogPage runtimeLogs;
+    private List<ProcessVariableSummary> variables;
+    private List<ProcessInstanceDetailsFacet> failedFacets = new ArrayList<ProcessInstanceDetailsFacet>();
+
+    public ProcessInstanceDetails() {
+    }
+
+    public ProcessInstanceDetails(ProcessInstanceKey processInstanceKey) {
+        this.processInstanceKey = processInstanceKey;
+    }
+
+    public ProcessInstanceKey getProcessInstanceKey() {
+        return processInstanceKey;
+    }
+
+    public void setProcessInstanceKey(ProcessInstanceKey processInstanceKey) {
+        this.processInstanceKey = processInstanceKey;
+    }
+
+    public ProcessInstanceSummary getSummary() {
+        return summary;
+    }
+
+    public void setSummary(ProcessInstanceSummary summary) {
+        this.summary = summary;
+    }
+
+    public List<NodeInstanceSummary> getActiveNodes() {
+        return activeNodes;
+    }
+
+    public void setActiveNodes(List<NodeInstanceSummary> activeNodes) {
+        this.activeNodes = activeNodes;
+    }
+
+    /**
+     * First (newest) page of the technical logs, older logs are loaded with its cursor.
+     */
+    public RuntimeLogPage getRuntimeLogs() {
+        return runtimeLogs;
+    }
+
+    public void setRuntimeLogs(RuntimeLogPage runtimeLogs) {
+        this.runtimeLogs = runtimeLogs;
+    }
+
+    public List<ProcessVariableSummary> getVariables() {
+        return variables;
+    }
+
+    public void setVariables(List<ProcessVariableSummary> variables) {
+        this.variables = variables;
+    }
+
+    public List<ProcessInstanceDetailsFacet> getFailedFacets() {
+        return failedFacets;
+    }
+
+    public void setFailedFacets(List<ProcessInstanceDetailsFacet> failedFacets) {
+        this.failedFacets = failedFacets;
+    }
+
+    public void addFailedFacet(ProcessInstanceDetailsFacet facet) {
+        failedFacets.add(facet);
+    }
+
+    @Override
+    public String toString() {
+        return "ProcessInstanceDetails{" +
+                "processInstanceKey=" + processInstanceKey +
+                ", failedFacets=" + failedFacets +
+                '}';
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.pr.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.errai.common.client.api.annotations.Portable;
+
+/**
+ * Page of process instance logs, newest first. Next cursor is used to request the following (older) page and is
+ * null for the last page.
+ */
+@Portable
+public class RuntimeLogPage implements Serializable {
+
+    private List<RuntimeLogSummary> logs = new ArrayList<RuntimeLogSummary>();
+    private String nextCursor;
+
+    public RuntimeLogPage() {
+    }
+
+    public RuntimeLogPage(List<RuntimeLogSummary> logs, String nextCursor) {
+        this.logs = logs;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<RuntimeLogSummary> getLogs() {
+        return logs;
+    }
+
+    public void setLogs(List<RuntimeLogSummary> logs) {
+        this.logs = logs;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isLastPage() {
+        return nextCursor == null;
+    }
+}
@@ -17,14 +17,17 @@
 package org.jbpm.workbench.pr.service;
 
 import java.util.List;
+import java.util.Set;
 
 import org.jboss.errai.bus.server.annotations.Remote;
 import org.jbpm.workbench.pr.model.NodeInstanceSummary;
 import org.jbpm.workbench.pr.model.ProcessDefinitionKey;
+import org.jbpm.workbench.pr.model.ProcessInstanceDetails;
+import org.jbpm.workbench.pr.model.ProcessInstanceDetailsFacet;
 import org.jbpm.workbench.pr.model.ProcessInstanceKey;
 import org.jbpm.workbench.pr.model.ProcessInstanceSummary;
 import org.jbpm.workbench.pr.model.ProcessSummary;
-import org.jbpm.workbench.pr.model.RuntimeLogSummary;
+import org.jbpm.workbench.pr.model.RuntimeLogPage;
 import org.jbpm.workbench.pr.model.TaskDefSummary;
 
 @Remote
@@ -34,11 +37,23 @@ public interface ProcessRuntimeDataService {
 
     ProcessInstanceSummary getProcessInstance(String serverTemplateId, ProcessInstanceKey processInstanceKey);
 
+    /**
+     * Loads requested facets of all given process instances in one round trip, KIE Server calls are made concurrently.
+     * Results are in the order of the keys.
+     */
+    List<ProcessInstanceDetails> getProcessInstanceDetails(String serverTemplateId, List<ProcessInstanceKey> processInstanceKeys, Set<ProcessInstanceDetailsFacet> facets);
+
     List<NodeInstanceSummary> getProcessInstanceActiveNodes(String serverTemplateId, String deploymentId, Long processInstanceId);
 
-    List<RuntimeLogSummary> getRuntimeLogs(String serverTemplateId, String deploymentId, Long processInstanceId);
+    /**
+     * Page of technical logs, newest first. Null cursor requests the first page.
+     */
+    RuntimeLogPage getRuntimeLogsPage(String serverTemplateId, String deploymentId, Long processInstanceId, String cursor, Integer pageSize);
 
-    List<RuntimeLogSummary> getBusinessLogs(String serverTemplateId, String deploymentId, String processName, Long processInstanceId);
+    /**
+     * Page of business logs, newest first. Null cursor requests the first page.
+     */
+    RuntimeLogPage getBusinessLogsPage(String serverTemplateId, String deploymentId, String processName, Long processInstanceId, String cursor, Integer pageSize);
 
     List<ProcessSummary> getProcesses(String serverTemplateId, Integer page, Integer pageSize, String sort, Boolean sortOrder);
 
@@ -104,15 +104,73 @@ public class DataSetDefsBootstrap {
                 .label(VARIABLE_VALUE)
                 .buildDef();
 
+        DataSetDef taskEventsDef = DataSetDefFactory.newSQLDataSetDef()
+                .uuid(PROCESS_INSTANCE_TASK_EVENTS_DATASET)
+                .name("Process Instance Task Events")
+                .dataSource(JBPM_DATA_SOURCE)
+                .dbSQL("select " +
+                            "te.id, " +
+                            "te.taskId, " +
+                            "te.workItemId, " +
+                            "te.type, " +
+                            "te.userId, " +
+                            "te.logTime, " +
+                            "te.processInstanceId " +
+                        "from " +
+                            "TaskEvent te", false)
+                .number(COLUMN_TASK_EVENT_ID)
+                .number(COLUMN_TASK_EVENT_TASK_ID)
+                .number(COLUMN_TASK_EVENT_WORK_ITEM_ID)
+                .label(COLUMN_TASK_EVENT_TYPE)
+                .label(COLUMN_TASK_EVENT_USER_ID)
+                .date(COLUMN_TASK_EVENT_LOG_TIME)
+                .number(COLUMN_TASK_EVENT_PROCESS_INSTANCE_ID)
+                .buildDef();
+
+        DataSetDef variablesDef = DataSetDefFactory.newSQLDataSetDef()
+                .uuid(PROCESS_INSTANCE_VARIABLES_DATASET)
+                .name("Process Instance Variables")
+                .dataSource(JBPM_DATA_SOURCE)
+                .dbSQL("select " +
+                            "vil.id, " +
+                            "vil.processInstanceId, " +
+                            "vil.variableId, " +
+                            "vil.value, " +
+                            "vil.oldValue, " +
+                            "vil.log_date, " +
+                            "lower(vil.variableId) variableIdLower " +
+                        "from VariableInstanceLog vil " +
+                        "where " +
+                            "vil.id = " +
+                                "(select MAX(v.id) " +
+                                "from VariableInstanceLog v " +
+                                "where " +
+                                "v.variableId = vil.variableId and " +
+                                "v.processInstanceId = vil.processInstanceId)", false)
+                .number(COLUMN_VARIABLE_ID)
+                .number(COLUMN_VARIABLE_PROCESS_INSTANCE_ID)
+                .label(COLUMN_VARIABLE_NAME)
+                .label(COLUMN_VARIABLE_VALUE)
+                .label(COLUMN_VARIABLE_OLD_VALUE)
+                .date(COLUMN_VARIABLE_LOG_DATE)
+                .label(COLUMN_VARIABLE_NAME_LOWER)
+                .buildDef();
+
         // Hide all these internal data set from end user view
         processInstancesDef.setPublic(false);
         processInstancesDef.setProvider(KieServerDataSetProvider.TYPE);
         processWithVariablesDef.setPublic(false);
         processWithVariablesDef.setProvider(KieServerDataSetProvider.TYPE);
+        taskEventsDef.setPublic(false);
+        taskEventsDef.setProvider(KieServerDataSetProvider.TYPE);
+        variablesDef.setPublic(false);
+        variablesDef.setProvider(KieServerDataSetProvider.TYPE);
 
         // Register the data set definitions
         dataSetDefRegistry.registerDataSetDef(processInstancesDef);
         dataSetDefRegistry.registerDataSetDef(processWithVariablesDef);
+        dataSetDefRegistry.registerDataSetDef(taskEventsDef);
+        dataSetDefRegistry.registerDataSetDef(variablesDef);
         LOGGER.info("Process instance datasets registered");
     }
 
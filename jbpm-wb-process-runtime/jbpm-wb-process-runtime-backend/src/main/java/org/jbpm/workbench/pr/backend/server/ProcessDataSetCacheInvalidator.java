@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.pr.backend.server;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.jbpm.workbench.ks.integration.KieServerDataSetCache;
+import org.jbpm.workbench.pr.events.NewProcessInstanceEvent;
+import org.jbpm.workbench.pr.events.ProcessInstancesUpdateEvent;
+
+/**
+ * Drops cached data set results once process instances are started or modified from the workbench.
+ */
+@ApplicationScoped
+public class ProcessDataSetCacheInvalidator {
+
+    @Inject
+    private KieServerDataSetCache dataSetCache;
+
+    public void onNewProcessInstance(@Observes NewProcessInstanceEvent newProcessInstanceEvent) {
+        dataSetCache.invalidate(newProcessInstanceEvent.getServerTemplateId());
+    }
+
+    public void onProcessInstancesUpdated(@Observes ProcessInstancesUpdateEvent processInstancesUpdateEvent) {
+        // event does not carry server template thus drop all results
+        dataSetCache.invalidateAll();
+    }
+}
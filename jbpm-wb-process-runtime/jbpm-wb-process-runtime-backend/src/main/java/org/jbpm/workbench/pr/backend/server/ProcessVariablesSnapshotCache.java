@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.workbench.pr.backend.server;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import javax.enterprise.context.ApplicationScoped;
+
+import org.jbpm.workbench.pr.model.ProcessVariableSummary;
+
+/**
+ * Short lived snapshots of process instance variables, so paging through variables of the same instance does not
+ * fetch pages already loaded again. Snapshots expire after a configurable time to live and are dropped when a
+ * variable of the instance is changed from the workbench.
+ */
+@ApplicationScoped
+public class ProcessVariablesSnapshotCache {
+
+    public static final String SNAPSHOT_TTL_PROPERTY = "org.jbpm.workbench.pr.variables.snapshot.ttl";
+    public static final String SNAPSHOT_SIZE_PROPERTY = "org.jbpm.workbench.pr.variables.snapshot.size";
+
+    private final ConcurrentMap<String, Snapshot> snapshots = new ConcurrentHashMap<String, Snapshot>();
+
+    private final long ttlMillis;
+    private final int maxSize;
+
+    public ProcessVariablesSnapshotCache() {
+        this(Long.parseLong(System.getProperty(SNAPSHOT_TTL_PROPERTY, "10000")),
+             Integer.parseInt(System.getProperty(SNAPSHOT_SIZE_PROPERTY, "100")));
+    }
+
+    public ProcessVariablesSnapshotCache(long ttlMillis, int maxSize) {
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns current snapshot of given process instance, a new empty one when there is none or it expired.
+     */
+    public Snapshot get(String serverTemplateId, String deploymentId, Long processInstanceId) {
+        final String key = toKey(serverTemplateId, deploymentId, processInstanceId);
+        final long now = System.currentTimeMillis();
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot == null || snapshot.isExpired(now, ttlMillis)) {
+            snapshot = new Snapshot(now);
+            snapshots.put(key, snapshot);
+            if (snapshots.size() > maxSize) {
+                evict(now);
+            }
+        }
+        return snapshot;
+    }
+
+    public void invalidate(String serverTemplateId, String deploymentId, Long processInstanceId) {
+        snapshots.remove(toKey(serverTemplateId, deploymentId, processInstanceId));
+    }
+
+    public void invalidateAll() {
+        snapshots.clear();
+    }
+
+    public int size() {
+        return snapshots.size();
+    }
+
+    /**
+     * Drops expired snapshots and, if still over the limit, the oldest ones.
+     */
+    protected void evict(long now) {
+        snapshots.values().removeIf(snapshot -> snapshot.isExpired(now, ttlMillis));
+        while (snapshots.size() > maxSize) {
+            snapshots.entrySet().stream()
+                    .min((e1, e2) -> Long.compare(e1.getValue().created, e2.getValue().created))
+                    .ifPresent(oldest -> snapshots.remove(oldest.getKey(), oldest.getValue()));
+        }
+    }
+
+    protected static String toKey(String serverTemplateId, String deploymentId, Long processInstanceId) {
+        return serverTemplateId + "|" + deploymentId + "|" + processInstanceId;
+    }
+
+    public static class Snapshot {
+
+        private final long created;
+        private final ConcurrentMap<String, List<List>> pages = new ConcurrentHashMap<String, List<List>>();
+        private final ConcurrentMap<String, Integer> counts = new ConcurrentHashMap<String, Integer>();
+        private volatile List<ProcessVariableSummary> unsetVariables;
+
+        Snapshot(long created) {
+            this.created = created;
+        }
+
+        boolean isExpired(long now, long ttlMillis) {
+            return now - created >= ttlMillis;
+        }
+
+        /**
+         * Returns raw rows of given variables page, loading them when the page was not loaded yet.
+         */
+        public List<List> getPage(String textSearch, int page, int pageSize, Supplier<List<List>> loader) {
+            final String key = textSearch + "|" + page + "|" + pageSize;
+            List<List> rows = pages.get(key);
+            if (rows == null) {
+                rows = loader.get();
+                pages.put(key, rows);
+            }
+            return rows;
+        }
+
+        /**
+         * Returns number of set variables matching given search, counting them when not known yet.
+         */
+        public int getCount(String textSearch, IntSupplier loader) {
+            final String key = String.valueOf(textSearch);
+            Integer count = counts.get(key);
+            if (count == null) {
+                count = loader.getAsInt();
+                counts.put(key, count);
+            }
+            return count;
+        }
+
+        /**
+         * Returns variables that are defined by the process but were never set, loading them when not known yet.
+         */
+        public List<ProcessVariableSummary> getUnsetVariables(Supplier<List<ProcessVariableSummary>> loader) {
+            List<ProcessVariableSummary> variables = unsetVariables;
+            if (variables == null) {
+                variables = loader.get();
+                unsetVariables = variables;
+            }
+            return variables;
+        }
+    }
+}
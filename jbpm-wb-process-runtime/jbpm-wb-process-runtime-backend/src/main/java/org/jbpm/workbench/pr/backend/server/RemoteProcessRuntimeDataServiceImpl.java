@@ -17,37 +17,95 @@
 package org.jbpm.workbench.pr.backend.server;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 
 import org.jboss.errai.bus.server.annotations.Service;
 import org.jbpm.workbench.ks.integration.AbstractKieServerService;
+import org.jbpm.workbench.ks.integration.KieServerDefinitionCache;
+import org.jbpm.workbench.ks.integration.KieServerParallelExecutor;
+import org.jbpm.workbench.ks.integration.KieServerUnavailableException;
+import org.jbpm.workbench.pr.backend.server.model.QueryResultHelper;
+import org.jbpm.workbench.pr.backend.server.model.VariableHelper;
 import org.jbpm.workbench.pr.model.NodeInstanceSummary;
 import org.jbpm.workbench.pr.model.ProcessDefinitionKey;
+import org.jbpm.workbench.pr.model.ProcessInstanceDetails;
+import org.jbpm.workbench.pr.model.ProcessInstanceDetailsFacet;
 import org.jbpm.workbench.pr.model.ProcessInstanceKey;
 import org.jbpm.workbench.pr.model.ProcessInstanceSummary;
 import org.jbpm.workbench.pr.model.ProcessSummary;
+import org.jbpm.workbench.pr.model.RuntimeLogPage;
 import org.jbpm.workbench.pr.model.RuntimeLogSummary;
 import org.jbpm.workbench.pr.model.TaskDefSummary;
 import org.jbpm.workbench.pr.model.UserTaskSummary;
 import org.jbpm.workbench.pr.service.ProcessRuntimeDataService;
 import org.kie.server.api.model.definition.ProcessDefinition;
+import org.kie.server.api.model.definition.QueryFilterSpec;
+import org.kie.server.api.model.definition.QueryParam;
 import org.kie.server.api.model.definition.UserTaskDefinitionList;
 import org.kie.server.api.model.instance.NodeInstance;
 import org.kie.server.api.model.instance.ProcessInstance;
 import org.kie.server.api.model.instance.TaskEventInstance;
 import org.kie.server.api.model.instance.TaskSummary;
+import org.kie.server.api.model.instance.VariableInstance;
+import org.kie.server.client.KieServicesException;
 import org.kie.server.client.ProcessServicesClient;
 import org.kie.server.client.QueryServicesClient;
+import org.kie.server.common.rest.KieServerHttpRequestException;
 import org.ocpsoft.prettytime.PrettyTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+import static org.jbpm.workbench.pr.model.ProcessInstanceDataSetConstants.*;
 
 @Service
 @ApplicationScoped
 public class RemoteProcessRuntimeDataServiceImpl extends AbstractKieServerService implements ProcessRuntimeDataService {
 
+    public static final String DETAILS_TIMEOUT_PROPERTY = "org.jbpm.workbench.pr.details.timeout";
+    public static final String HISTORY_PAGE_SIZE_PROPERTY = "org.jbpm.workbench.pr.history.pageSize";
+
+    private static final String HUMAN_TASK_NODE = "HumanTaskNode";
+    private static final int TASK_EVENTS_PAGE_SIZE = 1000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RemoteProcessRuntimeDataServiceImpl.class);
+
+    private long detailsTimeout = Long.parseLong(System.getProperty(DETAILS_TIMEOUT_PROPERTY, "10000"));
+
+    private int historyPageSize = Integer.parseInt(System.getProperty(HISTORY_PAGE_SIZE_PROPERTY, "100"));
+
+    // formats dates relative to the current time only, safe to share
+    private final PrettyTime prettyDateFormatter = new PrettyTime();
+
+    @Inject
+    private KieServerParallelExecutor parallelExecutor;
+
+    @Inject
+    private KieServerDefinitionCache definitionCache;
+
     public List<ProcessInstanceSummary> getProcessInstances(String serverTemplateId, List<Integer> statuses, Integer page, Integer pageSize) {
         if (serverTemplateId == null || serverTemplateId.isEmpty()) {
             return emptyList();
@@ -76,6 +134,171 @@ public class RemoteProcessRuntimeDataServiceImpl extends AbstractKieServerServic
         return build(processInstance);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ProcessInstanceDetails> getProcessInstanceDetails(String serverTemplateId, List<ProcessInstanceKey> processInstanceKeys, Set<ProcessInstanceDetailsFacet> facets) {
+        if (serverTemplateId == null || serverTemplateId.isEmpty() || processInstanceKeys == null) {
+            return emptyList();
+        }
+
+        final Set<ProcessInstanceDetailsFacet> requested = facets == null || facets.isEmpty() ? EnumSet.allOf(ProcessInstanceDetailsFacet.class) : EnumSet.copyOf(facets);
+        final List<ProcessInstanceDetails> details = new ArrayList<ProcessInstanceDetails>(processInstanceKeys.size());
+        final List<ProcessInstanceDetails> callDetails = new ArrayList<ProcessInstanceDetails>();
+        final List<ProcessInstanceDetailsFacet> callFacets = new ArrayList<ProcessInstanceDetailsFacet>();
+        final List<Callable<Object>> calls = new ArrayList<Callable<Object>>();
+
+        for (ProcessInstanceKey key : processInstanceKeys) {
+            final ProcessInstanceDetails instanceDetails = new ProcessInstanceDetails(key);
+            details.add(instanceDetails);
+            final String deploymentId = key.getDeploymentId();
+            final Long processInstanceId = key.getProcessInstanceId();
+            // process instance is needed to resolve variable definitions too
+            if (requested.contains(ProcessInstanceDetailsFacet.SUMMARY) || requested.contains(ProcessInstanceDetailsFacet.VARIABLES)) {
+                callDetails.add(instanceDetails);
+                callFacets.add(ProcessInstanceDetailsFacet.SUMMARY);
+                calls.add(() -> getClient(serverTemplateId, ProcessServicesClient.class).getProcessInstance(deploymentId, processInstanceId));
+            }
+            if (requested.contains(ProcessInstanceDetailsFacet.ACTIVE_NODES)) {
+                callDetails.add(instanceDetails);
+                callFacets.add(ProcessInstanceDetailsFacet.ACTIVE_NODES);
+                calls.add(() -> getProcessInstanceActiveNodes(serverTemplateId, deploymentId, processInstanceId));
+            }
+            if (requested.contains(ProcessInstanceDetailsFacet.HISTORY)) {
+                callDetails.add(instanceDetails);
+                callFacets.add(ProcessInstanceDetailsFacet.HISTORY);
+                calls.add(() -> getRuntimeLogsPage(serverTemplateId, deploymentId, processInstanceId, null, null));
+            }
+            if (requested.contains(ProcessInstanceDetailsFacet.VARIABLES)) {
+                callDetails.add(instanceDetails);
+                callFacets.add(ProcessInstanceDetailsFacet.VARIABLES);
+                calls.add(() -> getClient(serverTemplateId, ProcessServicesClient.class).findVariablesCurrentState(deploymentId, processInstanceId));
+            }
+        }
+
+        final Map<ProcessInstanceDetails, ProcessInstance> instances = new HashMap<ProcessInstanceDetails, ProcessInstance>();
+        final Map<ProcessInstanceDetails, List<VariableInstance>> variables = new LinkedHashMap<ProcessInstanceDetails, List<VariableInstance>>();
+        final List<Object> results = invokeAll(calls, callDetails, callFacets);
+        for (int i = 0; i < results.size(); i++) {
+            final Object result = results.get(i);
+            final ProcessInstanceDetails instanceDetails = callDetails.get(i);
+            if (result == null) {
+                continue;
+            }
+            switch (callFacets.get(i)) {
+                case SUMMARY:
+                    instances.put(instanceDetails, (ProcessInstance) result);
+                    if (requested.contains(ProcessInstanceDetailsFacet.SUMMARY)) {
+                        instanceDetails.setSummary(build((ProcessInstance) result));
+                    }
+                    break;
+                case ACTIVE_NODES:
+                    instanceDetails.setActiveNodes((List<NodeInstanceSummary>) result);
+                    break;
+                case HISTORY:
+                    instanceDetails.setRuntimeLogs((RuntimeLogPage) result);
+                    break;
+                case VARIABLES:
+                    variables.put(instanceDetails, (List<VariableInstance>) result);
+                    break;
+            }
+        }
+
+        if (!requested.contains(ProcessInstanceDetailsFacet.SUMMARY)) {
+            // failures to load the instance only for variables are reported on the variables facet
+            details.forEach(instanceDetails -> instanceDetails.getFailedFacets().remove(ProcessInstanceDetailsFacet.SUMMARY));
+        }
+        if (!variables.isEmpty()) {
+            setVariables(serverTemplateId, variables, instances);
+        }
+
+        return details;
+    }
+
+    /**
+     * Resolves variable types, once per process definition, and combines them with current variable values.
+     */
+    @SuppressWarnings("unchecked")
+    protected void setVariables(String serverTemplateId, Map<ProcessInstanceDetails, List<VariableInstance>> variables, Map<ProcessInstanceDetails, ProcessInstance> instances) {
+        final Map<String, Integer> definitionIndexes = new HashMap<String, Integer>();
+        final List<ProcessInstanceDetails> callDetails = new ArrayList<ProcessInstanceDetails>();
+        final List<ProcessInstanceDetailsFacet> callFacets = new ArrayList<ProcessInstanceDetailsFacet>();
+        final List<Callable<Object>> calls = new ArrayList<Callable<Object>>();
+        for (ProcessInstanceDetails instanceDetails : variables.keySet()) {
+            final ProcessInstance processInstance = instances.get(instanceDetails);
+            if (processInstance == null) {
+                continue;
+            }
+            final String deploymentId = instanceDetails.getProcessInstanceKey().getDeploymentId();
+            final String processId = processInstance.getProcessId();
+            if (!definitionIndexes.containsKey(deploymentId + "|" + processId)) {
+                definitionIndexes.put(deploymentId + "|" + processId, calls.size());
+                callDetails.add(instanceDetails);
+                callFacets.add(ProcessInstanceDetailsFacet.VARIABLES);
+                calls.add(() -> getVariableDefinitions(serverTemplateId, deploymentId, processId));
+            }
+        }
+
+        final List<Object> definitions = invokeAll(calls, callDetails, callFacets);
+        for (Map.Entry<ProcessInstanceDetails, List<VariableInstance>> entry : variables.entrySet()) {
+            final ProcessInstanceDetails instanceDetails = entry.getKey();
+            final ProcessInstance processInstance = instances.get(instanceDetails);
+            final ProcessInstanceKey key = instanceDetails.getProcessInstanceKey();
+            final Object definition = processInstance == null ? null : definitions.get(definitionIndexes.get(key.getDeploymentId() + "|" + processInstance.getProcessId()));
+            if (definition == null) {
+                if (!instanceDetails.getFailedFacets().contains(ProcessInstanceDetailsFacet.VARIABLES)) {
+                    instanceDetails.addFailedFacet(ProcessInstanceDetailsFacet.VARIABLES);
+                }
+                continue;
+            }
+            // helper consumes the definitions, each instance needs its own copy of the cached ones
+            instanceDetails.setVariables(VariableHelper.adaptCollection(entry.getValue(),
+                                                                        new HashMap<String, String>((Map<String, String>) definition),
+                                                                        key.getProcessInstanceId(),
+                                                                        key.getDeploymentId(),
+                                                                        serverTemplateId));
+        }
+    }
+
+    protected Map<String, String> getVariableDefinitions(String serverTemplateId, String deploymentId, String processId) {
+        return definitionCache.get(serverTemplateId,
+                                   deploymentId,
+                                   processId,
+                                   "variables",
+                                   () -> getClient(serverTemplateId, ProcessServicesClient.class).getProcessVariableDefinitions(deploymentId, processId).getVariables());
+    }
+
+    /**
+     * Runs given calls concurrently and returns their results in the same order, failed calls have null result and
+     * their facet is marked as failed.
+     */
+    protected List<Object> invokeAll(List<Callable<Object>> calls, List<ProcessInstanceDetails> callDetails, List<ProcessInstanceDetailsFacet> callFacets) {
+        final List<Object> results = new ArrayList<Object>(calls.size());
+        if (calls.isEmpty()) {
+            return results;
+        }
+        try {
+            final List<Future<Object>> futures = parallelExecutor.invokeAll(calls, detailsTimeout);
+            for (int i = 0; i < futures.size(); i++) {
+                Object result = null;
+                try {
+                    result = futures.get(i).get();
+                } catch (CancellationException e) {
+                    LOGGER.warn("Loading {} of {} did not complete within {} ms", callFacets.get(i), callDetails.get(i).getProcessInstanceKey(), detailsTimeout);
+                } catch (ExecutionException e) {
+                    LOGGER.warn("Encountered {} while loading {} of {}", e.getCause().getMessage(), callFacets.get(i), callDetails.get(i).getProcessInstanceKey());
+                }
+                if (result == null && !callDetails.get(i).getFailedFacets().contains(callFacets.get(i))) {
+                    callDetails.get(i).addFailedFacet(callFacets.get(i));
+                }
+                results.add(result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        return results;
+    }
+
     @Override
     public List<NodeInstanceSummary> getProcessInstanceActiveNodes(String serverTemplateId, String deploymentId, Long processInstanceId) {
         if (serverTemplateId == null || serverTemplateId.isEmpty()) {
@@ -103,40 +326,6 @@ public class RemoteProcessRuntimeDataServiceImpl extends AbstractKieServerServic
         return instances;
     }
 
-    @Override
-    public List<RuntimeLogSummary> getBusinessLogs(String serverTemplateId, String deploymentId, String processName, Long processInstanceId) {
-        if (serverTemplateId == null || serverTemplateId.isEmpty()) {
-            return emptyList();
-        }
-
-        List<NodeInstance> processInstanceHistory = getProcessInstanceHistory(serverTemplateId, deploymentId, processInstanceId);
-        List<TaskEventInstance> allTaskEventsByProcessInstanceId = new ArrayList<TaskEventInstance>();//taskAuditService.getAllTaskEventsByProcessInstanceId(processInstanceId, "");
-        List<RuntimeLogSummary> logs = new ArrayList<RuntimeLogSummary>(processInstanceHistory.size() + allTaskEventsByProcessInstanceId.size());
-        PrettyTime prettyDateFormatter = new PrettyTime();
-
-        for(int i = processInstanceHistory.size() - 1 ; i >= 0; i--){
-            NodeInstance nis = processInstanceHistory.get(i);
-
-            if(nis.getNodeType().equals("HumanTaskNode")){
-                logs.add(new RuntimeLogSummary(nis.getId(), prettyDateFormatter.format(nis.getDate()), "Task '" + nis.getName() + "' was created", "System"));
-                for(TaskEventInstance te : allTaskEventsByProcessInstanceId){
-                    if(te.getWorkItemId() != null && nis.getId() == te.getWorkItemId() &&
-                        (te.getType().equals("CLAIMED") || te.getType().equals("RELEASED") || te.getType().equals("COMPLETED"))){
-                            logs.add(new RuntimeLogSummary(nis.getId(), "- " + prettyDateFormatter.format(te.getLogTime()), "Task '" + nis.getName() +
-                                    "' was " + te.getType().toLowerCase() + " by user " + te.getUserId(), "Human"));
-                    }
-                }
-            }else if(nis.getNodeType().equals("StartNode")){
-                logs.add(new RuntimeLogSummary(nis.getId(), prettyDateFormatter.format(nis.getDate()), "Process '" + processName + "' was created", "Human"));
-            }else if(nis.getNodeType().equals("EndNode")){
-                logs.add(new RuntimeLogSummary(nis.getId(), prettyDateFormatter.format(nis.getDate()), "Process '" + processName + "' was completed", "System"));
-            }
-
-
-        }
-        return logs;
-    }
-
     @Override
     public List<ProcessSummary> getProcesses(String serverTemplateId, Integer page, Integer pageSize, String sort, Boolean sortOrder) {
         if (serverTemplateId == null || serverTemplateId.isEmpty()) {
@@ -166,9 +355,11 @@ public class RemoteProcessRuntimeDataServiceImpl extends AbstractKieServerServic
             return null;
         }
 
-        ProcessServicesClient queryServicesClient = getClient(serverTemplateId, ProcessServicesClient.class);
-
-        ProcessDefinition definition = queryServicesClient.getProcessDefinition(processDefinitionKey.getDeploymentId(), processDefinitionKey.getProcessId());
+        ProcessDefinition definition = definitionCache.get(serverTemplateId,
+                                                           processDefinitionKey.getDeploymentId(),
+                                                           processDefinitionKey.getProcessId(),
+                                                           "process",
+                                                           () -> getClient(serverTemplateId, ProcessServicesClient.class).getProcessDefinition(processDefinitionKey.getDeploymentId(), processDefinitionKey.getProcessId()));
 
         ProcessSummary summary = new ProcessSummary(definition.getId(),
                 definition.getName(),
@@ -216,9 +407,11 @@ public class RemoteProcessRuntimeDataServiceImpl extends AbstractKieServerServic
             return null;
         }
 
-        QueryServicesClient queryServicesClient = getClient(serverTemplateId, QueryServicesClient.class);
-
-        ProcessDefinition definition = queryServicesClient.findProcessByContainerIdProcessId(containerId, processId);
+        ProcessDefinition definition = definitionCache.get(serverTemplateId,
+                                                           containerId,
+                                                           processId,
+                                                           "processQuery",
+                                                           () -> getClient(serverTemplateId, QueryServicesClient.class).findProcessByContainerIdProcessId(containerId, processId));
 
         ProcessSummary summary = new ProcessSummary(definition.getId(),
                 definition.getName(),
@@ -243,57 +436,239 @@ public class RemoteProcessRuntimeDataServiceImpl extends AbstractKieServerServic
             return emptyList();
         }
 
-        ProcessServicesClient processServicesClient = getClient(serverTemplateId, ProcessServicesClient.class);
-
-        final UserTaskDefinitionList userTaskDefinitionList = processServicesClient.getUserTaskDefinitions(containerId, processId);
+        final UserTaskDefinitionList userTaskDefinitionList = definitionCache.get(serverTemplateId,
+                                                                                  containerId,
+                                                                                  processId,
+                                                                                  "userTasks",
+                                                                                  () -> getClient(serverTemplateId, ProcessServicesClient.class).getUserTaskDefinitions(containerId, processId));
 
         return userTaskDefinitionList.getItems().stream().map(t -> new TaskDefSummary(t.getName())).collect(toList());
     }
 
     @Override
-    public List<RuntimeLogSummary> getRuntimeLogs(final String serverTemplateId, String deploymentId, final Long processInstanceId) {
+    public RuntimeLogPage getRuntimeLogsPage(final String serverTemplateId, final String deploymentId, final Long processInstanceId, final String cursor, final Integer pageSize) {
         if (serverTemplateId == null || serverTemplateId.isEmpty()) {
-            return emptyList();
+            return null;
         }
 
-        List<NodeInstance> processInstanceHistory = getProcessInstanceHistory(serverTemplateId, deploymentId, processInstanceId);
-        List<TaskEventInstance> allTaskEventsByProcessInstanceId = new ArrayList<TaskEventInstance>();//taskAuditService.getAllTaskEventsByProcessInstanceId(processInstanceId, "");
-        List<RuntimeLogSummary> logs = new ArrayList<RuntimeLogSummary>(processInstanceHistory.size() + allTaskEventsByProcessInstanceId.size());
-        PrettyTime prettyDateFormatter = new PrettyTime();
-
-        for(int i = processInstanceHistory.size() - 1 ; i >= 0; i--){
-            NodeInstance nis = processInstanceHistory.get(i);
-
-                if(nis.getNodeType().equals("HumanTaskNode")){
-                    logs.add(new RuntimeLogSummary(nis.getId(), prettyDateFormatter.format(nis.getDate()), nis.getName() + "("+nis.getNodeType()+")", "System"));
-                    for(TaskEventInstance te : allTaskEventsByProcessInstanceId){
-                        if(te.getWorkItemId() != null && nis.getId() == te.getWorkItemId()){
-                            if(te.getType().equals("ADDED")){
-                                logs.add(new RuntimeLogSummary(nis.getId(), "- " + prettyDateFormatter.format(te.getLogTime()), te.getUserId() + "->" +te.getType(), "System"));
-                            }else{
-                                logs.add(new RuntimeLogSummary(nis.getId(), "- " + prettyDateFormatter.format(te.getLogTime()), te.getUserId() + "->" +te.getType(), "Human"));
-                            }
-                        }
-                    }
-                }else if(nis.getNodeType().equals("StartNode")){
-                    logs.add(new RuntimeLogSummary(nis.getId(), prettyDateFormatter.format(nis.getDate()), nis.getName() + "("+nis.getNodeType()+")", "Human"));
-                }else {
-                    logs.add(new RuntimeLogSummary(nis.getId(), prettyDateFormatter.format(nis.getDate()), nis.getName() + "("+nis.getNodeType()+")", "System"));
+        return getLogsPage(serverTemplateId, deploymentId, processInstanceId, cursor, pageSize,
+                           (nodeInstance, taskEvents) -> buildRuntimeLogs(nodeInstance, taskEvents));
+    }
+
+    @Override
+    public RuntimeLogPage getBusinessLogsPage(final String serverTemplateId, final String deploymentId, final String processName, final Long processInstanceId, final String cursor, final Integer pageSize) {
+        if (serverTemplateId == null || serverTemplateId.isEmpty()) {
+            return null;
+        }
+
+        return getLogsPage(serverTemplateId, deploymentId, processInstanceId, cursor, pageSize,
+                           (nodeInstance, taskEvents) -> buildBusinessLogs(nodeInstance, processName, taskEvents));
+    }
+
+    /**
+     * Builds logs of a single page of the process instance history, newest first. Cursor of the returned page points
+     * past the oldest returned history entry and is null once the last page was returned, entries added to the
+     * history in the meantime shift server pages but are never returned twice. Only task events of the work items on
+     * the page are loaded.
+     */
+    protected RuntimeLogPage getLogsPage(final String serverTemplateId, final String deploymentId, final Long processInstanceId, final String cursor, final Integer pageSize,
+                                         final BiFunction<NodeInstance, Map<Long, List<TaskEventInstance>>, List<RuntimeLogSummary>> logBuilder) {
+        final HistoryCursor from = HistoryCursor.parse(cursor);
+        final int size = pageSize == null || pageSize <= 0 ? historyPageSize : pageSize;
+
+        final ProcessServicesClient processServicesClient = getClient(serverTemplateId, ProcessServicesClient.class);
+        final List<NodeInstance> nodeInstances = new ArrayList<NodeInstance>();
+        int page = from.getPage();
+        boolean lastPage;
+        do {
+            final List<NodeInstance> fetched = processServicesClient.findNodeInstances(deploymentId, processInstanceId, page++, size);
+            lastPage = fetched.size() < size;
+            fetched.stream().filter(nodeInstance -> !from.isReturned(nodeInstance)).forEach(nodeInstances::add);
+        } while (nodeInstances.isEmpty() && !lastPage);
+
+        final Set<Long> workItemIds = nodeInstances.stream()
+                .filter(nodeInstance -> HUMAN_TASK_NODE.equals(nodeInstance.getNodeType()) && nodeInstance.getWorkItemId() != null)
+                .map(NodeInstance::getWorkItemId)
+                .collect(toSet());
+        final Map<Long, List<TaskEventInstance>> taskEvents = workItemIds.isEmpty() ? emptyMap() : getTaskEvents(serverTemplateId, processInstanceId, workItemIds);
+
+        return new RuntimeLogPage(buildLogs(nodeInstances.iterator(), nodeInstance -> logBuilder.apply(nodeInstance, taskEvents)),
+                                  lastPage ? null : from.next(page, nodeInstances).toString());
+    }
+
+    /**
+     * Builds logs of node instances given newest first, logs of each node are added in reverse so the whole list
+     * is newest first.
+     */
+    protected List<RuntimeLogSummary> buildLogs(final Iterator<NodeInstance> nodeInstances, final Function<NodeInstance, List<RuntimeLogSummary>> logBuilder) {
+        final List<RuntimeLogSummary> logs = new ArrayList<RuntimeLogSummary>();
+        while (nodeInstances.hasNext()) {
+            final List<RuntimeLogSummary> nodeLogs = logBuilder.apply(nodeInstances.next());
+            for (int i = nodeLogs.size() - 1; i >= 0; i--) {
+                logs.add(nodeLogs.get(i));
+            }
+        }
+        return logs;
+    }
+
+    protected List<RuntimeLogSummary> buildRuntimeLogs(final NodeInstance nis, final Map<Long, List<TaskEventInstance>> taskEventsByWorkItemId) {
+        final List<RuntimeLogSummary> logs = new ArrayList<RuntimeLogSummary>();
+        if(nis.getNodeType().equals(HUMAN_TASK_NODE)){
+            logs.add(new RuntimeLogSummary(nis.getId(), prettyDateFormatter.format(nis.getDate()), nis.getName() + "("+nis.getNodeType()+")", "System"));
+            for(TaskEventInstance te : getTaskEvents(taskEventsByWorkItemId, nis)){
+                if(te.getType().equals("ADDED")){
+                    logs.add(new RuntimeLogSummary(nis.getId(), "- " + prettyDateFormatter.format(te.getLogTime()), te.getUserId() + "->" +te.getType(), "System"));
+                }else{
+                    logs.add(new RuntimeLogSummary(nis.getId(), "- " + prettyDateFormatter.format(te.getLogTime()), te.getUserId() + "->" +te.getType(), "Human"));
                 }
+            }
+        }else if(nis.getNodeType().equals("StartNode")){
+            logs.add(new RuntimeLogSummary(nis.getId(), prettyDateFormatter.format(nis.getDate()), nis.getName() + "("+nis.getNodeType()+")", "Human"));
+        }else {
+            logs.add(new RuntimeLogSummary(nis.getId(), prettyDateFormatter.format(nis.getDate()), nis.getName() + "("+nis.getNodeType()+")", "System"));
+        }
+        return logs;
+    }
 
+    protected List<RuntimeLogSummary> buildBusinessLogs(final NodeInstance nis, final String processName, final Map<Long, List<TaskEventInstance>> taskEventsByWorkItemId) {
+        final List<RuntimeLogSummary> logs = new ArrayList<RuntimeLogSummary>();
+        if(nis.getNodeType().equals(HUMAN_TASK_NODE)){
+            logs.add(new RuntimeLogSummary(nis.getId(), prettyDateFormatter.format(nis.getDate()), "Task '" + nis.getName() + "' was created", "System"));
+            for(TaskEventInstance te : getTaskEvents(taskEventsByWorkItemId, nis)){
+                if(te.getType().equals("CLAIMED") || te.getType().equals("RELEASED") || te.getType().equals("COMPLETED")){
+                        logs.add(new RuntimeLogSummary(nis.getId(), "- " + prettyDateFormatter.format(te.getLogTime()), "Task '" + nis.getName() +
+                                "' was " + te.getType().toLowerCase() + " by user " + te.getUserId(), "Human"));
+                }
+            }
+        }else if(nis.getNodeType().equals("StartNode")){
+            logs.add(new RuntimeLogSummary(nis.getId(), prettyDateFormatter.format(nis.getDate()), "Process '" + processName + "' was created", "Human"));
+        }else if(nis.getNodeType().equals("EndNode")){
+            logs.add(new RuntimeLogSummary(nis.getId(), prettyDateFormatter.format(nis.getDate()), "Process '" + processName + "' was completed", "System"));
         }
         return logs;
     }
 
-    protected List<NodeInstance> getProcessInstanceHistory(final String serverTemplateId, String deploymentId, final Long processInstanceId) {
-        if (serverTemplateId == null || serverTemplateId.isEmpty()) {
+    private static List<TaskEventInstance> getTaskEvents(final Map<Long, List<TaskEventInstance>> taskEventsByWorkItemId, final NodeInstance nodeInstance) {
+        if (nodeInstance.getWorkItemId() == null) {
             return emptyList();
         }
+        return taskEventsByWorkItemId.getOrDefault(nodeInstance.getWorkItemId(), emptyList());
+    }
 
-        ProcessServicesClient processServicesClient = getClient(serverTemplateId, ProcessServicesClient.class);
+    /**
+     * Loads task events of a process instance, optionally only those of given work items, in a single (paged) query
+     * and indexes them by work item id. Events of each work item are in the order they were logged.
+     */
+    protected Map<Long, List<TaskEventInstance>> getTaskEvents(final String serverTemplateId, final Long processInstanceId, final Collection<Long> workItemIds) {
+        final Map<Long, List<TaskEventInstance>> taskEvents = new HashMap<Long, List<TaskEventInstance>>();
+        final List<QueryParam> params = new ArrayList<QueryParam>();
+        params.add(new QueryParam(COLUMN_TASK_EVENT_PROCESS_INSTANCE_ID, "EQUALS_TO", singletonList(processInstanceId)));
+        if (workItemIds != null) {
+            params.add(new QueryParam(COLUMN_TASK_EVENT_WORK_ITEM_ID, "IN", new ArrayList<Long>(workItemIds)));
+        }
+        final QueryFilterSpec filterSpec = new QueryFilterSpec();
+        filterSpec.setParameters(params.toArray(new QueryParam[params.size()]));
+        filterSpec.setOrderBy(COLUMN_TASK_EVENT_ID);
+        filterSpec.setAscending(true);
+
+        try {
+            final QueryServicesClient queryServicesClient = getClient(serverTemplateId, QueryServicesClient.class);
+            int page = 0;
+            List<List> rows;
+            do {
+                rows = queryServicesClient.query(PROCESS_INSTANCE_TASK_EVENTS_DATASET, QueryServicesClient.QUERY_MAP_RAW, filterSpec, page++, TASK_EVENTS_PAGE_SIZE, List.class);
+                for (List row : rows) {
+                    final TaskEventInstance taskEvent = toTaskEvent(row);
+                    if (taskEvent.getWorkItemId() != null) {
+                        taskEvents.computeIfAbsent(taskEvent.getWorkItemId(), workItemId -> new ArrayList<TaskEventInstance>()).add(taskEvent);
+                    }
+                }
+            } while (rows.size() == TASK_EVENTS_PAGE_SIZE);
+        } catch (KieServicesException | KieServerHttpRequestException | KieServerUnavailableException e) {
+            // logs are still useful without task events
+            LOGGER.warn("Unable to load task events of process instance {} due to {}", processInstanceId, e.getMessage());
+        }
+        return taskEvents;
+    }
+
+    /**
+     * Maps raw row of the task events query, columns are in the order of the data set definition.
+     */
+    protected static TaskEventInstance toTaskEvent(final List row) {
+        final TaskEventInstance taskEvent = new TaskEventInstance();
+        taskEvent.setId(QueryResultHelper.toLong(row.get(0)));
+        taskEvent.setTaskId(QueryResultHelper.toLong(row.get(1)));
+        taskEvent.setWorkItemId(QueryResultHelper.toLong(row.get(2)));
+        taskEvent.setType((String) row.get(3));
+        taskEvent.setUserId((String) row.get(4));
+        taskEvent.setLogTime(QueryResultHelper.toDate(row.get(5)));
+        taskEvent.setProcessInstanceId(QueryResultHelper.toLong(row.get(6)));
+        return taskEvent;
+    }
+
+    /**
+     * Position in the process instance history (newest first) - time of the oldest entry returned so far along with
+     * the entries returned with that time, and the server page to continue from.
+     */
+    protected static class HistoryCursor {
+
+        private static final HistoryCursor FIRST = new HistoryCursor(0, Long.MAX_VALUE, Collections.<String>emptySet());
+
+        private final int page;
+        private final long time;
+        private final Set<String> keys;
+
+        HistoryCursor(int page, long time, Set<String> keys) {
+            this.page = page;
+            this.time = time;
+            this.keys = keys;
+        }
+
+        static HistoryCursor parse(String cursor) {
+            if (cursor == null || cursor.isEmpty()) {
+                return FIRST;
+            }
+            final String[] parts = cursor.split(":", 3);
+            return new HistoryCursor(Integer.parseInt(parts[0]),
+                                     Long.parseLong(parts[1]),
+                                     parts[2].isEmpty() ? Collections.<String>emptySet() : new HashSet<String>(Arrays.asList(parts[2].split(","))));
+        }
 
-        return processServicesClient.findNodeInstances(deploymentId, processInstanceId, 0, 100);
+        int getPage() {
+            return page;
+        }
+
+        /**
+         * Whether the entry was returned on one of the previous pages.
+         */
+        boolean isReturned(NodeInstance nodeInstance) {
+            final long entryTime = time(nodeInstance);
+            return entryTime > time || (entryTime == time && keys.contains(key(nodeInstance)));
+        }
 
+        HistoryCursor next(int nextPage, List<NodeInstance> returned) {
+            final long oldest = time(returned.get(returned.size() - 1));
+            final Set<String> oldestKeys = new LinkedHashSet<String>();
+            if (oldest == time) {
+                oldestKeys.addAll(keys);
+            }
+            returned.stream().filter(nodeInstance -> time(nodeInstance) == oldest).forEach(nodeInstance -> oldestKeys.add(key(nodeInstance)));
+            return new HistoryCursor(nextPage, oldest, oldestKeys);
+        }
+
+        private static long time(NodeInstance nodeInstance) {
+            return nodeInstance.getDate() == null ? 0 : nodeInstance.getDate().getTime();
+        }
+
+        private static String key(NodeInstance nodeInstance) {
+            // node instances have separate entries when triggered and when completed
+            return nodeInstance.getId() + "/" + Boolean.TRUE.equals(nodeInstance.getCompleted());
+        }
+
+        @Override
+        public String toString() {
+            return page + ":" + time + ":" + String.join(",", keys);
+        }
     }
 
     protected ProcessInstanceSummary build(ProcessInstance processInstance) {
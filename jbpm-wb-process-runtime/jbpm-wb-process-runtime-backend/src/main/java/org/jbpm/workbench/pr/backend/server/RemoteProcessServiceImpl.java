@@ -20,6 +20,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 
 import org.jboss.errai.bus.server.annotations.Service;
 import org.jbpm.workbench.ks.integration.AbstractKieServerService;
@@ -32,6 +33,9 @@ import org.kie.server.client.ProcessServicesClient;
 @ApplicationScoped
 public class RemoteProcessServiceImpl extends AbstractKieServerService implements ProcessService {
 
+    @Inject
+    private ProcessVariablesSnapshotCache snapshotCache;
+
     @Override
     public void abortProcessInstance(String serverTemplateId, String containerId, Long processInstanceId) {
         ProcessServicesClient client = getClient(serverTemplateId, containerId, ProcessServicesClient.class);
@@ -99,6 +103,7 @@ public class RemoteProcessServiceImpl extends AbstractKieServerService implement
         ProcessServicesClient client = getClient(serverTemplateId, containerId, ProcessServicesClient.class);
 
         client.setProcessVariable(containerId, processInstanceId, variableName, value);
+        snapshotCache.invalidate(serverTemplateId, containerId, processInstanceId);
     }
 
 }
\ No newline at end of file
@@ -16,91 +16,238 @@
 package org.jbpm.workbench.pr.backend.server;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 
+import org.dashbuilder.dataset.group.AggregateFunctionType;
 import org.jboss.errai.bus.server.annotations.Service;
+import org.jbpm.workbench.pr.backend.server.model.QueryResultHelper;
 import org.jbpm.workbench.pr.backend.server.model.VariableHelper;
 import org.jbpm.workbench.ks.integration.AbstractKieServerService;
+import org.jbpm.workbench.ks.integration.KieServerDefinitionCache;
 import org.jbpm.workbench.pr.model.ProcessVariableSummary;
 import org.jbpm.workbench.common.model.QueryFilter;
 import org.jbpm.workbench.pr.service.ProcessVariablesService;
-import org.kie.server.api.model.definition.VariablesDefinition;
+import org.kie.server.api.model.definition.QueryFilterSpec;
+import org.kie.server.api.model.definition.QueryParam;
 import org.kie.server.api.model.instance.VariableInstance;
 import org.kie.server.client.ProcessServicesClient;
+import org.kie.server.client.QueryServicesClient;
 import org.uberfire.paging.PageResponse;
 
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.jbpm.workbench.pr.model.ProcessInstanceDataSetConstants.*;
+
 @Service
 @ApplicationScoped
 public class RemoteProcessVariablesServiceImpl extends AbstractKieServerService implements ProcessVariablesService {
 
-    @Override
-    public PageResponse<ProcessVariableSummary> getData(QueryFilter filter) {
-        PageResponse<ProcessVariableSummary> response = new PageResponse<ProcessVariableSummary>();
-        List<ProcessVariableSummary> processVariablesSums = getProcessVariables(filter);
-        response.setStartRowIndex(filter.getOffset());
-        response.setTotalRowSize(processVariablesSums.size() - 1);
-        if (processVariablesSums.size() > filter.getCount()) {
-            response.setTotalRowSizeExact(false);
-        } else {
-            response.setTotalRowSizeExact(true);
-        }
-        response.setTotalRowSizeExact( true );
-        response.setTotalRowSize( processVariablesSums.size() );
-        if (!processVariablesSums.isEmpty()){
-            if (processVariablesSums.size() > (filter.getCount() + filter.getOffset())) {
-                response.setPageRowList( new ArrayList<ProcessVariableSummary>( processVariablesSums.subList( filter.getOffset(), filter.getOffset() + filter.getCount() ) ) );
-                response.setLastPage( false );
-            } else {
-                response.setPageRowList( new ArrayList<ProcessVariableSummary>( processVariablesSums.subList( filter.getOffset(),processVariablesSums.size()) ) );
-                response.setLastPage( true );
-            }
-
-        } else {
-            response.setPageRowList(new ArrayList<ProcessVariableSummary>(processVariablesSums));
-            response.setLastPage(true);
+    protected static final String COUNT_COLUMN = "rowCount";
 
-        }
-        return response;
+    @Inject
+    private KieServerDefinitionCache definitionCache;
 
-    }
+    @Inject
+    private ProcessVariablesSnapshotCache snapshotCache;
 
-    private List<ProcessVariableSummary> getProcessVariables(QueryFilter filter) {
+    /**
+     * Returns a page of current variables of a process instance. Variables defined by the process but never set are
+     * listed first, followed by the set ones ordered by name. Set variables are filtered and paged by KIE Server,
+     * pages already loaded are served from a short lived snapshot of the instance.
+     */
+    @Override
+    public PageResponse<ProcessVariableSummary> getData(QueryFilter filter) {
         Long processInstanceId = null;
         String processId = "";
         String deploymentId = "";
         String serverTemplateId = "";
+        String textSearch = null;
         if (filter.getParams() != null) {
             processInstanceId = Long.valueOf((String) filter.getParams().get("processInstanceId"));
             processId = (String) filter.getParams().get("processDefId");
             deploymentId = (String) filter.getParams().get("deploymentId");
             serverTemplateId = (String) filter.getParams().get("serverTemplateId");
+            textSearch = (String) filter.getParams().get("textSearch");
+            if (textSearch != null && textSearch.isEmpty()) {
+                textSearch = null;
+            }
+            // search by name is case insensitive, for both unset and set variables
+            if (textSearch != null) {
+                textSearch = textSearch.toLowerCase();
+            }
         }
 
-        Map<String, String> properties = new HashMap<String, String>();
+        final int offset = filter.getOffset();
+        final int count = filter.getCount();
+        final Map<String, String> definitions = getVariableDefinitions(serverTemplateId, deploymentId, processId);
+        final ProcessVariablesSnapshotCache.Snapshot snapshot = snapshotCache.get(serverTemplateId, deploymentId, processInstanceId);
 
-        ProcessServicesClient processClient = getClient(serverTemplateId, ProcessServicesClient.class);
+        final List<ProcessVariableSummary> pageRows = new ArrayList<ProcessVariableSummary>();
+        final List<ProcessVariableSummary> unsetVariables = filterByName(getUnsetVariables(snapshot, serverTemplateId, deploymentId, processInstanceId, definitions), textSearch);
+        if (offset < unsetVariables.size()) {
+            pageRows.addAll(unsetVariables.subList(offset, Math.min(unsetVariables.size(), offset + count)));
+        }
+
+        boolean lastPage = false;
+        final int variablesOffset = Math.max(0, offset - unsetVariables.size());
+        final int variablesCount = count - pageRows.size();
+        if (variablesCount > 0) {
+            // KIE Server pages by page number, offset within set variables may span two pages
+            final int page = variablesOffset / count;
+            final int skip = variablesOffset % count;
+            final List<List> rows = new ArrayList<List>(getVariablesPage(snapshot, serverTemplateId, processInstanceId, textSearch, page, count));
+            lastPage = rows.size() < count;
+            if (!lastPage && skip > 0) {
+                final List<List> nextRows = getVariablesPage(snapshot, serverTemplateId, processInstanceId, textSearch, page + 1, count);
+                rows.addAll(nextRows);
+                lastPage = nextRows.size() < count;
+            }
+            List<List> variableRows = rows.subList(Math.min(skip, rows.size()), rows.size());
+            if (variableRows.size() > variablesCount) {
+                variableRows = variableRows.subList(0, variablesCount);
+                lastPage = false;
+            }
+
+            final List<VariableInstance> variables = variableRows.stream().map(row -> toVariable(row)).collect(toList());
+            // only types of the variables on the page, the helper adds any other definition as unset variable
+            final Map<String, String> types = new HashMap<String, String>();
+            for (VariableInstance variable : variables) {
+                if (definitions.containsKey(variable.getVariableName())) {
+                    types.put(variable.getVariableName(), definitions.get(variable.getVariableName()));
+                }
+            }
+            pageRows.addAll(VariableHelper.adaptCollection(variables, types, processInstanceId, deploymentId, serverTemplateId));
+        }
+
+        // total is derived from the last page, otherwise set variables are counted by KIE Server
+        final int totalRowSize;
+        if (lastPage) {
+            totalRowSize = offset + pageRows.size();
+        } else {
+            final int variablesTotal = getVariablesCount(snapshot, serverTemplateId, processInstanceId, textSearch);
+            totalRowSize = variablesTotal < 0 ? -1 : unsetVariables.size() + variablesTotal;
+            lastPage = totalRowSize >= 0 && offset + pageRows.size() >= totalRowSize;
+        }
+
+        PageResponse<ProcessVariableSummary> response = new PageResponse<ProcessVariableSummary>();
+        response.setStartRowIndex(offset);
+        response.setPageRowList(pageRows);
+        response.setLastPage(lastPage);
+        response.setTotalRowSizeExact(totalRowSize >= 0);
+        response.setTotalRowSize(totalRowSize >= 0 ? totalRowSize : offset + pageRows.size() + 1);
+        return response;
+    }
+
+    /**
+     * Variables defined by the process that have no value in the process instance yet, ordered by name.
+     */
+    protected List<ProcessVariableSummary> getUnsetVariables(final ProcessVariablesSnapshotCache.Snapshot snapshot,
+                                                             final String serverTemplateId,
+                                                             final String deploymentId,
+                                                             final Long processInstanceId,
+                                                             final Map<String, String> definitions) {
+        return snapshot.getUnsetVariables(() -> {
+            final Map<String, String> unset = new HashMap<String, String>(definitions);
+            unset.keySet().removeAll(VariableHelper.getExcludedVariables());
+            if (!unset.isEmpty()) {
+                final QueryFilterSpec filterSpec = new QueryFilterSpec();
+                filterSpec.setParameters(new QueryParam[]{
+                        new QueryParam(COLUMN_VARIABLE_PROCESS_INSTANCE_ID, "EQUALS_TO", Collections.singletonList(processInstanceId)),
+                        new QueryParam(COLUMN_VARIABLE_NAME, "IN", new ArrayList<String>(unset.keySet()))
+                });
+                final List<List> rows = getClient(serverTemplateId, QueryServicesClient.class).query(PROCESS_INSTANCE_VARIABLES_DATASET, QueryServicesClient.QUERY_MAP_RAW, filterSpec, 0, unset.size(), List.class);
+                final Set<String> setVariables = rows.stream().map(row -> (String) row.get(2)).collect(toSet());
+                unset.keySet().removeAll(setVariables);
+            }
 
-        VariablesDefinition vars = processClient.getProcessVariableDefinitions(deploymentId, processId);
-        properties.putAll(vars.getVariables());
+            final List<ProcessVariableSummary> variables = VariableHelper.adaptCollection(Collections.emptyList(), unset, processInstanceId, deploymentId, serverTemplateId);
+            variables.sort((v1, v2) -> v1.getVariableId().compareTo(v2.getVariableId()));
+            return variables;
+        });
+    }
 
-        List<VariableInstance> variables = processClient.findVariablesCurrentState(deploymentId, processInstanceId);
+    protected List<List> getVariablesPage(final ProcessVariablesSnapshotCache.Snapshot snapshot,
+                                          final String serverTemplateId,
+                                          final Long processInstanceId,
+                                          final String textSearch,
+                                          final int page,
+                                          final int pageSize) {
+        return snapshot.getPage(textSearch, page, pageSize, () -> {
+            final List<QueryParam> params = getVariablesFilter(processInstanceId, textSearch);
+            final QueryFilterSpec filterSpec = new QueryFilterSpec();
+            filterSpec.setParameters(params.toArray(new QueryParam[params.size()]));
+            filterSpec.setOrderBy(COLUMN_VARIABLE_NAME);
+            filterSpec.setAscending(true);
 
-        Collection<ProcessVariableSummary> processVariables = VariableHelper.adaptCollection(variables, properties, processInstanceId, deploymentId, serverTemplateId);
+            return getClient(serverTemplateId, QueryServicesClient.class).query(PROCESS_INSTANCE_VARIABLES_DATASET, QueryServicesClient.QUERY_MAP_RAW, filterSpec, page, pageSize, List.class);
+        });
+    }
 
-        List<ProcessVariableSummary> processVariablesSums = new ArrayList<ProcessVariableSummary>(processVariables.size());
-        for (ProcessVariableSummary pv : processVariables) {
+    /**
+     * Counts set variables matching the search with a COUNT query, -1 when KIE Server did not return the count.
+     */
+    protected int getVariablesCount(final ProcessVariablesSnapshotCache.Snapshot snapshot,
+                                    final String serverTemplateId,
+                                    final Long processInstanceId,
+                                    final String textSearch) {
+        return snapshot.getCount(textSearch, () -> {
+            final List<QueryParam> params = getVariablesFilter(processInstanceId, textSearch);
+            params.add(new QueryParam(COLUMN_VARIABLE_ID, AggregateFunctionType.COUNT.toString(), Collections.singletonList(COUNT_COLUMN)));
+            final QueryFilterSpec filterSpec = new QueryFilterSpec();
+            filterSpec.setParameters(params.toArray(new QueryParam[params.size()]));
 
-            if (filter.getParams().get("textSearch") == null || ((String) filter.getParams().get("textSearch")).isEmpty()) {
-                processVariablesSums.add(pv);
-            } else if (pv.getVariableId().toLowerCase().contains((String) filter.getParams().get("textSearch"))) {
-                processVariablesSums.add(pv);
+            final List<List> result = getClient(serverTemplateId, QueryServicesClient.class).query(PROCESS_INSTANCE_VARIABLES_DATASET, QueryServicesClient.QUERY_MAP_RAW, filterSpec, 0, 1, List.class);
+            if (!result.isEmpty() && !result.get(0).isEmpty() && result.get(0).get(0) instanceof Number) {
+                return ((Number) result.get(0).get(0)).intValue();
             }
+            return -1;
+        });
+    }
+
+    protected static List<QueryParam> getVariablesFilter(final Long processInstanceId, final String textSearch) {
+        final List<QueryParam> params = new ArrayList<QueryParam>();
+        params.add(new QueryParam(COLUMN_VARIABLE_PROCESS_INSTANCE_ID, "EQUALS_TO", Collections.singletonList(processInstanceId)));
+        params.add(new QueryParam(COLUMN_VARIABLE_NAME, "NOT_IN", new ArrayList<String>(VariableHelper.getExcludedVariables())));
+        if (textSearch != null) {
+            params.add(new QueryParam(COLUMN_VARIABLE_NAME_LOWER, "LIKE_TO", Collections.singletonList("%" + textSearch.toLowerCase() + "%")));
         }
-        return processVariablesSums;
+        return params;
+    }
+
+    protected static List<ProcessVariableSummary> filterByName(final List<ProcessVariableSummary> variables, final String textSearch) {
+        if (textSearch == null) {
+            return variables;
+        }
+        final String search = textSearch.toLowerCase();
+        return variables.stream().filter(variable -> variable.getVariableId().toLowerCase().contains(search)).collect(toList());
+    }
+
+    /**
+     * Maps raw row of the variables query, columns are in the order of the data set definition.
+     */
+    protected static VariableInstance toVariable(final List row) {
+        final VariableInstance variable = new VariableInstance();
+        variable.setProcessInstanceId(QueryResultHelper.toLong(row.get(1)));
+        variable.setVariableName((String) row.get(2));
+        variable.setValue((String) row.get(3));
+        variable.setOldValue((String) row.get(4));
+        variable.setDate(QueryResultHelper.toDate(row.get(5)));
+        return variable;
+    }
+
+    private Map<String, String> getVariableDefinitions(String serverTemplateId, String deploymentId, String processId) {
+        final Map<String, String> definitions = definitionCache.get(serverTemplateId,
+                                                                    deploymentId,
+                                                                    processId,
+                                                                    "variables",
+                                                                    () -> getClient(serverTemplateId, ProcessServicesClient.class).getProcessVariableDefinitions(deploymentId, processId).getVariables());
+        return definitions == null ? Collections.emptyMap() : definitions;
     }
 
     @Override
@@ -111,4 +258,4 @@ public class RemoteProcessVariablesServiceImpl extends AbstractKieServerService
         return VariableHelper.adaptCollection(variables, new HashMap<String, String>(), processInstanceId, deploymentId, serverTemplateId);
     }
 
-}
\ No newline at end of file
+}
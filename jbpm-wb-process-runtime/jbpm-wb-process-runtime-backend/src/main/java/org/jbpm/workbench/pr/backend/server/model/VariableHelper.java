@@ -31,6 +31,10 @@ public class VariableHelper {
     private static final List<String> excludedVariables = Arrays.asList(new String[] { "processId" });
 
 
+    public static List<String> getExcludedVariables() {
+        return excludedVariables;
+    }
+
     public static List<ProcessVariableSummary> adaptCollection(List<VariableInstance> variables,
             Map<String, String> properties, long processInstanceId, String deploymentId, String serverTemplateId ) {
         List<ProcessVariableSummary> variablesSummary = new ArrayList<ProcessVariableSummary>();
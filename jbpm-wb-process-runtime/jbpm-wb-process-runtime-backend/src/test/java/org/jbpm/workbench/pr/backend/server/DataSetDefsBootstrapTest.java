@@ -71,12 +71,14 @@ public class DataSetDefsBootstrapTest {
     @Test
     public void registerDataSetDefsTest() {
         ArgumentCaptor<DataSetDef> argument = ArgumentCaptor.forClass(DataSetDef.class);
-        verify(dataSetRegistry, times(2)).registerDataSetDef(argument.capture());
+        verify(dataSetRegistry, times(4)).registerDataSetDef(argument.capture());
 
         List<DataSetDef> dataSetDefList = argument.getAllValues();
-        assertEquals(dataSetDefList.size(), 2);
+        assertEquals(dataSetDefList.size(), 4);
         assertEquals(dataSetDefList.get(0).getUUID(), PROCESS_INSTANCE_DATASET);
         assertEquals(dataSetDefList.get(1).getUUID(), PROCESS_INSTANCE_WITH_VARIABLES_DATASET);
+        assertEquals(dataSetDefList.get(2).getUUID(), PROCESS_INSTANCE_TASK_EVENTS_DATASET);
+        assertEquals(dataSetDefList.get(3).getUUID(), PROCESS_INSTANCE_VARIABLES_DATASET);
     }
 
     //TODO Needs redesign as data source is deployed to kie server
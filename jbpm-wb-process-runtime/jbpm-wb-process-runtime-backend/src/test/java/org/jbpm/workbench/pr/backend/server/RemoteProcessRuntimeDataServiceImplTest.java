@@ -17,19 +17,288 @@
 package org.jbpm.workbench.pr.backend.server;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
 
+import org.jbpm.workbench.ks.integration.KieServerCallGuard;
+import org.jbpm.workbench.ks.integration.KieServerCallMetrics;
+import org.jbpm.workbench.ks.integration.KieServerDefinitionCache;
+import org.jbpm.workbench.ks.integration.KieServerIntegration;
+import org.jbpm.workbench.ks.integration.KieServerParallelExecutor;
 import org.jbpm.workbench.pr.backend.server.RemoteProcessRuntimeDataServiceImpl;
+import org.jbpm.workbench.pr.model.ProcessInstanceDetails;
+import org.jbpm.workbench.pr.model.ProcessInstanceDetailsFacet;
+import org.jbpm.workbench.pr.model.ProcessInstanceKey;
+import org.jbpm.workbench.pr.model.RuntimeLogPage;
+import org.jbpm.workbench.pr.model.RuntimeLogSummary;
 import org.jbpm.workbench.pr.service.ProcessRuntimeDataService;
+import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kie.server.api.model.definition.QueryFilterSpec;
+import org.kie.server.api.model.definition.UserTaskDefinition;
+import org.kie.server.api.model.definition.UserTaskDefinitionList;
+import org.kie.server.api.model.definition.VariablesDefinition;
+import org.kie.server.api.model.instance.NodeInstance;
+import org.kie.server.api.model.instance.ProcessInstance;
+import org.kie.server.api.model.instance.VariableInstance;
+import org.kie.server.client.KieServicesClient;
+import org.kie.server.client.ProcessServicesClient;
+import org.kie.server.client.QueryServicesClient;
+import org.kie.server.common.rest.KieServerHttpRequestException;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
 
 import static java.lang.String.format;
+import static org.jbpm.workbench.pr.model.ProcessInstanceDataSetConstants.*;
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
 
+@RunWith(MockitoJUnitRunner.class)
 public class RemoteProcessRuntimeDataServiceImplTest {
 
+    @Mock
+    KieServerIntegration kieServerIntegration;
+
+    @Mock
+    ProcessServicesClient processServicesClient;
+
+    @Mock
+    QueryServicesClient queryServicesClient;
+
+    @Spy
+    KieServerCallGuard callGuard = new KieServerCallGuard();
+
+    @Spy
+    KieServerCallMetrics callMetrics = new KieServerCallMetrics();
+
+    @Spy
+    KieServerParallelExecutor parallelExecutor = new KieServerParallelExecutor(4, null);
+
+    @Spy
+    KieServerDefinitionCache definitionCache = new KieServerDefinitionCache();
+
+    @InjectMocks
     RemoteProcessRuntimeDataServiceImpl service = new RemoteProcessRuntimeDataServiceImpl();
 
+    @Before
+    public void init() {
+        final KieServicesClient servicesClient = mock(KieServicesClient.class);
+        when(servicesClient.getServicesClient(ProcessServicesClient.class)).thenReturn(processServicesClient);
+        when(servicesClient.getServicesClient(QueryServicesClient.class)).thenReturn(queryServicesClient);
+        when(kieServerIntegration.getServerClient("template")).thenReturn(servicesClient);
+    }
+
+    @Test
+    public void testGetProcessInstanceDetails() {
+        when(processServicesClient.getProcessInstance("container", 1l)).thenReturn(newProcessInstance(1l));
+        when(processServicesClient.getProcessInstance("container", 2l)).thenReturn(newProcessInstance(2l));
+        when(processServicesClient.findActiveNodeInstances("container", 1l, 0, 100)).thenReturn(Collections.emptyList());
+        when(processServicesClient.findActiveNodeInstances("container", 2l, 0, 100)).thenReturn(Collections.emptyList());
+        when(processServicesClient.findVariablesCurrentState("container", 1l)).thenReturn(Collections.singletonList(newVariableInstance(1l, "name")));
+        when(processServicesClient.findVariablesCurrentState("container", 2l)).thenReturn(Collections.singletonList(newVariableInstance(2l, "name")));
+        final VariablesDefinition variablesDefinition = mock(VariablesDefinition.class);
+        when(variablesDefinition.getVariables()).thenReturn(Collections.singletonMap("name", "String"));
+        when(processServicesClient.getProcessVariableDefinitions("container", "process")).thenReturn(variablesDefinition);
+
+        final List<ProcessInstanceDetails> details = service.getProcessInstanceDetails("template",
+                                                                                       Arrays.asList(new ProcessInstanceKey("template", "container", 1l),
+                                                                                                     new ProcessInstanceKey("template", "container", 2l)),
+                                                                                       EnumSet.of(ProcessInstanceDetailsFacet.SUMMARY,
+                                                                                                  ProcessInstanceDetailsFacet.ACTIVE_NODES,
+                                                                                                  ProcessInstanceDetailsFacet.VARIABLES));
+
+        assertEquals(2, details.size());
+        for (int i = 0; i < details.size(); i++) {
+            final ProcessInstanceDetails instanceDetails = details.get(i);
+            assertEquals(Long.valueOf(i + 1), instanceDetails.getProcessInstanceKey().getProcessInstanceId());
+            assertEquals(Long.valueOf(i + 1), instanceDetails.getSummary().getProcessInstanceId());
+            assertTrue(instanceDetails.getActiveNodes().isEmpty());
+            assertNull(instanceDetails.getRuntimeLogs());
+            assertEquals(1, instanceDetails.getVariables().size());
+            assertEquals("String", instanceDetails.getVariables().get(0).getType());
+            assertTrue(instanceDetails.getFailedFacets().isEmpty());
+        }
+        // definitions are shared by instances of the same process
+        verify(processServicesClient).getProcessVariableDefinitions("container", "process");
+        verify(processServicesClient, never()).findNodeInstances(anyString(), anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void testProcessUserTasksDefinitionsCached() {
+        final UserTaskDefinition userTaskDefinition = mock(UserTaskDefinition.class);
+        when(userTaskDefinition.getName()).thenReturn("task");
+        final UserTaskDefinitionList userTaskDefinitionList = mock(UserTaskDefinitionList.class);
+        when(userTaskDefinitionList.getItems()).thenReturn(Collections.singletonList(userTaskDefinition));
+        when(processServicesClient.getUserTaskDefinitions("container", "process")).thenReturn(userTaskDefinitionList);
+
+        assertEquals("task", service.getProcessUserTasks("template", "container", "process").get(0).getName());
+        assertEquals("task", service.getProcessUserTasks("template", "container", "process").get(0).getName());
+
+        verify(processServicesClient).getUserTaskDefinitions("container", "process");
+
+        definitionCache.invalidate("template", "container");
+        service.getProcessUserTasks("template", "container", "process");
+
+        verify(processServicesClient, times(2)).getUserTaskDefinitions("container", "process");
+    }
+
+    @Test
+    public void testGetProcessInstanceDetailsReportsFailedFacets() {
+        when(processServicesClient.getProcessInstance("container", 1l)).thenThrow(new KieServerHttpRequestException("Connection refused"));
+        when(processServicesClient.findActiveNodeInstances("container", 1l, 0, 100)).thenReturn(Collections.emptyList());
+        when(processServicesClient.findVariablesCurrentState("container", 1l)).thenReturn(Collections.singletonList(newVariableInstance(1l, "name")));
+
+        final List<ProcessInstanceDetails> details = service.getProcessInstanceDetails("template",
+                                                                                       Collections.singletonList(new ProcessInstanceKey("template", "container", 1l)),
+                                                                                       EnumSet.of(ProcessInstanceDetailsFacet.ACTIVE_NODES,
+                                                                                                  ProcessInstanceDetailsFacet.VARIABLES));
+
+        assertEquals(1, details.size());
+        assertNotNull(details.get(0).getActiveNodes());
+        assertNull(details.get(0).getVariables());
+        assertEquals(Collections.singletonList(ProcessInstanceDetailsFacet.VARIABLES), details.get(0).getFailedFacets());
+    }
+
+    @Test
+    public void testGetProcessInstanceDetailsLoadsFirstHistoryPage() {
+        when(processServicesClient.findNodeInstances("container", 1l, 0, 100)).thenReturn(newNodeInstances(101, 2));
+
+        final List<ProcessInstanceDetails> details = service.getProcessInstanceDetails("template",
+                                                                                       Collections.singletonList(new ProcessInstanceKey("template", "container", 1l)),
+                                                                                       EnumSet.of(ProcessInstanceDetailsFacet.HISTORY));
+
+        final RuntimeLogPage logs = details.get(0).getRuntimeLogs();
+        assertEquals(100, logs.getLogs().size());
+        assertEquals(101, logs.getLogs().get(0).getId());
+        assertFalse(logs.isLastPage());
+        assertTrue(details.get(0).getFailedFacets().isEmpty());
+        verify(processServicesClient).findNodeInstances(anyString(), anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void testGetRuntimeLogsPage() {
+        when(processServicesClient.findNodeInstances("container", 1l, 0, 100)).thenReturn(newNodeInstances(101, 2));
+        when(processServicesClient.findNodeInstances("container", 1l, 1, 100)).thenReturn(newNodeInstances(1, 1));
+
+        final RuntimeLogPage first = service.getRuntimeLogsPage("template", "container", 1l, null, 100);
+        assertEquals(100, first.getLogs().size());
+        assertEquals(101, first.getLogs().get(0).getId());
+        assertFalse(first.isLastPage());
+
+        final RuntimeLogPage second = service.getRuntimeLogsPage("template", "container", 1l, first.getNextCursor(), 100);
+        assertEquals(1, second.getLogs().size());
+        assertEquals(1, second.getLogs().get(0).getId());
+        assertTrue(second.isLastPage());
+    }
+
+    @Test
+    public void testGetRuntimeLogsPageNotShiftedByNewHistory() {
+        when(processServicesClient.findNodeInstances("container", 1l, 0, 3)).thenReturn(newNodeInstances(6, 4));
+
+        final RuntimeLogPage first = service.getRuntimeLogsPage("template", "container", 1l, null, 3);
+        assertEquals(3, first.getLogs().size());
+        assertEquals(4, first.getLogs().get(2).getId());
+
+        // two entries added to the history in the meantime, shifting server pages
+        when(processServicesClient.findNodeInstances("container", 1l, 1, 3)).thenReturn(newNodeInstances(5, 3));
+        when(processServicesClient.findNodeInstances("container", 1l, 2, 3)).thenReturn(newNodeInstances(2, 1));
+
+        final RuntimeLogPage second = service.getRuntimeLogsPage("template", "container", 1l, first.getNextCursor(), 3);
+        assertEquals(1, second.getLogs().size());
+        assertEquals(3, second.getLogs().get(0).getId());
+        assertFalse(second.isLastPage());
+
+        final RuntimeLogPage third = service.getRuntimeLogsPage("template", "container", 1l, second.getNextCursor(), 3);
+        assertEquals(2, third.getLogs().size());
+        assertEquals(2, third.getLogs().get(0).getId());
+        assertEquals(1, third.getLogs().get(1).getId());
+        assertTrue(third.isLastPage());
+    }
+
+    @Test
+    public void testGetRuntimeLogsPageSkipsFullyReturnedServerPage() {
+        when(processServicesClient.findNodeInstances("container", 1l, 0, 2)).thenReturn(newNodeInstances(4, 3));
+
+        final RuntimeLogPage first = service.getRuntimeLogsPage("template", "container", 1l, null, 2);
+
+        // history grew by a whole page, the next server page holds entries already returned
+        when(processServicesClient.findNodeInstances("container", 1l, 1, 2)).thenReturn(newNodeInstances(4, 3));
+        when(processServicesClient.findNodeInstances("container", 1l, 2, 2)).thenReturn(newNodeInstances(2, 1));
+
+        final RuntimeLogPage second = service.getRuntimeLogsPage("template", "container", 1l, first.getNextCursor(), 2);
+        assertEquals(2, second.getLogs().size());
+        assertEquals(2, second.getLogs().get(0).getId());
+        assertFalse(second.isLastPage());
+    }
+
+    @Test
+    public void testGetBusinessLogsJoinsTaskEventsByWorkItem() {
+        final NodeInstance taskNode = newNodeInstances(2, 2).get(0);
+        taskNode.setNodeType("HumanTaskNode");
+        taskNode.setWorkItemId(10l);
+        final NodeInstance otherTaskNode = newNodeInstances(3, 3).get(0);
+        otherTaskNode.setNodeType("HumanTaskNode");
+        otherTaskNode.setWorkItemId(11l);
+        when(processServicesClient.findNodeInstances("container", 1l, 0, 100)).thenReturn(Arrays.asList(otherTaskNode, taskNode));
+        doReturn(Arrays.asList(Arrays.asList(1, 5, 10, "ADDED", "john", new Date(), 1),
+                               Arrays.asList(2, 5, 10, "CLAIMED", "john", new Date(), 1),
+                               Arrays.asList(3, 5, 10, "COMPLETED", "john", new Date(), 1),
+                               Arrays.asList(4, 6, 11, "CLAIMED", "mary", new Date(), 1)))
+                .when(queryServicesClient).query(eq(PROCESS_INSTANCE_TASK_EVENTS_DATASET), eq(QueryServicesClient.QUERY_MAP_RAW), any(QueryFilterSpec.class), eq(0), anyInt(), eq(List.class));
+
+        final List<RuntimeLogSummary> logs = service.getBusinessLogsPage("template", "container", "process", 1l, null, null).getLogs();
+
+        assertEquals(5, logs.size());
+        assertEquals("Task 'node2' was created", logs.get(0).getLogLine());
+        assertEquals("Task 'node2' was claimed by user john", logs.get(1).getLogLine());
+        assertEquals("Task 'node2' was completed by user john", logs.get(2).getLogLine());
+        assertEquals("Task 'node3' was created", logs.get(3).getLogLine());
+        assertEquals("Task 'node3' was claimed by user mary", logs.get(4).getLogLine());
+        // all events are loaded in one query
+        verify(queryServicesClient).query(anyString(), anyString(), any(QueryFilterSpec.class), anyInt(), anyInt(), eq(List.class));
+    }
+
+    private List<NodeInstance> newNodeInstances(long newestId, long oldestId) {
+        final List<NodeInstance> nodeInstances = new ArrayList<NodeInstance>();
+        for (long id = newestId; id >= oldestId; id--) {
+            final NodeInstance nodeInstance = new NodeInstance();
+            nodeInstance.setId(id);
+            nodeInstance.setName("node" + id);
+            nodeInstance.setNodeType(id == 1 ? "StartNode" : "ActionNode");
+            // history is ordered newest first
+            nodeInstance.setDate(new Date(id * 1000));
+            nodeInstances.add(nodeInstance);
+        }
+        return nodeInstances;
+    }
+
+    private ProcessInstance newProcessInstance(Long id) {
+        final ProcessInstance processInstance = new ProcessInstance();
+        processInstance.setId(id);
+        processInstance.setProcessId("process");
+        processInstance.setContainerId("container");
+        processInstance.setState(1);
+        processInstance.setDate(new Date());
+        return processInstance;
+    }
+
+    private VariableInstance newVariableInstance(Long processInstanceId, String name) {
+        final VariableInstance variableInstance = new VariableInstance();
+        variableInstance.setProcessInstanceId(processInstanceId);
+        variableInstance.setVariableName(name);
+        variableInstance.setValue("value");
+        variableInstance.setDate(new Date());
+        return variableInstance;
+    }
+
     @Test
     public void testInvalidServerTemplate() throws Exception {
         final Method[] methods = ProcessRuntimeDataService.class.getMethods();
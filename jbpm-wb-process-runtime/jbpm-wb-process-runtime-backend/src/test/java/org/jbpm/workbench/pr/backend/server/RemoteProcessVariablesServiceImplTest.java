@@ -0,0 +1,201 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.pr.backend.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jbpm.workbench.common.model.PortableQueryFilter;
+import org.jbpm.workbench.common.model.QueryFilter;
+import org.jbpm.workbench.ks.integration.KieServerCallGuard;
+import org.jbpm.workbench.ks.integration.KieServerCallMetrics;
+import org.jbpm.workbench.ks.integration.KieServerDefinitionCache;
+import org.jbpm.workbench.ks.integration.KieServerIntegration;
+import org.jbpm.workbench.pr.model.ProcessVariableSummary;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kie.server.api.model.definition.QueryFilterSpec;
+import org.kie.server.api.model.definition.VariablesDefinition;
+import org.kie.server.client.KieServicesClient;
+import org.kie.server.client.ProcessServicesClient;
+import org.kie.server.client.QueryServicesClient;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.paging.PageResponse;
+
+import static org.jbpm.workbench.pr.model.ProcessInstanceDataSetConstants.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RemoteProcessVariablesServiceImplTest {
+
+    @Mock
+    KieServerIntegration kieServerIntegration;
+
+    @Mock
+    ProcessServicesClient processServicesClient;
+
+    @Mock
+    QueryServicesClient queryServicesClient;
+
+    @Spy
+    KieServerCallGuard callGuard = new KieServerCallGuard();
+
+    @Spy
+    KieServerCallMetrics callMetrics = new KieServerCallMetrics();
+
+    @Spy
+    KieServerDefinitionCache definitionCache = new KieServerDefinitionCache();
+
+    @Spy
+    ProcessVariablesSnapshotCache snapshotCache = new ProcessVariablesSnapshotCache();
+
+    @InjectMocks
+    RemoteProcessVariablesServiceImpl service = new RemoteProcessVariablesServiceImpl();
+
+    @Before
+    public void init() {
+        final KieServicesClient servicesClient = mock(KieServicesClient.class);
+        when(servicesClient.getServicesClient(ProcessServicesClient.class)).thenReturn(processServicesClient);
+        when(servicesClient.getServicesClient(QueryServicesClient.class)).thenReturn(queryServicesClient);
+        when(kieServerIntegration.getServerClient("template")).thenReturn(servicesClient);
+
+        final Map<String, String> definitions = new HashMap<String, String>();
+        definitions.put("a", "String");
+        definitions.put("unset", "Integer");
+        final VariablesDefinition variablesDefinition = mock(VariablesDefinition.class);
+        when(variablesDefinition.getVariables()).thenReturn(definitions);
+        when(processServicesClient.getProcessVariableDefinitions("container", "process")).thenReturn(variablesDefinition);
+
+        // only "a" of the defined variables is set
+        doReturn(Collections.singletonList(newRow("a"))).when(queryServicesClient).query(eq(PROCESS_INSTANCE_VARIABLES_DATASET), eq(QueryServicesClient.QUERY_MAP_RAW), any(QueryFilterSpec.class), eq(0), eq(2), eq(List.class));
+    }
+
+    @Test
+    public void testVariablesPagedByServer() {
+        doReturn(Arrays.asList(newRow("a"), newRow("b"))).when(queryServicesClient).query(eq(PROCESS_INSTANCE_VARIABLES_DATASET), eq(QueryServicesClient.QUERY_MAP_RAW), any(QueryFilterSpec.class), eq(0), eq(3), eq(List.class));
+
+        final PageResponse<ProcessVariableSummary> response = service.getData(newFilter(0, 3, null));
+
+        assertEquals(3, response.getPageRowList().size());
+        assertEquals("unset", response.getPageRowList().get(0).getVariableId());
+        assertEquals("Integer", response.getPageRowList().get(0).getType());
+        assertEquals("a", response.getPageRowList().get(1).getVariableId());
+        assertEquals("String", response.getPageRowList().get(1).getType());
+        assertEquals("value a", response.getPageRowList().get(1).getNewValue());
+        assertEquals("b", response.getPageRowList().get(2).getVariableId());
+        assertNull(response.getPageRowList().get(2).getType());
+        assertTrue(response.isLastPage());
+        assertTrue(response.isTotalRowSizeExact());
+        assertEquals(3, response.getTotalRowSize());
+        verify(processServicesClient, never()).findVariablesCurrentState(anyString(), anyLong());
+    }
+
+    @Test
+    public void testPageSpanningServerPages() {
+        doReturn(Arrays.asList(newRow("a"), newRow("b"))).when(queryServicesClient).query(eq(PROCESS_INSTANCE_VARIABLES_DATASET), eq(QueryServicesClient.QUERY_MAP_RAW), any(QueryFilterSpec.class), eq(0), eq(2), eq(List.class));
+        doReturn(Arrays.asList(newRow("c"), newRow("d"))).when(queryServicesClient).query(eq(PROCESS_INSTANCE_VARIABLES_DATASET), eq(QueryServicesClient.QUERY_MAP_RAW), any(QueryFilterSpec.class), eq(1), eq(2), eq(List.class));
+        // set variables are counted by a single row count query
+        doReturn(Collections.singletonList(Collections.singletonList(4))).when(queryServicesClient).query(eq(PROCESS_INSTANCE_VARIABLES_DATASET), eq(QueryServicesClient.QUERY_MAP_RAW), any(QueryFilterSpec.class), eq(0), eq(1), eq(List.class));
+
+        // the unset variable comes first so the page starts at the second set variable and spans two server pages
+        final PageResponse<ProcessVariableSummary> response = service.getData(newFilter(2, 2, null));
+
+        assertEquals(2, response.getPageRowList().size());
+        assertEquals("b", response.getPageRowList().get(0).getVariableId());
+        assertEquals("c", response.getPageRowList().get(1).getVariableId());
+        assertFalse(response.isLastPage());
+        assertTrue(response.isTotalRowSizeExact());
+        assertEquals(5, response.getTotalRowSize());
+        final ArgumentCaptor<QueryFilterSpec> filterSpec = ArgumentCaptor.forClass(QueryFilterSpec.class);
+        verify(queryServicesClient).query(eq(PROCESS_INSTANCE_VARIABLES_DATASET), eq(QueryServicesClient.QUERY_MAP_RAW), filterSpec.capture(), eq(0), eq(1), eq(List.class));
+        assertTrue(Arrays.stream(filterSpec.getValue().getParameters())
+                           .anyMatch(param -> "COUNT".equals(param.getOperator())));
+
+        // count is served from the snapshot for the following pages
+        service.getData(newFilter(4, 2, null));
+        verify(queryServicesClient).query(anyString(), anyString(), any(QueryFilterSpec.class), eq(0), eq(1), eq(List.class));
+    }
+
+    @Test
+    public void testCountFailureReportsInexactTotal() {
+        doReturn(Arrays.asList(newRow("a"), newRow("b"))).when(queryServicesClient).query(eq(PROCESS_INSTANCE_VARIABLES_DATASET), eq(QueryServicesClient.QUERY_MAP_RAW), any(QueryFilterSpec.class), eq(0), eq(2), eq(List.class));
+        doReturn(Collections.emptyList()).when(queryServicesClient).query(eq(PROCESS_INSTANCE_VARIABLES_DATASET), eq(QueryServicesClient.QUERY_MAP_RAW), any(QueryFilterSpec.class), eq(0), eq(1), eq(List.class));
+
+        final PageResponse<ProcessVariableSummary> response = service.getData(newFilter(0, 2, null));
+
+        assertFalse(response.isLastPage());
+        assertFalse(response.isTotalRowSizeExact());
+        assertEquals(3, response.getTotalRowSize());
+    }
+
+    @Test
+    public void testPagesServedFromSnapshot() {
+        doReturn(Arrays.asList(newRow("a"), newRow("b"))).when(queryServicesClient).query(eq(PROCESS_INSTANCE_VARIABLES_DATASET), eq(QueryServicesClient.QUERY_MAP_RAW), any(QueryFilterSpec.class), eq(0), eq(10), eq(List.class));
+
+        service.getData(newFilter(0, 10, null));
+        service.getData(newFilter(0, 10, null));
+
+        verify(queryServicesClient, times(2)).query(anyString(), anyString(), any(QueryFilterSpec.class), anyInt(), anyInt(), eq(List.class));
+        verify(processServicesClient).getProcessVariableDefinitions("container", "process");
+
+        snapshotCache.invalidate("template", "container", 1l);
+        service.getData(newFilter(0, 10, null));
+
+        verify(queryServicesClient, times(4)).query(anyString(), anyString(), any(QueryFilterSpec.class), anyInt(), anyInt(), eq(List.class));
+    }
+
+    @Test
+    public void testNameFilterPushedToServer() {
+        doReturn(Collections.emptyList()).when(queryServicesClient).query(eq(PROCESS_INSTANCE_VARIABLES_DATASET), eq(QueryServicesClient.QUERY_MAP_RAW), any(QueryFilterSpec.class), eq(0), eq(10), eq(List.class));
+
+        final PageResponse<ProcessVariableSummary> response = service.getData(newFilter(0, 10, "UnS"));
+
+        assertEquals(1, response.getPageRowList().size());
+        assertEquals("unset", response.getPageRowList().get(0).getVariableId());
+        final ArgumentCaptor<QueryFilterSpec> filterSpec = ArgumentCaptor.forClass(QueryFilterSpec.class);
+        verify(queryServicesClient).query(eq(PROCESS_INSTANCE_VARIABLES_DATASET), eq(QueryServicesClient.QUERY_MAP_RAW), filterSpec.capture(), eq(0), eq(10), eq(List.class));
+        assertTrue(Arrays.stream(filterSpec.getValue().getParameters())
+                           .anyMatch(param -> COLUMN_VARIABLE_NAME_LOWER.equals(param.getColumn()) && "LIKE_TO".equals(param.getOperator()) && Collections.singletonList("%uns%").equals(param.getValue())));
+        assertEquals(COLUMN_VARIABLE_NAME, filterSpec.getValue().getOrderBy());
+    }
+
+    private QueryFilter newFilter(int offset, int count, String textSearch) {
+        final QueryFilter filter = new PortableQueryFilter(offset, count, false, "", "", true);
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("processInstanceId", "1");
+        params.put("processDefId", "process");
+        params.put("deploymentId", "container");
+        params.put("serverTemplateId", "template");
+        params.put("textSearch", textSearch);
+        filter.setParams(params);
+        return filter;
+    }
+
+    private List newRow(String name) {
+        return new ArrayList<Object>(Arrays.asList(1, 1, name, "value " + name, null, System.currentTimeMillis()));
+    }
+}
@@ -15,7 +15,10 @@
  */
 package org.jbpm.workbench.pr.client.editors.instance.details;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import javax.enterprise.context.Dependent;
 import javax.enterprise.event.Event;
@@ -28,6 +31,8 @@ import com.google.gwt.user.client.ui.IsWidget;
 import org.jboss.errai.common.client.api.Caller;
 import org.jboss.errai.common.client.api.RemoteCallback;
 import org.jbpm.workbench.pr.model.NodeInstanceSummary;
+import org.jbpm.workbench.pr.model.ProcessInstanceDetails;
+import org.jbpm.workbench.pr.model.ProcessInstanceDetailsFacet;
 import org.jbpm.workbench.pr.model.ProcessInstanceKey;
 import org.jbpm.workbench.pr.model.ProcessInstanceSummary;
 import org.jbpm.workbench.pr.model.UserTaskSummary;
@@ -64,6 +69,8 @@ public class ProcessInstanceDetailsPresenter {
 
         HTML getParentProcessInstanceIdText();
 
+        void displayNotification( String text );
+
     }
 
     @Inject
@@ -79,6 +86,10 @@ public class ProcessInstanceDetailsPresenter {
 
     private ProcessInstanceSummary processSelected = null;
 
+    public void setProcessRuntimeDataService( final Caller<ProcessRuntimeDataService> processRuntimeDataService ) {
+        this.processRuntimeDataService = processRuntimeDataService;
+    }
+
     public IsWidget getWidget() {
         return view;
     }
@@ -114,68 +125,83 @@ public class ProcessInstanceDetailsPresenter {
         view.getStateText().setText("");
         view.getCurrentActivitiesListBox().setText( "" );
 
-        processRuntimeDataService.call(new RemoteCallback<ProcessInstanceSummary>() {
+        processRuntimeDataService.call(new RemoteCallback<List<ProcessInstanceDetails>>() {
             @Override
-            public void callback( final ProcessInstanceSummary process ) {
-                view.getProcessDefinitionIdText().setText( process.getProcessId() );
-                view.getProcessVersionText().setText( process.getProcessVersion() );
-                view.getProcessDeploymentText().setText( process.getDeploymentId() );
-                view.getCorrelationKeyText().setText(process.getCorrelationKey());
-                if(process.getParentId() > 0){
-                    view.getParentProcessInstanceIdText().setText(process.getParentId().toString());
-                }else{
-                    view.getParentProcessInstanceIdText().setText(constants.No_Parent_Process_Instance());
+            public void callback( final List<ProcessInstanceDetails> details ) {
+                if ( details.isEmpty() ) {
+                    return;
                 }
-
-                String statusStr = constants.Unknown();
-                switch ( process.getState() ) {
-                    case ProcessInstance.STATE_ACTIVE:
-                        statusStr = constants.Active();
-                        break;
-                    case ProcessInstance.STATE_ABORTED:
-                        statusStr = constants.Aborted();
-                        break;
-                    case ProcessInstance.STATE_COMPLETED:
-                        statusStr = constants.Completed();
-                        break;
-                    case ProcessInstance.STATE_PENDING:
-                        statusStr = constants.Pending();
-                        break;
-                    case ProcessInstance.STATE_SUSPENDED:
-                        statusStr = constants.Suspended();
-                        break;
-                    default:
-                        break;
+                final ProcessInstanceDetails instanceDetails = details.get( 0 );
+                if ( instanceDetails.getFailedFacets().contains( ProcessInstanceDetailsFacet.SUMMARY )
+                        || instanceDetails.getFailedFacets().contains( ProcessInstanceDetailsFacet.ACTIVE_NODES ) ) {
+                    view.displayNotification( constants.ErrorRetrievingProcessInstanceDetails() );
                 }
-
-                if (process.getActiveTasks() != null && !process.getActiveTasks().isEmpty()) {
-                    SafeHtmlBuilder safeHtmlBuilder = new SafeHtmlBuilder();
-
-                    for ( UserTaskSummary uts : process.getActiveTasks() ) {
-                        safeHtmlBuilder.appendEscapedLines( uts.getName() + " (" + uts.getStatus() +")  "+constants.Owner() +": " + uts.getOwner() +" \n" );
-                    }
-                    view.getActiveTasksListBox().setHTML( safeHtmlBuilder.toSafeHtml() );
+                if ( instanceDetails.getSummary() != null ) {
+                    showProcessInstance( processId, instanceDetails.getSummary() );
+                }
+                if ( instanceDetails.getActiveNodes() != null ) {
+                    showActiveNodes( instanceDetails.getActiveNodes() );
                 }
-                view.getStateText().setText( statusStr );
-                processSelected = process;
-                changeStyleRow( Long.parseLong( processId ), processSelected.getProcessName(), processSelected.getProcessVersion(),
-                        processSelected.getStartTime() );
-
             }
-        } ).getProcessInstance(serverTemplateId, new ProcessInstanceKey(serverTemplateId, deploymentId, Long.parseLong(processId)));
-
+        } ).getProcessInstanceDetails( serverTemplateId,
+                                       Collections.singletonList( new ProcessInstanceKey( serverTemplateId, deploymentId, Long.parseLong( processId ) ) ),
+                                       new HashSet<ProcessInstanceDetailsFacet>( Arrays.asList( ProcessInstanceDetailsFacet.SUMMARY, ProcessInstanceDetailsFacet.ACTIVE_NODES ) ) );
+    }
 
-        processRuntimeDataService.call(new RemoteCallback<List<NodeInstanceSummary>>() {
-            @Override
-            public void callback( final List<NodeInstanceSummary> details ) {
-                final SafeHtmlBuilder safeHtmlBuilder = new SafeHtmlBuilder();
-                for ( NodeInstanceSummary nis : details ) {
-                    safeHtmlBuilder.appendEscapedLines( nis.getTimestamp() + ": "
-                            + nis.getId() + " - " + nis.getNodeName() + " (" + nis.getType() + ") \n" );
-                }
-                view.getCurrentActivitiesListBox().setHTML( safeHtmlBuilder.toSafeHtml() );
+    private void showProcessInstance( final String processId,
+                                      final ProcessInstanceSummary process ) {
+        view.getProcessDefinitionIdText().setText( process.getProcessId() );
+        view.getProcessVersionText().setText( process.getProcessVersion() );
+        view.getProcessDeploymentText().setText( process.getDeploymentId() );
+        view.getCorrelationKeyText().setText(process.getCorrelationKey());
+        if(process.getParentId() > 0){
+            view.getParentProcessInstanceIdText().setText(process.getParentId().toString());
+        }else{
+            view.getParentProcessInstanceIdText().setText(constants.No_Parent_Process_Instance());
+        }
+
+        String statusStr = constants.Unknown();
+        switch ( process.getState() ) {
+            case ProcessInstance.STATE_ACTIVE:
+                statusStr = constants.Active();
+                break;
+            case ProcessInstance.STATE_ABORTED:
+                statusStr = constants.Aborted();
+                break;
+            case ProcessInstance.STATE_COMPLETED:
+                statusStr = constants.Completed();
+                break;
+            case ProcessInstance.STATE_PENDING:
+                statusStr = constants.Pending();
+                break;
+            case ProcessInstance.STATE_SUSPENDED:
+                statusStr = constants.Suspended();
+                break;
+            default:
+                break;
+        }
+
+        if (process.getActiveTasks() != null && !process.getActiveTasks().isEmpty()) {
+            SafeHtmlBuilder safeHtmlBuilder = new SafeHtmlBuilder();
+
+            for ( UserTaskSummary uts : process.getActiveTasks() ) {
+                safeHtmlBuilder.appendEscapedLines( uts.getName() + " (" + uts.getStatus() +")  "+constants.Owner() +": " + uts.getOwner() +" \n" );
             }
-        } ).getProcessInstanceActiveNodes( serverTemplateId, deploymentId, Long.parseLong( processId ) );
+            view.getActiveTasksListBox().setHTML( safeHtmlBuilder.toSafeHtml() );
+        }
+        view.getStateText().setText( statusStr );
+        processSelected = process;
+        changeStyleRow( Long.parseLong( processId ), processSelected.getProcessName(), processSelected.getProcessVersion(),
+                processSelected.getStartTime() );
+    }
+
+    private void showActiveNodes( final List<NodeInstanceSummary> details ) {
+        final SafeHtmlBuilder safeHtmlBuilder = new SafeHtmlBuilder();
+        for ( NodeInstanceSummary nis : details ) {
+            safeHtmlBuilder.appendEscapedLines( nis.getTimestamp() + ": "
+                    + nis.getId() + " - " + nis.getNodeName() + " (" + nis.getType() + ") \n" );
+        }
+        view.getCurrentActivitiesListBox().setHTML( safeHtmlBuilder.toSafeHtml() );
     }
 
 }
\ No newline at end of file
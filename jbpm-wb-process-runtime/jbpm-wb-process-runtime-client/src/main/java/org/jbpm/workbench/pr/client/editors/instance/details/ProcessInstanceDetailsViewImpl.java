@@ -18,6 +18,7 @@ package org.jbpm.workbench.pr.client.editors.instance.details;
 
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.Dependent;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 
 import com.google.gwt.user.client.ui.Composite;
@@ -26,6 +27,7 @@ import org.gwtbootstrap3.client.ui.FormLabel;
 import org.jboss.errai.ui.shared.api.annotations.DataField;
 import org.jboss.errai.ui.shared.api.annotations.Templated;
 import org.jbpm.workbench.pr.client.i18n.Constants;
+import org.uberfire.workbench.events.NotificationEvent;
 
 @Dependent
 @Templated(value = "ProcessInstanceDetailsViewImpl.html")
@@ -96,6 +98,9 @@ public class ProcessInstanceDetailsViewImpl extends Composite implements
     @DataField
     public FormLabel activeTasksListLabel;
 
+    @Inject
+    private Event<NotificationEvent> notification;
+
     private Constants constants = Constants.INSTANCE;
 
     @PostConstruct
@@ -151,4 +156,9 @@ public class ProcessInstanceDetailsViewImpl extends Composite implements
         return processVersionText;
     }
 
+    @Override
+    public void displayNotification( String text ) {
+        notification.fire( new NotificationEvent( text ) );
+    }
+
 }
\ No newline at end of file
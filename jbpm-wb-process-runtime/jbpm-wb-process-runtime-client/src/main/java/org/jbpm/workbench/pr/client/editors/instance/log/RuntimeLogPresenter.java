@@ -26,6 +26,7 @@ import javax.inject.Inject;
 import com.google.gwt.user.client.ui.IsWidget;
 import org.jboss.errai.common.client.api.Caller;
 import org.jboss.errai.common.client.api.RemoteCallback;
+import org.jbpm.workbench.pr.model.RuntimeLogPage;
 import org.jbpm.workbench.pr.model.RuntimeLogSummary;
 import org.jbpm.workbench.pr.client.util.LogUtils.LogOrder;
 import org.jbpm.workbench.pr.client.util.LogUtils.LogType;
@@ -36,24 +37,41 @@ import org.jbpm.workbench.pr.service.ProcessRuntimeDataService;
 @Dependent
 public class RuntimeLogPresenter {
 
+    protected static final int PAGE_SIZE = 500;
+
     private Long currentProcessInstanceId;
     private String currentProcessName;
     private String currentServerTemplateId;
     private String currentDeploymentId;
+    private LogOrder currentLogOrder = LogOrder.ASC;
+    private LogType currentLogType = LogType.BUSINESS;
+    private int currentRefresh;
+    private String nextCursor;
 
     public interface RuntimeLogView extends IsWidget {
 
         void init( final RuntimeLogPresenter presenter );
 
         void setLogs( List<String> logs );
+
+        void appendLogs( List<String> logs );
+
+        void prependLogs( List<String> logs );
+
+        void setMoreLogsAvailable( boolean available );
     }
 
-    @Inject
     private RuntimeLogView view;
 
-    @Inject
     private Caller<ProcessRuntimeDataService> processRuntimeDataService;
 
+    @Inject
+    public RuntimeLogPresenter( final RuntimeLogView view,
+                                final Caller<ProcessRuntimeDataService> processRuntimeDataService ) {
+        this.view = view;
+        this.processRuntimeDataService = processRuntimeDataService;
+    }
+
     @PostConstruct
     public void init() {
         view.init( this );
@@ -65,40 +83,69 @@ public class RuntimeLogPresenter {
 
     public void refreshProcessInstanceData( final LogOrder logOrder,
                                             final LogType logType ) {
+        this.currentLogOrder = logOrder;
+        this.currentLogType = logType;
+        loadLogs( ++currentRefresh, null );
+    }
 
-        if ( LogType.TECHNICAL.equals( logType ) ) {
-            processRuntimeDataService.call(new RemoteCallback<List<RuntimeLogSummary>>() {
-                @Override
-                public void callback( List<RuntimeLogSummary> logs ) {
-                    final List<String> logsLine = new ArrayList<String>();
+    /**
+     * Loads the next (older) page of logs, if there is any, on user request.
+     */
+    public void loadMoreLogs() {
+        if ( nextCursor != null ) {
+            loadLogs( currentRefresh, nextCursor );
+        }
+    }
 
-                    if ( logOrder == LogOrder.DESC ) {
-                        Collections.reverse( logs );
-                    }
+    /**
+     * Loads a single page of logs, newest first. The first page replaces logs shown, older pages are added to them.
+     */
+    protected void loadLogs( final int refresh,
+                             final String cursor ) {
+        final LogOrder logOrder = currentLogOrder;
+        final LogType logType = currentLogType;
+        // no further page can be requested until this one arrives
+        nextCursor = null;
+        view.setMoreLogsAvailable( false );
+
+        final RemoteCallback<RuntimeLogPage> callback = new RemoteCallback<RuntimeLogPage>() {
+            @Override
+            public void callback( final RuntimeLogPage page ) {
+                // drop pages of a refresh superseded by another one
+                if ( refresh != currentRefresh || page == null ) {
+                    return;
+                }
 
-                    for ( RuntimeLogSummary rls : logs ) {
+                final List<String> logsLine = new ArrayList<String>( page.getLogs().size() );
+                for ( RuntimeLogSummary rls : page.getLogs() ) {
+                    if ( LogType.TECHNICAL.equals( logType ) ) {
                         logsLine.add( rls.getTime() + ": " + rls.getLogLine() + " - " + rls.getType() );
+                    } else {
+                        logsLine.add( rls.getTime() + ": " + rls.getLogLine() );
                     }
+                }
+                if ( logOrder == LogOrder.ASC ) {
+                    Collections.reverse( logsLine );
+                }
 
+                if ( cursor == null ) {
                     view.setLogs( logsLine );
+                } else if ( logOrder == LogOrder.ASC ) {
+                    // older logs go before the ones shown
+                    view.prependLogs( logsLine );
+                } else {
+                    view.appendLogs( logsLine );
                 }
-            } ).getRuntimeLogs(currentServerTemplateId, currentDeploymentId, currentProcessInstanceId);
-        } else {
-            processRuntimeDataService.call(new RemoteCallback<List<RuntimeLogSummary>>() {
-                @Override
-                public void callback( List<RuntimeLogSummary> logs ) {
-                    final List<String> logsLine = new ArrayList<String>();
-                    if ( logOrder == LogOrder.DESC ) {
-                        Collections.reverse( logs );
-                    }
 
-                    for ( RuntimeLogSummary rls : logs ) {
-                        logsLine.add( rls.getTime() + ": " + rls.getLogLine() );
-                    }
+                nextCursor = page.getNextCursor();
+                view.setMoreLogsAvailable( !page.isLastPage() );
+            }
+        };
 
-                    view.setLogs( logsLine );
-                }
-            } ).getBusinessLogs(currentServerTemplateId, currentDeploymentId, currentProcessName, currentProcessInstanceId );
+        if ( LogType.TECHNICAL.equals( logType ) ) {
+            processRuntimeDataService.call( callback ).getRuntimeLogsPage( currentServerTemplateId, currentDeploymentId, currentProcessInstanceId, cursor, PAGE_SIZE );
+        } else {
+            processRuntimeDataService.call( callback ).getBusinessLogsPage( currentServerTemplateId, currentDeploymentId, currentProcessName, currentProcessInstanceId, cursor, PAGE_SIZE );
         }
     }
 
@@ -111,4 +158,4 @@ public class RuntimeLogPresenter {
         refreshProcessInstanceData( LogOrder.ASC, LogType.BUSINESS );
     }
 
-}
\ No newline at end of file
+}
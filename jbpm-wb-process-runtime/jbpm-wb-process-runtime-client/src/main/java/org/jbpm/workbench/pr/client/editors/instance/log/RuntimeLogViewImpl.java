@@ -48,6 +48,12 @@ public class RuntimeLogViewImpl extends Composite
     @DataField
     public Div logTextArea = new Div();
 
+    @Inject
+    @DataField
+    public Button loadMoreLogsButton;
+
+    private UnorderedList logList;
+
     @Inject
     @DataField
     public Button showBusinessLogButton;
@@ -74,6 +80,15 @@ public class RuntimeLogViewImpl extends Composite
         this.setFilters( showTechnicalLogButton, constants.Technical_Log(), LogType.TECHNICAL );
         this.setOrder( showAscLogButton, constants.Asc_Log_Order(), LogOrder.ASC );
         this.setOrder( showDescLogButton, constants.Desc_Log_Order(), LogOrder.DESC );
+
+        loadMoreLogsButton.setText( constants.Load_Older_Logs() );
+        loadMoreLogsButton.setVisible( false );
+        loadMoreLogsButton.addClickHandler( new ClickHandler() {
+            @Override
+            public void onClick( ClickEvent event ) {
+                presenter.loadMoreLogs();
+            }
+        } );
     }
 
     private void setFilters( Button button,
@@ -109,13 +124,30 @@ public class RuntimeLogViewImpl extends Composite
     @Override
     public void setLogs( final List<String> logs ) {
         logTextArea.clear();
-        final UnorderedList list = new UnorderedList() {{
+        logList = new UnorderedList() {{
             addStyleName( "list-unstyled" );
         }};
+        appendLogs( logs );
+        logTextArea.add( logList );
+    }
+
+    @Override
+    public void appendLogs( final List<String> logs ) {
         for ( String log : logs ){
-            list.add( new ListItem( log ) );
+            logList.add( new ListItem( log ) );
         }
-        logTextArea.add( list );
+    }
+
+    @Override
+    public void prependLogs( final List<String> logs ) {
+        for ( int i = 0; i < logs.size(); i++ ) {
+            logList.insert( new ListItem( logs.get( i ) ), i );
+        }
+    }
+
+    @Override
+    public void setMoreLogsAvailable( final boolean available ) {
+        loadMoreLogsButton.setVisible( available );
     }
 
     public void setActiveLogTypeButton( LogType logType ) {
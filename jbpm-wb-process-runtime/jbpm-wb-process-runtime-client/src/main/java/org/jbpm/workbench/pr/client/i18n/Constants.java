@@ -229,6 +229,8 @@ public interface Constants extends Messages {
 
     String Asc_Log_Order();
 
+    String Load_Older_Logs();
+
     String Process_Instance_Name();
 
     String Process_Instance_Description();
@@ -299,6 +301,8 @@ public interface Constants extends Messages {
 
     String ErrorRetrievingProcessDocuments(String message);
 
+    String ErrorRetrievingProcessInstanceDetails();
+
     String AccessDocument();
 
     String ProcessInstanceNeedsToBeActiveInOrderToBeAborted();
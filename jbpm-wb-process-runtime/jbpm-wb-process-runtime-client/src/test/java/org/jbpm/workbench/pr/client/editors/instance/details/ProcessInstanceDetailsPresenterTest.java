@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jbpm.workbench.pr.client.editors.instance.details;
+
+import java.util.Collections;
+import java.util.Date;
+import javax.enterprise.event.Event;
+
+import com.google.gwtmockito.GwtMockitoTestRunner;
+import org.jbpm.workbench.pr.events.ProcessInstanceSelectionEvent;
+import org.jbpm.workbench.pr.events.ProcessInstanceStyleEvent;
+import org.jbpm.workbench.pr.model.ProcessInstanceDetails;
+import org.jbpm.workbench.pr.model.ProcessInstanceDetailsFacet;
+import org.jbpm.workbench.pr.model.ProcessInstanceKey;
+import org.jbpm.workbench.pr.model.ProcessInstanceSummary;
+import org.jbpm.workbench.pr.service.ProcessRuntimeDataService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Answers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.uberfire.mocks.CallerMock;
+
+import static org.mockito.Mockito.*;
+
+@RunWith(GwtMockitoTestRunner.class)
+public class ProcessInstanceDetailsPresenterTest {
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    ProcessInstanceDetailsPresenter.ProcessInstanceDetailsView view;
+
+    @Mock
+    Event<ProcessInstanceStyleEvent> processInstanceStyleEvent;
+
+    @Mock
+    ProcessRuntimeDataService processRuntimeDataService;
+
+    @InjectMocks
+    ProcessInstanceDetailsPresenter presenter;
+
+    @Before
+    public void setup() {
+        presenter.setProcessRuntimeDataService(new CallerMock<ProcessRuntimeDataService>(processRuntimeDataService));
+    }
+
+    @Test
+    public void testProcessInstanceShown() {
+        final ProcessInstanceDetails details = new ProcessInstanceDetails(new ProcessInstanceKey("template", "deployment", 1l));
+        details.setSummary(new ProcessInstanceSummary(1l, "processId", "deployment", "process", "1.0", 1, new Date(), "user", "", "", 0l));
+        details.setActiveNodes(Collections.emptyList());
+        when(processRuntimeDataService.getProcessInstanceDetails(eq("template"), anyList(), anySetOf(ProcessInstanceDetailsFacet.class)))
+                .thenReturn(Collections.singletonList(details));
+
+        presenter.onProcessInstanceSelectionEvent(new ProcessInstanceSelectionEvent("deployment", 1l, "processId", "process", 1, "template"));
+
+        verify(view.getProcessDefinitionIdText()).setText("processId");
+        verify(processInstanceStyleEvent).fire(any(ProcessInstanceStyleEvent.class));
+        verify(view, never()).displayNotification(anyString());
+    }
+
+    @Test
+    public void testFailedFacetsReported() {
+        final ProcessInstanceDetails details = new ProcessInstanceDetails(new ProcessInstanceKey("template", "deployment", 1l));
+        details.addFailedFacet(ProcessInstanceDetailsFacet.SUMMARY);
+        details.setActiveNodes(Collections.emptyList());
+        when(processRuntimeDataService.getProcessInstanceDetails(eq("template"), anyList(), anySetOf(ProcessInstanceDetailsFacet.class)))
+                .thenReturn(Collections.singletonList(details));
+
+        presenter.onProcessInstanceSelectionEvent(new ProcessInstanceSelectionEvent("deployment", 1l, "processId", "process", 1, "template"));
+
+        verify(view).displayNotification(anyString());
+        verify(processInstanceStyleEvent, never()).fire(any(ProcessInstanceStyleEvent.class));
+    }
+
+    @Test
+    public void testFailedActiveNodesReported() {
+        final ProcessInstanceDetails details = new ProcessInstanceDetails(new ProcessInstanceKey("template", "deployment", 1l));
+        details.setSummary(new ProcessInstanceSummary(1l, "processId", "deployment", "process", "1.0", 1, new Date(), "user", "", "", 0l));
+        details.addFailedFacet(ProcessInstanceDetailsFacet.ACTIVE_NODES);
+        when(processRuntimeDataService.getProcessInstanceDetails(eq("template"), anyList(), anySetOf(ProcessInstanceDetailsFacet.class)))
+                .thenReturn(Collections.singletonList(details));
+
+        presenter.onProcessInstanceSelectionEvent(new ProcessInstanceSelectionEvent("deployment", 1l, "processId", "process", 1, "template"));
+
+        verify(view).displayNotification(anyString());
+        verify(view.getProcessDefinitionIdText()).setText("processId");
+    }
+}
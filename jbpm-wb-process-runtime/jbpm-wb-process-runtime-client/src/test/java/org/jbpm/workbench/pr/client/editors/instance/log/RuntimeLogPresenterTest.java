@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.pr.client.editors.instance.log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.gwtmockito.GwtMockitoTestRunner;
+import org.jboss.errai.common.client.api.Caller;
+import org.jbpm.workbench.pr.client.util.LogUtils.LogOrder;
+import org.jbpm.workbench.pr.client.util.LogUtils.LogType;
+import org.jbpm.workbench.pr.events.ProcessInstanceSelectionEvent;
+import org.jbpm.workbench.pr.model.RuntimeLogPage;
+import org.jbpm.workbench.pr.model.RuntimeLogSummary;
+import org.jbpm.workbench.pr.service.ProcessRuntimeDataService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.uberfire.mocks.CallerMock;
+
+import static org.mockito.Mockito.*;
+
+@RunWith(GwtMockitoTestRunner.class)
+public class RuntimeLogPresenterTest {
+
+    @Mock
+    RuntimeLogPresenter.RuntimeLogView view;
+
+    @Mock
+    ProcessRuntimeDataService processRuntimeDataService;
+
+    Caller<ProcessRuntimeDataService> processRuntimeDataServiceCaller;
+
+    RuntimeLogPresenter presenter;
+
+    @Before
+    public void setup() {
+        processRuntimeDataServiceCaller = new CallerMock<ProcessRuntimeDataService>(processRuntimeDataService);
+        presenter = new RuntimeLogPresenter(view, processRuntimeDataServiceCaller);
+        when(processRuntimeDataService.getBusinessLogsPage("template", "deployment", "process", 1l, null, RuntimeLogPresenter.PAGE_SIZE))
+                .thenReturn(newPage("cursor", 4, 3));
+        when(processRuntimeDataService.getBusinessLogsPage("template", "deployment", "process", 1l, "cursor", RuntimeLogPresenter.PAGE_SIZE))
+                .thenReturn(newPage(null, 2, 1));
+    }
+
+    @Test
+    public void testOnlyFirstPageLoadedOnSelection() {
+        presenter.onProcessInstanceSelectionEvent(new ProcessInstanceSelectionEvent("deployment", 1l, "processId", "process", 1, "template"));
+
+        verify(processRuntimeDataService).getBusinessLogsPage("template", "deployment", "process", 1l, null, RuntimeLogPresenter.PAGE_SIZE);
+        verify(processRuntimeDataService, never()).getBusinessLogsPage(anyString(), anyString(), anyString(), anyLong(), eq("cursor"), anyInt());
+        verify(view).setLogs(Arrays.asList("time3: log3", "time4: log4"));
+        verify(view).setMoreLogsAvailable(true);
+    }
+
+    @Test
+    public void testOlderLogsPrependedInAscendingOrder() {
+        presenter.onProcessInstanceSelectionEvent(new ProcessInstanceSelectionEvent("deployment", 1l, "processId", "process", 1, "template"));
+
+        presenter.loadMoreLogs();
+
+        verify(processRuntimeDataService).getBusinessLogsPage("template", "deployment", "process", 1l, "cursor", RuntimeLogPresenter.PAGE_SIZE);
+        verify(view).prependLogs(Arrays.asList("time1: log1", "time2: log2"));
+        verify(view, never()).appendLogs(anyList());
+        verify(view).setMoreLogsAvailable(true);
+        verify(view, atLeastOnce()).setMoreLogsAvailable(false);
+
+        // last page loaded
+        presenter.loadMoreLogs();
+        verify(processRuntimeDataService).getBusinessLogsPage(anyString(), anyString(), anyString(), anyLong(), eq("cursor"), anyInt());
+    }
+
+    @Test
+    public void testOlderLogsAppendedInDescendingOrder() {
+        presenter.onProcessInstanceSelectionEvent(new ProcessInstanceSelectionEvent("deployment", 1l, "processId", "process", 1, "template"));
+        presenter.refreshProcessInstanceData(LogOrder.DESC, LogType.BUSINESS);
+        verify(view).setLogs(Arrays.asList("time4: log4", "time3: log3"));
+
+        presenter.loadMoreLogs();
+
+        verify(view).appendLogs(Arrays.asList("time2: log2", "time1: log1"));
+        verify(view, never()).prependLogs(anyList());
+    }
+
+    @Test
+    public void testRefreshRestartsPaging() {
+        presenter.onProcessInstanceSelectionEvent(new ProcessInstanceSelectionEvent("deployment", 1l, "processId", "process", 1, "template"));
+        when(processRuntimeDataService.getRuntimeLogsPage("template", "deployment", 1l, null, RuntimeLogPresenter.PAGE_SIZE))
+                .thenReturn(newPage(null, 4, 4));
+
+        presenter.refreshProcessInstanceData(LogOrder.ASC, LogType.TECHNICAL);
+        verify(view).setLogs(Arrays.asList("time4: log4 - System"));
+
+        // cursor of the business logs is not used for technical ones
+        presenter.loadMoreLogs();
+        verify(processRuntimeDataService, never()).getBusinessLogsPage(anyString(), anyString(), anyString(), anyLong(), eq("cursor"), anyInt());
+        verify(processRuntimeDataService, never()).getRuntimeLogsPage(anyString(), anyString(), anyLong(), eq("cursor"), anyInt());
+    }
+
+    private RuntimeLogPage newPage(String nextCursor, int newest, int oldest) {
+        final List<RuntimeLogSummary> logs = new ArrayList<RuntimeLogSummary>();
+        for (int i = newest; i >= oldest; i--) {
+            logs.add(new RuntimeLogSummary((long) i, "time" + i, "log" + i, "System"));
+        }
+        return new RuntimeLogPage(logs, nextCursor);
+    }
+}
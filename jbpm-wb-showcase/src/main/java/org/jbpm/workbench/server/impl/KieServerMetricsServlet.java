@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workbench.server.impl;
+
+import java.io.IOException;
+import javax.inject.Inject;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.jbpm.workbench.forms.display.backend.provider.FormRenderingContextRegistry;
+import org.jbpm.workbench.ks.integration.KieServerCallMetrics;
+
+/**
+ * Exposes KIE Server call metrics and form rendering context metrics in Prometheus text format, the same metrics are
+ * available over JMX. Only users in the configured role (admin by default) can read them, the role is checked here so
+ * that scrapers can keep using basic authentication handled by the servlet filter.
+ */
+public class KieServerMetricsServlet extends HttpServlet {
+
+    public static final String ROLE_PARAM = "role";
+
+    @Inject
+    private KieServerCallMetrics callMetrics;
+
+    @Inject
+    private FormRenderingContextRegistry formRenderingContextRegistry;
+
+    private String role = "admin";
+
+    @Override
+    public void init() throws ServletException {
+        if (getInitParameter(ROLE_PARAM) != null) {
+            role = getInitParameter(ROLE_PARAM);
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req,
+                         HttpServletResponse resp) throws ServletException, IOException {
+        if (!req.isUserInRole(role)) {
+            resp.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        resp.setContentType("text/plain; version=0.0.4; charset=UTF-8");
+        resp.setHeader("Cache-Control", "no-cache");
+        callMetrics.writePrometheusMetrics(resp.getWriter());
+        formRenderingContextRegistry.writePrometheusMetrics(resp.getWriter());
+    }
+}